@@ -6,7 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
-@WebFilter("/*")
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
 public class CorsFilter implements Filter {
 
     @Override
@@ -25,8 +25,9 @@ public class CorsFilter implements Filter {
         )) {
             resp.setHeader("Access-Control-Allow-Origin", origin);
             resp.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-            resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, ngrok-skip-browser-warning");
+            resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, ngrok-skip-browser-warning, If-None-Match");
             resp.setHeader("Access-Control-Allow-Credentials", "true");
+            resp.setHeader("Access-Control-Expose-Headers", "X-Query-Count, X-Query-Time-Ms, X-Query-NPlusOne, X-Next-Cursor, ETag");
         }
 
         // 🧠 Handle OPTIONS preflight properly
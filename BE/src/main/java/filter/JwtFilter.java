@@ -4,24 +4,29 @@ import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import model.service.PrincipalResolver;
+import utils.JwtPrincipal;
 import utils.JwtUtil;
+import utils.RequestUtils;
 import utils.ResponseUtils;
 import utils.AuthException;
 import utils.AuthRules;
 
 import java.io.IOException;
-import java.util.List;
+import utils.ServiceRegistry;
 
-@WebFilter("/*")
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
 public class JwtFilter implements Filter {
 
+    private final PrincipalResolver principalResolver = ServiceRegistry.get(PrincipalResolver.class);
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
         HttpServletRequest req = (HttpServletRequest) request;
         HttpServletResponse resp = (HttpServletResponse) response;
-        String path = req.getServletPath();
+        String path = RequestUtils.routePath(req);
 
         try {
             if (AuthRules.isPublicPath(path)) {
@@ -29,18 +34,17 @@ public class JwtFilter implements Filter {
                 return;
             }
 
-            String token = JwtUtil.extractToken(req);
-            JwtUtil.validateToken(token);
-
-            String username = JwtUtil.extractUsername(token);
-            List<String> roles = JwtUtil.extractRoles(token);
+            // Verified once here (plus a cached active/dealer/role check);
+            // controllers read the principal from the request
+            JwtPrincipal principal = principalResolver.resolve(JwtUtil.extractToken(req));
 
-            if (!AuthRules.hasRequiredRole(path, roles)) {
+            if (!AuthRules.hasRequiredRole(path, principal.getRoleMask())) {
                 throw new AuthException("Forbidden: insufficient role");
             }
 
-            req.setAttribute("username", username);
-            req.setAttribute("roles", roles);
+            req.setAttribute(JwtPrincipal.ATTRIBUTE, principal);
+            req.setAttribute("username", principal.getUsername());
+            req.setAttribute("roles", principal.getRoles());
 
             chain.doFilter(request, response);
 
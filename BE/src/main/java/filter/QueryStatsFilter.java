@@ -0,0 +1,69 @@
+package filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import utils.JdbcInstrumentation;
+import utils.QueryStats;
+
+/**
+ * Tracks the SQL statements issued while handling each API request and logs
+ * repeated identical statements (N+1 suspects).
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class QueryStatsFilter implements Filter {
+
+    private static final Logger LOG = Logger.getLogger("jdbc.nplusone");
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        QueryStats stats = QueryStats.begin(req);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryStats.end();
+            if (req.isAsyncStarted()) {
+                // Still running on another thread, report once it is done
+                req.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        report(req, stats);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                report(req, stats);
+            }
+        }
+    }
+
+    private static void report(HttpServletRequest req, QueryStats stats) {
+        Map<String, Integer> suspects = stats.getNPlusOneSuspects(JdbcInstrumentation.getNPlusOneThreshold());
+        if (!suspects.isEmpty()) {
+            LOG.log(Level.WARNING, "N+1 suspect on {0}: {1} statements in {2} ms, repeated: {3}", new Object[]{
+                req.getRequestURI(),
+                stats.getStatementCount(),
+                String.format("%.2f", stats.getTotalMillis()),
+                suspects
+            });
+        }
+    }
+}
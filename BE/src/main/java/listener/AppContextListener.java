@@ -0,0 +1,72 @@
+package listener;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import model.service.InventoryCounterService;
+import model.service.SearchService;
+import model.service.SerialPool;
+import utils.AsyncEndpoints;
+import utils.DbUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Application startup/shutdown hooks.
+ */
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    private static final long INVENTORY_CHECK_INTERVAL_MINUTES = 30;
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // Start the pool eagerly so the first request does not pay for the logins
+        try {
+            DbUtils.getDataSource();
+        } catch (Exception e) {
+            System.err.println("Failed to start connection pool: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        // Fill the serial pool so order creation does not scan for free serials
+        try {
+            int loaded = SerialPool.getInstance().loadAll();
+            System.out.println("INFO: Serial pool loaded with " + loaded + " free serials");
+        } catch (Exception e) {
+            System.err.println("Failed to load serial pool, variants will be loaded on first use: " + e.getMessage());
+        }
+
+        // Build the name search indexes so searches never scan the tables
+        try {
+            int indexed = ServiceRegistry.get(SearchService.class).loadAll();
+            System.out.println("INFO: Search indexes loaded with " + indexed + " names");
+        } catch (Exception e) {
+            System.err.println("Failed to load search indexes: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        // Repair inventory counter drift in the background
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-counter-check");
+            t.setDaemon(true);
+            return t;
+        });
+        InventoryCounterService inventoryCounterService = ServiceRegistry.get(InventoryCounterService.class);
+        scheduler.scheduleWithFixedDelay(inventoryCounterService::checkAndRepair,
+                INVENTORY_CHECK_INTERVAL_MINUTES, INVENTORY_CHECK_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        AsyncEndpoints.shutdown();
+        DbUtils.shutdown();
+    }
+}
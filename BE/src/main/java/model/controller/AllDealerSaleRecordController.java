@@ -15,6 +15,7 @@ import java.util.Map;
 import model.service.SaleRecordService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/dealerSaleRecords")
 public class AllDealerSaleRecordController extends HttpServlet {
 
-    private SaleRecordService saleService = new SaleRecordService();
+    private SaleRecordService saleService = ServiceRegistry.get(SaleRecordService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -0,0 +1,397 @@
+package model.controller;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import utils.AsyncEndpoints;
+import utils.AuthException;
+import utils.BufferedResponse;
+import utils.QueryStats;
+import utils.RequestSnapshot;
+import utils.RequestUtils;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * The one servlet behind {@code /api/*} (see WEB-INF/web.xml). At startup it
+ * creates each controller of this package once and reads its
+ * {@code @WebServlet} paths and its doGet/doPost/doPut/doDelete methods into
+ * a route table, so the controllers keep their URLs while the container no
+ * longer registers them one by one.
+ * <p>
+ * A request is answered with 404 when no controller has its path and with
+ * 405 when the controller does not handle its method. Exceptions that escape
+ * a controller get one status each:
+ * <ul>
+ * <li>{@link AuthException}: 401</li>
+ * <li>{@link IllegalArgumentException} (bad numbers included): 400</li>
+ * <li>{@link IllegalStateException}: 403</li>
+ * <li>any other runtime exception: 400, logged with its stack trace</li>
+ * <li>anything else: 500, logged with its stack trace</li>
+ * </ul>
+ * Apart from the 401, these are the statuses ExceptionLoggingFilter gave
+ * before the dispatcher; they stay until the controllers are audited for
+ * what they let escape.
+ * The slow endpoints listed in async-endpoints.properties are run on
+ * {@link AsyncEndpoints} instead of the container thread.
+ */
+public class ApiDispatcher extends HttpServlet {
+
+    private static final String CONTROLLER_DIR = "/WEB-INF/classes/model/controller/";
+    private static final String CONTROLLER_PACKAGE = "model.controller.";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+    // How long a timeout waits for a controller that finished first to hand over its response
+    private static final long SEND_WAIT_SECONDS = 5;
+
+    private static final class Route {
+
+        final HttpServlet handler;
+        final Set<String> methods;
+        final String allow;
+
+        Route(HttpServlet handler, Set<String> methods) {
+            this.handler = handler;
+            this.methods = methods;
+            Set<String> allowed = new TreeSet<>(methods);
+            if (methods.contains("GET")) {
+                allowed.add("HEAD");
+            }
+            allowed.add("OPTIONS");
+            this.allow = String.join(", ", allowed);
+        }
+    }
+
+    // Filled in init() and only read afterwards
+    private final Map<String, Route> routes = new HashMap<>();
+    private final List<HttpServlet> handlers = new ArrayList<>();
+
+    @Override
+    public void init() throws ServletException {
+        Set<String> paths = getServletContext().getResourcePaths(CONTROLLER_DIR);
+        if (paths == null || paths.isEmpty()) {
+            throw new ServletException("No controllers found in " + CONTROLLER_DIR);
+        }
+        for (String path : new TreeSet<>(paths)) {
+            String file = path.substring(CONTROLLER_DIR.length());
+            if (!file.endsWith(".class") || file.indexOf('$') >= 0) {
+                continue;
+            }
+            addController(CONTROLLER_PACKAGE + file.substring(0, file.length() - ".class".length()));
+        }
+        System.out.println("INFO: API dispatcher started with " + routes.size() + " routes, "
+                + ServiceRegistry.size() + " shared services and DAOs");
+    }
+
+    private void addController(String className) throws ServletException {
+        Class<?> type;
+        try {
+            type = Class.forName(className, true, getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new ServletException("Cannot load " + className, e);
+        }
+        WebServlet mapping = type.getAnnotation(WebServlet.class);
+        if (mapping == null || !HttpServlet.class.isAssignableFrom(type)) {
+            return;
+        }
+
+        HttpServlet handler;
+        try {
+            handler = (HttpServlet) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ServletException("Cannot create " + className, e);
+        }
+        handler.init(new HandlerConfig(type.getSimpleName(), getServletContext()));
+        handlers.add(handler);
+
+        Route route = new Route(handler, handledMethods(type));
+        Set<String> patterns = new LinkedHashSet<>();
+        Collections.addAll(patterns, mapping.value());
+        Collections.addAll(patterns, mapping.urlPatterns());
+        for (String pattern : patterns) {
+            Route previous = routes.put(pattern, route);
+            if (previous != null) {
+                throw new ServletException(pattern + " is mapped by both "
+                        + previous.handler.getClass().getSimpleName() + " and " + type.getSimpleName());
+            }
+        }
+    }
+
+    // The methods the controller overrides, looking up to (not into) HttpServlet
+    private static Set<String> handledMethods(Class<?> type) {
+        Set<String> methods = new LinkedHashSet<>();
+        for (Class<?> c = type; c != HttpServlet.class; c = c.getSuperclass()) {
+            for (String method : METHODS) {
+                String name = "do" + method.charAt(0) + method.substring(1).toLowerCase();
+                try {
+                    c.getDeclaredMethod(name, HttpServletRequest.class, HttpServletResponse.class);
+                    methods.add(method);
+                } catch (NoSuchMethodException e) {
+                    // not overridden at this level
+                }
+            }
+        }
+        return methods;
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        AsyncEndpoints.containerEnter();
+        try {
+            String path = RequestUtils.routePath(req);
+            Route route = routes.get(path);
+            if (route == null) {
+                ResponseUtils.error(resp, HttpServletResponse.SC_NOT_FOUND, "No API at " + path);
+                return;
+            }
+
+            String method = req.getMethod();
+            if (!route.methods.contains(method)
+                    && !("HEAD".equals(method) && route.methods.contains("GET"))
+                    && !"OPTIONS".equals(method)) {
+                resp.setHeader("Allow", route.allow);
+                ResponseUtils.error(resp, HttpServletResponse.SC_METHOD_NOT_ALLOWED, method + " is not supported here");
+                return;
+            }
+
+            long timeout = AsyncEndpoints.timeoutMillis(path);
+            if (timeout > 0 && req.isAsyncSupported()) {
+                dispatchAsync(route, req, resp, timeout);
+            } else {
+                invoke(route, req, resp);
+            }
+        } finally {
+            AsyncEndpoints.containerExit();
+        }
+    }
+
+    private static void invoke(Route route, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        try {
+            route.handler.service(req, resp);
+        } catch (ServletException e) {
+            Throwable cause = e.getRootCause() != null ? e.getRootCause() : e;
+            fail(req, resp, cause);
+        } catch (RuntimeException e) {
+            fail(req, resp, e);
+        }
+    }
+
+    /**
+     * Release the container thread and run the controller on
+     * {@link AsyncEndpoints}. Whichever ends first, the controller or the
+     * timeout, completes the request; the other one is ignored.
+     * <p>
+     * The controller gets a {@link RequestSnapshot} read before the hand-off
+     * and a {@link BufferedResponse}, copied to the real response only when
+     * it finishes first. On timeout both are detached and the worker is
+     * interrupted, so nothing it does later reaches the container's objects,
+     * which are recycled for other requests once this one completes.
+     */
+    private static void dispatchAsync(Route route, HttpServletRequest req, HttpServletResponse resp, long timeout) throws IOException {
+        RequestSnapshot request;
+        try {
+            request = new RequestSnapshot(req);
+        } catch (ServletException | IllegalStateException e) {
+            // Multipart parsing failed or went over the size limits
+            ResponseUtils.error(resp, HttpServletResponse.SC_BAD_REQUEST, "Cannot read the request: " + e.getMessage());
+            return;
+        }
+        BufferedResponse response = new BufferedResponse(resp);
+
+        AsyncContext async = req.startAsync(req, resp);
+        async.setTimeout(timeout);
+        AtomicBoolean finished = new AtomicBoolean();
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        CountDownLatch sent = new CountDownLatch(1);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (!finished.compareAndSet(false, true)) {
+                    // The controller won and is copying its response, let it complete
+                    awaitSent(sent);
+                    return;
+                }
+                abandon(request, response, worker);
+                AsyncEndpoints.timedOut();
+                System.err.println("Timed out after " + timeout + " ms: " + req.getMethod() + " " + RequestUtils.routePath(req));
+                try {
+                    if (!resp.isCommitted()) {
+                        resp.resetBuffer();
+                        ResponseUtils.error(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                                "The request took longer than " + timeout + " ms, try again later");
+                    }
+                } finally {
+                    async.complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (finished.compareAndSet(false, true)) {
+                    abandon(request, response, worker);
+                } else {
+                    awaitSent(sent);
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        // The SQL statistics of the request follow it to the worker thread
+        QueryStats stats = QueryStats.current();
+        AsyncEndpoints.submit(() -> {
+            if (finished.get()) {
+                // Timed out while waiting for a free slot
+                return;
+            }
+            worker.set(Thread.currentThread());
+            QueryStats.resume(stats);
+            try {
+                invoke(route, request, response);
+            } catch (IOException | RuntimeException e) {
+                if (!finished.get()) {
+                    e.printStackTrace();
+                }
+            } finally {
+                QueryStats.end();
+                worker.set(null);
+                if (finished.compareAndSet(false, true)) {
+                    try {
+                        response.sendTo(resp);
+                    } catch (IOException | RuntimeException e) {
+                        e.printStackTrace();
+                    } finally {
+                        async.complete();
+                        sent.countDown();
+                    }
+                }
+            }
+        });
+    }
+
+    // The request ends without the controller: cut it off from the container's objects
+    private static void abandon(RequestSnapshot request, BufferedResponse response, AtomicReference<Thread> worker) {
+        request.detach();
+        response.detach();
+        Thread thread = worker.get();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private static void awaitSent(CountDownLatch sent) {
+        try {
+            if (!sent.await(SEND_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Response still being copied after " + SEND_WAIT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void fail(HttpServletRequest req, HttpServletResponse resp, Throwable e) throws IOException {
+        int status;
+        String message;
+        if (e instanceof AuthException) {
+            status = HttpServletResponse.SC_UNAUTHORIZED;
+            message = e.getMessage();
+        } else if (e instanceof IllegalArgumentException) {
+            status = HttpServletResponse.SC_BAD_REQUEST;
+            message = e.getMessage();
+        } else if (e instanceof IllegalStateException) {
+            status = HttpServletResponse.SC_FORBIDDEN;
+            message = e.getMessage();
+        } else if (e instanceof RuntimeException) {
+            status = HttpServletResponse.SC_BAD_REQUEST;
+            message = e.getMessage();
+            System.err.println("Runtime exception on " + req.getMethod() + " " + RequestUtils.routePath(req));
+            e.printStackTrace();
+        } else {
+            status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            message = "Internal server error";
+            System.err.println("Unhandled exception on " + req.getMethod() + " " + RequestUtils.routePath(req));
+            e.printStackTrace();
+        }
+        if (resp.isCommitted()) {
+            // Part of the answer is already out, nothing better to send
+            System.err.println("Response already committed, dropping " + status + ": " + e);
+            return;
+        }
+        resp.resetBuffer();
+        ResponseUtils.error(resp, status, message != null ? message : "Request failed");
+    }
+
+    @Override
+    public void destroy() {
+        for (HttpServlet handler : handlers) {
+            try {
+                handler.destroy();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        handlers.clear();
+        routes.clear();
+    }
+
+    /**
+     * The config a controller would have had as its own servlet: its class
+     * name and the application context, without init parameters.
+     */
+    private static final class HandlerConfig implements ServletConfig {
+
+        private final String name;
+        private final ServletContext context;
+
+        HandlerConfig(String name, ServletContext context) {
+            this.name = name;
+            this.context = context;
+        }
+
+        @Override
+        public String getServletName() {
+            return name;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return context;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return null;
+        }
+
+        @Override
+        public Enumeration<String> getInitParameterNames() {
+            return Collections.emptyEnumeration();
+        }
+    }
+}
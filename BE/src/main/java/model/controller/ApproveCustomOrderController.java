@@ -13,9 +13,10 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import model.service.OrderService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -24,15 +25,13 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/approveCustomOrder")
 public class ApproveCustomOrderController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract token from header
-            String token = JwtUtil.extractToken(req);
-            int staffAdminId = JwtUtil.extractUserId(token);
+            int staffAdminId = JwtPrincipal.from(req).getUserId();
 
             // Extract parameters from frontend
             Map<String, Object> params = RequestUtils.extractParams(req);
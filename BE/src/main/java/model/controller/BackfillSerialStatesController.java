@@ -0,0 +1,33 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import model.service.SerialStateService;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * One-shot fill / repair of VehicleSerial.state from the order and confirmation tables.
+ */
+@WebServlet("/api/admin/backfillSerialStates")
+public class BackfillSerialStatesController extends HttpServlet {
+
+    private final SerialStateService serialStateService = ServiceRegistry.get(SerialStateService.class);
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            int rows = serialStateService.backfill();
+            ResponseUtils.success(response, "Serial states backfilled successfully", Collections.singletonMap("rows", rows));
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Failed to backfill serial states: " + e.getMessage());
+        }
+    }
+}
@@ -6,17 +6,22 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 import java.util.Map;
-import model.service.CompareModelService; // <--- CHANGED FROM CompareModelFeaturesService
+import model.service.CatalogSnapshot;
+import utils.CachedJson;
 import utils.RequestUtils;
 import utils.ResponseUtils;
 
 @WebServlet("/api/public/compareVehicle")
 public class CompareModelFeaturesController extends HttpServlet {
 
-    // IMPORTANT: Assuming CompareModelService is the correct, final class name.
-    private final CompareModelService service = new CompareModelService(); // <--- CHANGED
+    private final CatalogSnapshot catalog = CatalogSnapshot.getInstance();
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        doPost(req, resp);
+    }
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -24,12 +29,15 @@ public class CompareModelFeaturesController extends HttpServlet {
         try {
             // Using RequestUtils from BE to parse parameters
             Map<String, Object> params = RequestUtils.extractParams(req);
-            String vehicleName = String.valueOf(params.get("vehicleName"));
-            // Corrected service method call based on BE service class
-            Object searchResult = service.HandlingSearchVehicleByVehicleName(vehicleName); 
+            Object vehicleName = params.get("vehicleName");
+            if (vehicleName == null) {
+                // GET /api/public/compareVehicle?vehicleName=...
+                vehicleName = req.getParameter("vehicleName");
+            }
+            CachedJson searchResult = vehicleName != null ? catalog.modelsNamed(vehicleName.toString()) : null;
 
-            if (searchResult != null && !((List<?>) searchResult).isEmpty()) {
-                ResponseUtils.success(resp, "success", searchResult);
+            if (searchResult != null) {
+                ResponseUtils.cached(req, resp, searchResult);
             } else {
                 ResponseUtils.error(resp, "No vehicles found with that name.");
             }
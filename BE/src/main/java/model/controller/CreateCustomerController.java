@@ -14,6 +14,7 @@ import java.util.Map;
 import model.service.CustomerService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/createCustomer")
 public class CreateCustomerController extends HttpServlet {
 
-    private final CustomerService service = new CustomerService();
+    private final CustomerService service = ServiceRegistry.get(CustomerService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -15,6 +15,7 @@ import model.dto.FeedbackDTO;
 import model.service.FeedBackService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/createFeedBack")
 public class CreateFeedBackController extends HttpServlet {
 
-    private final FeedBackService CFBService = new FeedBackService();
+    private final FeedBackService CFBService = ServiceRegistry.get(FeedBackService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
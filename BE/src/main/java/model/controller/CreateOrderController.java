@@ -10,13 +10,15 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Map;
 import model.dao.VehicleVariantDAO;
+import model.dto.CreateOrderRequest;
 import model.dto.VehicleVariantDTO;
 import model.service.OrderService;
-import utils.JwtUtil;
-import utils.RequestUtils;
+import utils.BindException;
+import utils.JwtPrincipal;
+import utils.RequestBinder;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -25,45 +27,25 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/createOrder")
 public class CreateOrderController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
-    private final VehicleVariantDAO variantDAO = new VehicleVariantDAO();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
+    private final VehicleVariantDAO variantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract dealerstaffId from JWT token
-            String token = JwtUtil.extractToken(req);
-            int dealerstaffId = JwtUtil.extractUserId(token);
+            int dealerstaffId = JwtPrincipal.from(req).getUserId();
 
-            Map<String, Object> params = RequestUtils.extractParams(req);
-
-            // Validate required fields (removed dealerstaffId from required params)
-            if (!params.containsKey("customerId")
-                    || !params.containsKey("modelId") || !params.containsKey("quantity")) {
-                ResponseUtils.error(resp, "Missing required parameters: customerId, modelId, quantity");
-                return;
-            }
-
-            // Parse required parameters
-            int customerId = Integer.parseInt(params.get("customerId").toString()) ;
-            int modelId = Integer.parseInt(params.get("modelId").toString());
-            int quantity = Integer.parseInt(params.get("quantity").toString());
-
-            // Validate quantity
-            if (quantity <= 0) {
-                ResponseUtils.error(resp, "Quantity must be greater than 0");
-                return;
-            }
+            CreateOrderRequest body = RequestBinder.bind(req, CreateOrderRequest.class);
+            int customerId = body.getCustomerId();
+            int modelId = body.getModelId();
+            int quantity = body.getQuantity();
 
             // Handle variantId - optional
-            Integer variantId = null;
+            Integer variantId = body.getVariantId();
             double unitPrice = 0.0;
 
-            if (params.containsKey("variantId") && params.get("variantId") != null
-                    && !params.get("variantId").toString().trim().isEmpty()) {
-                variantId = Integer.parseInt(params.get("variantId").toString());
-
+            if (variantId != null) {
                 if (variantId > 0) {
                     VehicleVariantDTO variant = variantDAO.findUnitPriceByVariantId(variantId);
                     if (variant == null) {
@@ -74,17 +56,8 @@ public class CreateOrderController extends HttpServlet {
                 }
             }
 
-            // Handle status - optional, defaults to "Pending"
-            String status = "Pending";
-            if (params.containsKey("status") && params.get("status") != null
-                    && !params.get("status").toString().trim().isEmpty()) {
-                status = params.get("status").toString();
-            }
-
-            // Handle isCustom - optional, defaults to false
-            boolean isCustom = params.containsKey("isCustom") && params.get("isCustom") != null
-                    ? Boolean.parseBoolean(params.get("isCustom").toString())
-                    : false;
+            String status = body.getStatus();
+            boolean isCustom = body.getIsCustom();
 
             // Create order via service (using dealerstaffId from token)
             int orderId = service.HandlingCreateOrder(customerId, dealerstaffId, modelId,
@@ -105,6 +78,8 @@ public class CreateOrderController extends HttpServlet {
                 ResponseUtils.error(resp, "Failed to create order");
             }
 
+        } catch (BindException e) {
+            ResponseUtils.error(resp, e);
         } catch (utils.AuthException e) {
             ResponseUtils.error(resp, "Authentication failed: " + e.getMessage());
         } catch (NumberFormatException e) {
@@ -14,9 +14,10 @@ import java.util.Map;
 import model.dao.VehicleVariantDAO;
 import model.dto.VehicleVariantDTO;
 import model.service.OrderService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -25,15 +26,14 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/createOrderFromDealer")
 public class CreateOrderFromDealerController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
-    private final VehicleVariantDAO variantDAO = new VehicleVariantDAO();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
+    private final VehicleVariantDAO variantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            String token = JwtUtil.extractToken(req);
-            int dealerstaffId = JwtUtil.extractUserId(token);
+            int dealerstaffId = JwtPrincipal.from(req).getUserId();
             Map<String, Object> params = RequestUtils.extractParams(req);
 
             // Validate required fields
@@ -8,12 +8,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Map;
 import model.dto.TestDriveScheduleDTO;
-import model.dto.UserAccountDTO;
 import model.service.TestDriveScheduleService;
-import model.service.UserAccountService;
+import utils.JwtPrincipal;
 import utils.JwtUtil;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  * Controller for creating test drive schedules with dealer ID encoded in status
@@ -22,37 +22,25 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/createSchedule")
 public class CreateScheduleController extends HttpServlet {
-    private final TestDriveScheduleService CTDService = new TestDriveScheduleService();
-    private final UserAccountService userService = new UserAccountService();
+    private final TestDriveScheduleService CTDService = ServiceRegistry.get(TestDriveScheduleService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
           
-            String token = JwtUtil.extractToken(req);
-            int userId = JwtUtil.extractUserId(token);
-            
-            UserAccountDTO user = userService.getDealerStaffById(userId);
-            
-            if (user == null) {
-                ResponseUtils.error(resp, "User not found");
-                return;
-            }
-            
-            
+            JwtPrincipal user = JwtPrincipal.from(req);
+
             Integer dealerId = user.getDealerId();
             if (dealerId == null) {
                 ResponseUtils.error(resp, "Dealer ID not found for user");
                 return;
             }
-            
-            
+
             Map<String, Object> params = RequestUtils.extractParams(req);
             String customerIdStr = params.get("customer_id").toString();
             String serialId = params.get("serial_id").toString(); 
             String date = params.get("date").toString();
-            
-            
+
             if (customerIdStr == null || customerIdStr.trim().isEmpty() ||
                 serialId == null || serialId.trim().isEmpty() ||
                 date == null || date.trim().isEmpty()) {
@@ -61,11 +49,9 @@ public class CreateScheduleController extends HttpServlet {
             }
             
             int customerId = Integer.parseInt(customerIdStr);
-            
-      
+
             String encodedStatus = JwtUtil.encodeStatus("PENDING", dealerId);
-            
-        
+
             TestDriveScheduleDTO schedule = CTDService.createTestDriveSchedule(customerId, serialId, date, encodedStatus);
             
             if (schedule != null) {
@@ -15,6 +15,7 @@ import model.dto.VehicleModelDTO;
 import model.service.VehicleModelService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/createVehicleModel")
 public class CreateVehicleModelController extends HttpServlet {
-    private VehicleModelService vehicleModelService = new VehicleModelService();
+    private VehicleModelService vehicleModelService = ServiceRegistry.get(VehicleModelService.class);
     
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
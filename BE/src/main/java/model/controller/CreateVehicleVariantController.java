@@ -15,6 +15,7 @@ import model.dto.VehicleVariantDTO;
 import model.service.VehicleVariantService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 
@@ -24,7 +25,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/createVehicleVariant")
 public class CreateVehicleVariantController extends HttpServlet {
-    private VehicleVariantService vehicleVariantService = new VehicleVariantService();
+    private VehicleVariantService vehicleVariantService = ServiceRegistry.get(VehicleVariantService.class);
     
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -10,35 +10,23 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import model.dto.SaleRecordDTO;
-import model.dto.UserAccountDTO;
 import model.service.SaleRecordService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/manager/dealerSalesRecords")
 public class DealerSaleRecordController extends HttpServlet {
 
-    private final SaleRecordService service = new SaleRecordService();
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final SaleRecordService service = ServiceRegistry.get(SaleRecordService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
 
         try {
-            // Extract token and get dealer staff ID from JWT
-            String token = JwtUtil.extractToken(req);
-            int dealerStaffId = JwtUtil.extractUserId(token);
-
-            // Get dealer staff user account using service layer
-            UserAccountDTO staff = userAccountService.getDealerStaffById(dealerStaffId);
-
-            if (staff == null) {
-                ResponseUtils.error(resp, "Staff account not found");
-                return;
-            }
+            JwtPrincipal staff = JwtPrincipal.from(req);
 
             // Get dealer ID from staff account
             int dealerId = staff.getDealerId();
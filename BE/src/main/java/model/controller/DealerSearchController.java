@@ -12,10 +12,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import model.dao.DealerDAO;
 import model.dto.DealerDTO;
+import model.service.SearchService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -25,7 +26,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/searchDealer")
 public class DealerSearchController extends HttpServlet {
 
-    private final DealerDAO dealerDAO = new DealerDAO();
+    private final SearchService searchService = ServiceRegistry.get(SearchService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -40,7 +41,7 @@ public class DealerSearchController extends HttpServlet {
                 return;
             }
 
-            List<DealerDTO> dealers = dealerDAO.findByName(name.trim());
+            List<DealerDTO> dealers = searchService.searchDealers(name.trim());
             
             if (dealers != null && !dealers.isEmpty()) {
                 ResponseUtils.success(resp, "Dealers found", dealers);
@@ -12,10 +12,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import model.dao.UserAccountDAO;
 import model.dto.UserAccountDTO;
+import model.service.SearchService;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -24,7 +26,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/searchDealerStaff")
 public class DealerStaffSearchController extends HttpServlet {
 
-    private final UserAccountDAO userDAO = new UserAccountDAO();
+    private final SearchService searchService = ServiceRegistry.get(SearchService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -39,7 +41,9 @@ public class DealerStaffSearchController extends HttpServlet {
                 return;
             }
 
-            List<UserAccountDTO> users = userDAO.searchDealerStaffAndManagerByName(name.trim());
+            // Only the staff of the caller's own dealer
+            int dealerId = JwtPrincipal.from(req).getDealerId();
+            List<UserAccountDTO> users = searchService.searchDealerStaff(name.trim(), dealerId);
 
             if (users != null && !users.isEmpty()) {
                 ResponseUtils.success(resp, "DealerStaff found", users);
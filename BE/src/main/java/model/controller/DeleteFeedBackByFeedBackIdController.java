@@ -10,11 +10,12 @@ import java.util.Map;
 import model.service.FeedBackService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/deleteFeedBackByFeedBackId")
 public class DeleteFeedBackByFeedBackIdController extends HttpServlet {
 
-    private final FeedBackService service = new FeedBackService();
+    private final FeedBackService service = ServiceRegistry.get(FeedBackService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
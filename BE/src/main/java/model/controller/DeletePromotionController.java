@@ -12,9 +12,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Map;
 import model.service.PromotionForDealerService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,15 +24,13 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/deletePromotion")
 public class DeletePromotionController extends HttpServlet {
     
-    private final PromotionForDealerService promotionService = new PromotionForDealerService();
+    private final PromotionForDealerService promotionService = ServiceRegistry.get(PromotionForDealerService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Verify authentication
-            String token = JwtUtil.extractToken(req);
-            JwtUtil.validateToken(token);
+            JwtPrincipal.from(req);
             
             // Extract promoId from request parameters
             Map<String, Object> params = RequestUtils.extractParams(req);
@@ -15,6 +15,7 @@ import java.util.Map;
 import model.service.UserAccountService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/disableDealerAccount")
 public class DisableDealerAccountController extends HttpServlet {
 
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final UserAccountService userAccountService = ServiceRegistry.get(UserAccountService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -14,6 +14,7 @@ import java.util.Map;
 import model.service.VehicleModelService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -21,7 +22,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/disableVehicleModel")
 public class DisableVehicleModelController extends HttpServlet {
-    private VehicleModelService vehicleModelService = new VehicleModelService();
+    private VehicleModelService vehicleModelService = ServiceRegistry.get(VehicleModelService.class);
     
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -14,6 +14,7 @@ import java.util.List;
 import model.dto.OrderDTO;
 import model.service.OrderService;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,7 +23,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/getAllApprovedOrdersFromDealers")
 public class GetAllApprovedOrdersFromDealersController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -10,10 +10,13 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 import model.dto.PromotionDTO;
 import model.service.PromotionForDealerService;
+import utils.Page;
+import utils.PageRequest;
+import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,20 +25,23 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/getAllPromotion")
 public class GetAllPromotionController extends HttpServlet {
 
-    private final PromotionForDealerService service = new PromotionForDealerService();
+    private final PromotionForDealerService service = ServiceRegistry.get(PromotionForDealerService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            List<PromotionDTO> promotions = service.getAllPromotion();
+            PageRequest page = PageRequest.from(RequestUtils.extractParams(req));
+            Page<PromotionDTO> promotions = service.getPromotionsPage(page);
 
-            if (promotions == null || promotions.isEmpty()) {
+            if (promotions.getItems().isEmpty()) {
                 ResponseUtils.error(resp, "No promotions found");
             } else {
-                ResponseUtils.success(resp, "Retrieved all promotions successfully", promotions);
+                ResponseUtils.page(resp, "Retrieved all promotions successfully", promotions);
             }
 
+        } catch (IllegalArgumentException e) {
+            ResponseUtils.error(resp, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(resp, "Server error while retrieving promotions");
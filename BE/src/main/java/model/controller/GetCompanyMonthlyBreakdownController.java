@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import model.service.OrderService;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/getCompanyMonthlyBreakdown")
 public class GetCompanyMonthlyBreakdownController extends HttpServlet {
     
-    private final OrderService orderService = new OrderService();
+    private final OrderService orderService = ServiceRegistry.get(OrderService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.util.Map;
 import model.service.OrderService;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -22,7 +23,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/getCompanySalesTarget")
 public class GetCompanySalesTargetController extends HttpServlet {
     
-    private final OrderService orderService = new OrderService();
+    private final OrderService orderService = ServiceRegistry.get(OrderService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
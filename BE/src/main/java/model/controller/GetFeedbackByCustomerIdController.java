@@ -13,12 +13,11 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import model.dto.FeedbackDTO;
-import model.dto.UserAccountDTO;
 import model.service.FeedBackService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -27,24 +26,13 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/getFeedbackByDealer")
 public class GetFeedbackByCustomerIdController extends HttpServlet {
 
-    private final FeedBackService feedbackService = new FeedBackService();
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final FeedBackService feedbackService = ServiceRegistry.get(FeedBackService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract token and get dealer staff ID from JWT
-            String token = JwtUtil.extractToken(req);
-            int dealerStaffId = JwtUtil.extractUserId(token);
-
-            // Get dealer staff user account using service layer
-            UserAccountDTO staff = userAccountService.getDealerStaffById(dealerStaffId);
-
-            if (staff == null) {
-                ResponseUtils.error(resp, "Staff account not found");
-                return;
-            }
+            JwtPrincipal staff = JwtPrincipal.from(req);
 
             // Get dealer ID from staff account
             int dealerId = staff.getDealerId();
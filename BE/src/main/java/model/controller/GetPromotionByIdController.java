@@ -16,6 +16,7 @@ import model.dto.PromotionDTO;
 import model.service.PromotionForDealerService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -24,7 +25,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/getPromotionById")
 public class GetPromotionByIdController extends HttpServlet {
 
-    private final PromotionForDealerService service = new PromotionForDealerService();
+    private final PromotionForDealerService service = ServiceRegistry.get(PromotionForDealerService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
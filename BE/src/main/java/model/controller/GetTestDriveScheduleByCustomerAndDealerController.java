@@ -10,17 +10,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import model.dto.TestDriveScheduleDTO;
-import model.dto.UserAccountDTO;
 import model.service.TestDriveScheduleService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/getTestDriveScheduleByCustomer")
 public class GetTestDriveScheduleByCustomerAndDealerController extends HttpServlet {
-    private final TestDriveScheduleService testDriveScheduleService = new TestDriveScheduleService();
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final TestDriveScheduleService testDriveScheduleService = ServiceRegistry.get(TestDriveScheduleService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -28,14 +26,7 @@ public class GetTestDriveScheduleByCustomerAndDealerController extends HttpServl
 
         try {
             
-            String token = JwtUtil.extractToken(req);
-            int dealerStaffId = JwtUtil.extractUserId(token);
-
-            UserAccountDTO staff = userAccountService.getDealerStaffById(dealerStaffId);
-            if (staff == null) {
-                ResponseUtils.error(resp, "Staff account not found");
-                return;
-            }
+            JwtPrincipal staff = JwtPrincipal.from(req);
 
             int dealerId = staff.getDealerId();
             if (dealerId <= 0) {
@@ -43,7 +34,6 @@ public class GetTestDriveScheduleByCustomerAndDealerController extends HttpServl
                 return;
             }
 
-          
             Map<String, Object> params = RequestUtils.extractParams(req);
             Object customerIdObj = params.get("customer_id");
 
@@ -73,7 +63,6 @@ public class GetTestDriveScheduleByCustomerAndDealerController extends HttpServl
                 return;
             }
 
-          
             List<TestDriveScheduleDTO> dealerSchedules = new ArrayList<>();
             for (TestDriveScheduleDTO s : customerSchedules) {
                 String status = s.getStatus();
@@ -93,7 +82,6 @@ public class GetTestDriveScheduleByCustomerAndDealerController extends HttpServl
                 return;
             }
 
-           
             ResponseUtils.success(resp, "Test drive schedules retrieved successfully", dealerSchedules);
 
         } catch (utils.AuthException e) {
@@ -9,30 +9,21 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import model.dto.TestDriveScheduleDTO;
-import model.dto.UserAccountDTO;
 import model.service.TestDriveScheduleService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/getTestDriveScheduleByDealerId")
 public class GetTestDriveScheduleByDealerController extends HttpServlet {
-    private final TestDriveScheduleService testDriveScheduleService = new TestDriveScheduleService();
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final TestDriveScheduleService testDriveScheduleService = ServiceRegistry.get(TestDriveScheduleService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            String token = JwtUtil.extractToken(req);
-            int dealerStaffId = JwtUtil.extractUserId(token);
-            
-            UserAccountDTO staff = userAccountService.getDealerStaffById(dealerStaffId);
-            if (staff == null) {
-                ResponseUtils.error(resp, "Staff account not found");
-                return;
-            }
-            
+            JwtPrincipal staff = JwtPrincipal.from(req);
+
             Integer dealerId = staff.getDealerId();
             if (dealerId == null || dealerId <= 0) {
                 ResponseUtils.error(resp, "No dealer associated with this staff account");
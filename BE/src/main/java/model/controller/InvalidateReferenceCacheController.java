@@ -0,0 +1,37 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import utils.ReferenceCache;
+import utils.RequestUtils;
+import utils.ResponseUtils;
+
+/**
+ * Drop cached reference data after it was changed directly in the database.
+ * Optional "cache" names one cache (dealers, models, variants, userRoles),
+ * otherwise all of them are cleared.
+ */
+@WebServlet("/api/admin/invalidateReferenceCache")
+public class InvalidateReferenceCacheController extends HttpServlet {
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            Map<String, Object> params = RequestUtils.extractParams(request);
+            Object cache = params.get("cache");
+            ReferenceCache.invalidateAll(cache != null ? cache.toString() : null);
+            ResponseUtils.success(response, "Reference cache invalidated successfully", ReferenceCache.stats());
+        } catch (IllegalArgumentException e) {
+            ResponseUtils.error(response, e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Failed to invalidate reference cache: " + e.getMessage());
+        }
+    }
+}
@@ -16,11 +16,12 @@ import model.service.UserAccountService;
 import utils.JwtUtil;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/login")
 public class LoginController extends HttpServlet {
 
-    private final UserAccountService service = new UserAccountService();
+    private final UserAccountService service = ServiceRegistry.get(UserAccountService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -0,0 +1,33 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import model.service.SalesRollupService;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Backfill / repair DailySalesRollup from the raw order and confirmation tables.
+ */
+@WebServlet("/api/admin/rebuildSalesRollup")
+public class RebuildSalesRollupController extends HttpServlet {
+
+    private final SalesRollupService rollupService = ServiceRegistry.get(SalesRollupService.class);
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            int rows = rollupService.rebuild();
+            ResponseUtils.success(response, "Sales rollup rebuilt successfully", Collections.singletonMap("rows", rows));
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Failed to rebuild sales rollup: " + e.getMessage());
+        }
+    }
+}
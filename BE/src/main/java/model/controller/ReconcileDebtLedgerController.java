@@ -0,0 +1,45 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import model.service.CustomerDebtLedgerService;
+import utils.RequestUtils;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Verify CustomerDebtLedger against the raw tables, or rebuild it with {"rebuild": true}.
+ */
+@WebServlet("/api/admin/reconcileDebtLedger")
+public class ReconcileDebtLedgerController extends HttpServlet {
+
+    private final CustomerDebtLedgerService ledgerService = ServiceRegistry.get(CustomerDebtLedgerService.class);
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            Map<String, Object> params = RequestUtils.extractParams(request);
+            boolean rebuild = params.get("rebuild") != null && Boolean.parseBoolean(params.get("rebuild").toString());
+
+            if (rebuild) {
+                List<Map<String, Object>> corrected = ledgerService.rebuild();
+                ResponseUtils.success(response, "Debt ledger rebuilt (" + corrected.size() + " rows corrected)", corrected);
+            } else {
+                List<Map<String, Object>> drift = ledgerService.verify();
+                ResponseUtils.success(response, drift.isEmpty()
+                        ? "Debt ledger is consistent"
+                        : "Debt ledger drift found on " + drift.size() + " rows", drift);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Failed to reconcile debt ledger: " + e.getMessage());
+        }
+    }
+}
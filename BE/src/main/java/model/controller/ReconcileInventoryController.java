@@ -0,0 +1,45 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import model.service.InventoryCounterService;
+import utils.RequestUtils;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Verify the inventory counters against VehicleSerial, or rebuild them with {"rebuild": true}.
+ */
+@WebServlet("/api/admin/reconcileInventory")
+public class ReconcileInventoryController extends HttpServlet {
+
+    private final InventoryCounterService inventoryCounterService = ServiceRegistry.get(InventoryCounterService.class);
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            Map<String, Object> params = RequestUtils.extractParams(request);
+            boolean rebuild = params.get("rebuild") != null && Boolean.parseBoolean(params.get("rebuild").toString());
+
+            if (rebuild) {
+                List<Map<String, Object>> corrected = inventoryCounterService.rebuild();
+                ResponseUtils.success(response, "Inventory counters rebuilt (" + corrected.size() + " rows corrected)", corrected);
+            } else {
+                List<Map<String, Object>> drift = inventoryCounterService.verify();
+                ResponseUtils.success(response, drift.isEmpty()
+                        ? "Inventory counters are consistent"
+                        : "Inventory counter drift found on " + drift.size() + " rows", drift);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Failed to reconcile inventory counters: " + e.getMessage());
+        }
+    }
+}
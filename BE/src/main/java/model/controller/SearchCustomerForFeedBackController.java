@@ -12,11 +12,12 @@ import model.dto.CustomerDTO;
 import model.service.FeedBackService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/searchCustomerForFeedBack")
 public class SearchCustomerForFeedBackController extends HttpServlet {
 
-    private final FeedBackService service = new FeedBackService();
+    private final FeedBackService service = ServiceRegistry.get(FeedBackService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
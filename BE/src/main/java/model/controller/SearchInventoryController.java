@@ -17,6 +17,7 @@ import model.dto.VehicleModelDTO;
 import model.service.ViewInventoryService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -25,7 +26,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/searchModelInventory")
 public class SearchInventoryController extends HttpServlet {
 
-    private final ViewInventoryService service = new ViewInventoryService();
+    private final ViewInventoryService service = ServiceRegistry.get(ViewInventoryService.class);
 
     @Override
 
@@ -15,6 +15,7 @@ import model.dto.UserAccountDTO;
 import model.service.UserAccountService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/updateDealerAccount")
 public class UpdateDealerAccountController extends HttpServlet {
 
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final UserAccountService userAccountService = ServiceRegistry.get(UserAccountService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
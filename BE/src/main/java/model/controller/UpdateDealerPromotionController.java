@@ -15,6 +15,7 @@ import java.util.Map;
 import model.service.PromotionForDealerService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/updateDealerPromotion")
 public class UpdateDealerPromotionController extends HttpServlet {
 
-    private final PromotionForDealerService service = new PromotionForDealerService();
+    private final PromotionForDealerService service = ServiceRegistry.get(PromotionForDealerService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
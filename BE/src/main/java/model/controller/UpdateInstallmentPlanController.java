@@ -15,6 +15,7 @@ import model.dto.InstallmentPlanDTO;
 import model.service.PaymentService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/updateInstallmentPlan")
 public class UpdateInstallmentPlanController extends HttpServlet {
 
-    private final PaymentService service = new PaymentService();
+    private final PaymentService service = ServiceRegistry.get(PaymentService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
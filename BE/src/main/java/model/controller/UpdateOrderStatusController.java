@@ -15,6 +15,7 @@ import java.util.Map;
 import model.service.OrderService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,7 +24,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/updateOrderStatuss")
 public class UpdateOrderStatusController extends HttpServlet {
 
-    private final OrderService orderService = new OrderService();
+    private final OrderService orderService = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -8,31 +8,22 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Map;
 import model.dto.TestDriveScheduleDTO;
-import model.dto.UserAccountDTO;
 import model.service.TestDriveScheduleService;
-import model.service.UserAccountService;
+import utils.JwtPrincipal;
 import utils.JwtUtil;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/updateScheduleStatus")
 public class UpdateScheduleController extends HttpServlet {
-    private final TestDriveScheduleService scheduleService = new TestDriveScheduleService();
-    private final UserAccountService userService = new UserAccountService();
+    private final TestDriveScheduleService scheduleService = ServiceRegistry.get(TestDriveScheduleService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         try {
-            String token = JwtUtil.extractToken(req);
-            int userId = JwtUtil.extractUserId(token);
-            
-            UserAccountDTO user = userService.getDealerStaffById(userId);
-            
-            if (user == null) {
-                ResponseUtils.error(resp, "User not found");
-                return;
-            }
-            
+            JwtPrincipal user = JwtPrincipal.from(req);
+
             Integer dealerId = user.getDealerId();
             if (dealerId == null) {
                 ResponseUtils.error(resp, "Dealer ID not found for user");
@@ -14,6 +14,7 @@ import java.util.Map;
 import model.service.VehicleVariantService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -22,7 +23,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/updateVehicleVariant")
 public class UpdateVehicleVariantController extends HttpServlet {
-    private VehicleVariantService vehicleVariantService = new VehicleVariantService();
+    private VehicleVariantService vehicleVariantService = ServiceRegistry.get(VehicleVariantService.class);
     
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -12,10 +12,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import model.dao.VehicleModelDAO;
 import model.dto.VehicleModelDTO;
+import model.service.SearchService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -24,7 +25,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/searchVehicleModel")
 public class VehicleModelSearchController extends HttpServlet {
-    private final VehicleModelDAO vdao = new VehicleModelDAO();
+    private final SearchService searchService = ServiceRegistry.get(SearchService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -40,7 +41,7 @@ public class VehicleModelSearchController extends HttpServlet {
                 return;
             }
 
-            List<VehicleModelDTO> model = vdao.SearchVehicleModel(name.trim());
+            List<VehicleModelDTO> model = searchService.searchModels(name.trim());
 
             if (model != null && !model.isEmpty()) {
                 ResponseUtils.success(resp, "Model found", model);
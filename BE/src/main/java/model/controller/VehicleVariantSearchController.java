@@ -13,10 +13,11 @@ import model.dao.VehicleVariantDAO;
 import model.dto.VehicleVariantDTO;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/searchVehicleVariant")
 public class VehicleVariantSearchController extends HttpServlet {
-    private final VehicleVariantDAO vdao = new VehicleVariantDAO();
+    private final VehicleVariantDAO vdao = ServiceRegistry.get(VehicleVariantDAO.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
@@ -10,10 +10,14 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 import model.dto.ConfirmationDTO;
 import model.service.OrderService;
+import utils.Page;
+import utils.PageRequest;
+import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.RowCursor;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,19 +26,27 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewAllConfirmations")
 public class ViewAllConfirmationController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            List<ConfirmationDTO> confirmations = service.getAllConfirmation();
-
-            if (confirmations != null && !confirmations.isEmpty()) {
-                ResponseUtils.success(resp, "All confirmations retrieved successfully", confirmations);
-            } else {
-                ResponseUtils.success(resp, "No confirmations found", confirmations);
+            PageRequest page = PageRequest.from(RequestUtils.extractParams(req));
+            if (page.isPaged()) {
+                Page<ConfirmationDTO> confirmations = service.getConfirmationsPage(page);
+                ResponseUtils.page(resp, !confirmations.getItems().isEmpty()
+                        ? "All confirmations retrieved successfully"
+                        : "No confirmations found", confirmations);
+                return;
+            }
+            try ( RowCursor<ConfirmationDTO> confirmations = service.openAllConfirmations(page)) {
+                ResponseUtils.stream(resp, confirmations.hasNext()
+                        ? "All confirmations retrieved successfully"
+                        : "No confirmations found", confirmations);
             }
+        } catch (IllegalArgumentException e) {
+            ResponseUtils.error(resp, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(resp, "Error retrieving confirmations: " + e.getMessage());
@@ -10,10 +10,13 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 import model.dto.CustomerDTO;
 import model.service.CustomerService;
+import utils.PageRequest;
+import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.RowCursor;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,14 +25,22 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/viewAllCustomer")
 public class ViewAllCustomerController extends HttpServlet {
 
-    private final CustomerService service = new CustomerService();
+    private final CustomerService service = ServiceRegistry.get(CustomerService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            List<CustomerDTO> lists = service.getAll();
-            ResponseUtils.success(response, "All dealer accounts retrieved successfully", lists);
+            PageRequest page = PageRequest.from(RequestUtils.extractParams(request));
+            if (page.isPaged()) {
+                ResponseUtils.page(response, "All dealer accounts retrieved successfully", service.getPage(page));
+                return;
+            }
+            try ( RowCursor<CustomerDTO> customers = service.openAll(page)) {
+                ResponseUtils.stream(response, "All dealer accounts retrieved successfully", customers);
+            }
+        } catch (IllegalArgumentException e) {
+            ResponseUtils.error(response, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(response, "Internal server error: " + e.getMessage());
@@ -10,11 +10,13 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import model.service.UserAccountService;
+import utils.Page;
+import utils.PageRequest;
+import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,24 +25,27 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewAllDealerAccounts")
 public class ViewAllDealerAccountsController extends HttpServlet {
 
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final UserAccountService userAccountService = ServiceRegistry.get(UserAccountService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
             // Get all dealer accounts with dealer name
-            List<Map<String, Object>> dealerAccounts = userAccountService
-                    .getAllDealerAccounts();
+            PageRequest page = PageRequest.from(RequestUtils.extractParams(req));
+            Page<Map<String, Object>> dealerAccounts = userAccountService
+                    .getAllDealerAccounts(page);
 
-            if (dealerAccounts != null && !dealerAccounts.isEmpty()) {
-                ResponseUtils.success(resp,
-                        "Retrieved " + dealerAccounts.size() + " dealer account(s)",
+            if (!dealerAccounts.getItems().isEmpty()) {
+                ResponseUtils.page(resp,
+                        "Retrieved " + dealerAccounts.getItems().size() + " dealer account(s)",
                         dealerAccounts);
             } else {
-                ResponseUtils.success(resp, "No dealer accounts found", new ArrayList<>());
+                ResponseUtils.page(resp, "No dealer accounts found", dealerAccounts);
             }
 
+        } catch (IllegalArgumentException e) {
+            ResponseUtils.error(resp, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(resp, "Error retrieving dealer accounts: " + e.getMessage());
@@ -10,10 +10,12 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 import model.dto.DealerDTO;
 import model.service.PromotionForDealerService;
+import utils.PageRequest;
+import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,14 +24,16 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewAllDealer")
 public class ViewAllDealerController extends HttpServlet {
 
-    private final PromotionForDealerService service = new PromotionForDealerService();
+    private final PromotionForDealerService service = ServiceRegistry.get(PromotionForDealerService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            List<DealerDTO> dealers = service.getAllDealers();
-            ResponseUtils.success(response, "All dealers retrieved successfully", dealers);
+            PageRequest page = PageRequest.from(RequestUtils.extractParams(request));
+            ResponseUtils.page(response, "All dealers retrieved successfully", service.getDealersPage(page));
+        } catch (IllegalArgumentException e) {
+            ResponseUtils.error(response, e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(response, "Internal server error: " + e.getMessage());
@@ -0,0 +1,47 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import model.dto.PromotionDTO;
+import model.service.PromotionEngine;
+import utils.JwtPrincipal;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Promotions of the caller's dealer that can be applied at checkout today.
+ */
+@WebServlet("/api/staff/viewApplicablePromotions")
+public class ViewApplicablePromotionsController extends HttpServlet {
+
+    private final PromotionEngine promotionEngine = ServiceRegistry.get(PromotionEngine.class);
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        doPost(req, resp);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        try {
+            int dealerId = JwtPrincipal.from(req).getDealerId();
+            if (dealerId <= 0) {
+                ResponseUtils.error(resp, "No dealer associated with this staff account");
+                return;
+            }
+            List<PromotionDTO> promotions = promotionEngine.applicable(dealerId, LocalDate.now());
+            ResponseUtils.success(resp, "Applicable promotions retrieved successfully", promotions);
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(resp, "An error occurred while retrieving promotions: " + e.getMessage());
+        }
+    }
+}
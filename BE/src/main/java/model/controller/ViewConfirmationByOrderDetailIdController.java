@@ -16,6 +16,7 @@ import model.dto.ConfirmationDTO;
 import model.service.OrderService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -24,7 +25,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewConfirmationByOrderDetailId")
 public class ViewConfirmationByOrderDetailIdController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
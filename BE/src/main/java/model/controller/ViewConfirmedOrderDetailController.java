@@ -10,10 +10,11 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 import java.util.Map;
 import model.service.OrderService;
 import utils.ResponseUtils;
+import utils.RowCursor;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,20 +23,15 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewConfirmedOrderDetails")
 public class ViewConfirmedOrderDetailController extends HttpServlet {
 
-    private final OrderService service = new OrderService();
+    private final OrderService service = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
-        try {
-            List<Map<String, Object>> details = service.retrieveOrdersWithConfirmedDetails();
-
-            if (details != null && !details.isEmpty()) {
-                ResponseUtils.success(resp, "All confirmed order details retrieved successfully", details);
-            } else {
-                ResponseUtils.success(resp, "No confirmed order details found", details);
-            }
-
+        try ( RowCursor<Map<String, Object>> details = service.openOrdersWithConfirmedDetails()) {
+            ResponseUtils.stream(resp, details.hasNext()
+                    ? "All confirmed order details retrieved successfully"
+                    : "No confirmed order details found", details);
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(resp, "Error retrieving confirmed order details: " + e.getMessage());
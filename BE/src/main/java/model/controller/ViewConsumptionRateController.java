@@ -13,6 +13,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import model.service.ViewConsumptionRateService;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -20,7 +21,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/viewConsumptionRate")
 public class ViewConsumptionRateController extends HttpServlet {
-    private final ViewConsumptionRateService service = new ViewConsumptionRateService();
+    private final ViewConsumptionRateService service = ServiceRegistry.get(ViewConsumptionRateService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
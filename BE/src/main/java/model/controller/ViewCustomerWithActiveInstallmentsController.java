@@ -9,33 +9,23 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import model.dto.UserAccountDTO;
 import model.service.PaymentService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/viewCustomerWithActiveInstallments")
 public class ViewCustomerWithActiveInstallmentsController extends HttpServlet {
 
-    private final PaymentService paymentService = new PaymentService();
-    private final UserAccountService userService = new UserAccountService();
+    private final PaymentService paymentService = ServiceRegistry.get(PaymentService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            // Extract token and get userId from JWT
-            String token = JwtUtil.extractToken(request);
-            
-            if (token == null || token.trim().isEmpty()) {
-                ResponseUtils.error(response, "No authentication token provided");
-                return;
-            }
-            
             int userId;
             try {
-                userId = JwtUtil.extractUserId(token);
+                userId = JwtPrincipal.from(request).getUserId();
             } catch (Exception e) {
                 ResponseUtils.error(response, "Invalid or expired token");
                 return;
@@ -44,12 +34,7 @@ public class ViewCustomerWithActiveInstallmentsController extends HttpServlet {
             System.out.println("DEBUG: ViewCustomerWithActiveInstallments - userId from token: " + userId);
             
             // Get user details to retrieve dealerId
-            UserAccountDTO user = userService.getDealerStaffById(userId);
-            
-            if (user == null) {
-                ResponseUtils.error(response, "User not found with ID: " + userId);
-                return;
-            }
+            JwtPrincipal user = JwtPrincipal.from(request);
             
             int dealerId = user.getDealerId();
             
@@ -12,11 +12,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.util.List;
 import java.io.IOException;
 import model.dto.CustomerDTO;
-import model.dto.UserAccountDTO;
 import model.service.CustomerService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -25,23 +24,15 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/viewCustomersByDealer")
 public class ViewCustomersByDealerController extends HttpServlet {
-    private final UserAccountService userService = new UserAccountService();
-    private final CustomerService customerService = new CustomerService();
+    private final CustomerService customerService = ServiceRegistry.get(CustomerService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            String token = JwtUtil.extractToken(req);
-            
-            if (token == null || token.trim().isEmpty()) {
-                ResponseUtils.error(resp, "No authentication token provided");
-                return;
-            }
-            
             int userId;
             try {
-                userId = JwtUtil.extractUserId(token);
+                userId = JwtPrincipal.from(req).getUserId();
             } catch (Exception e) {
                 ResponseUtils.error(resp, "Invalid or expired token");
                 return;
@@ -49,12 +40,7 @@ public class ViewCustomersByDealerController extends HttpServlet {
             
             System.out.println("DEBUG: ViewCustomersByDealer - userId from token: " + userId);
             
-            UserAccountDTO user = userService.getDealerStaffById(userId);
-            
-            if (user == null) {
-                ResponseUtils.error(resp, "User not found with ID: " + userId);
-                return;
-            }
+            JwtPrincipal user = JwtPrincipal.from(req);
             
             int dealerId = user.getDealerId();
             
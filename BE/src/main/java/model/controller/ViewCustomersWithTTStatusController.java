@@ -9,58 +9,58 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import model.dto.UserAccountDTO;
 import model.service.PaymentService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
+import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 @WebServlet("/api/staff/viewCustomerWithTTStatus")
 public class ViewCustomersWithTTStatusController extends HttpServlet {
 
-    private final PaymentService paymentService = new PaymentService();
-    private final UserAccountService userService = new UserAccountService();
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final PaymentService paymentService = ServiceRegistry.get(PaymentService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            // Extract token
-            String token = JwtUtil.extractToken(request);
-            if (token == null || token.trim().isEmpty()) {
-                ResponseUtils.error(response, "No authentication token provided");
-                return;
-            }
-
-            int userId;
+            JwtPrincipal user;
             try {
-                userId = JwtUtil.extractUserId(token);
+                user = JwtPrincipal.from(request);
             } catch (Exception e) {
                 ResponseUtils.error(response, "Invalid or expired token");
                 return;
             }
+            int userId = user.getUserId();
 
             // Get dealer info
-            UserAccountDTO user = userService.getDealerStaffById(userId);
-            if (user == null) {
-                ResponseUtils.error(response, "User not found with ID: " + userId);
-                return;
-            }
-
             int dealerId = user.getDealerId();
             if (dealerId <= 0) {
                 ResponseUtils.error(response, "Invalid dealer ID for user: " + userId);
                 return;
             }
 
+            // Optional keyset paging: "after" = last paymentId seen, "limit" = page size
+            Map<String, Object> params = RequestUtils.extractParams(request);
+            int after = params.get("after") != null ? Integer.parseInt(params.get("after").toString()) : 0;
+            int limit = params.get("limit") != null ? Integer.parseInt(params.get("limit").toString()) : 0;
+            limit = Math.min(limit, MAX_PAGE_SIZE);
+
             // Get TT customers for this dealer
-            List<Map<String, Object>> customers = paymentService.getCustomersWithTTStatusByDealer(dealerId);
+            List<Map<String, Object>> customers = paymentService.getCustomersWithTTStatusByDealer(dealerId, after, limit);
 
             if (customers == null || customers.isEmpty()) {
                 ResponseUtils.success(response, 
                     "No TT (direct payment) customers found for dealer ID: " + dealerId, 
                     Collections.emptyList());
             } else {
+                // A full page means there may be more, hand back the cursor for the next one
+                if (limit > 0 && customers.size() == limit) {
+                    response.setHeader("X-Next-Cursor", String.valueOf(customers.get(customers.size() - 1).get("paymentId")));
+                }
+
                 double totalPaid = customers.stream()
                         .mapToDouble(m -> (double) m.get("paidAmount"))
                         .sum();
@@ -0,0 +1,33 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import utils.DbUtils;
+import utils.ResponseUtils;
+
+@WebServlet("/api/admin/dbPoolStats")
+public class ViewDbPoolStatsController extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        doPost(request, response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            Map<String, Object> stats = DbUtils.getPoolStats();
+            ResponseUtils.success(response, "Connection pool stats retrieved successfully", stats);
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -13,6 +13,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import model.service.ViewInventoryService;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -21,7 +22,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewInventory")
 public class ViewInventoryController extends HttpServlet {
 
-    private final ViewInventoryService service = new ViewInventoryService();
+    private final ViewInventoryService service = ServiceRegistry.get(ViewInventoryService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
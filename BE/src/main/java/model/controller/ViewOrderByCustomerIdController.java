@@ -9,12 +9,11 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import model.dto.OrderDTO;
-import model.dto.UserAccountDTO;
 import model.service.OrderService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,24 +22,16 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/viewOrdersByCustomerId")
 public class ViewOrderByCustomerIdController extends HttpServlet {
 
-    private final OrderService orderService = new OrderService();
-    private final UserAccountService userService = new UserAccountService();
+    private final OrderService orderService = ServiceRegistry.get(OrderService.class);
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract token and get userId from JWT
-            String token = JwtUtil.extractToken(req);
-            int requestingUserId = JwtUtil.extractUserId(token);
+            JwtPrincipal requestingUser = JwtPrincipal.from(req);
+            int requestingUserId = requestingUser.getUserId();
             
             // Get the requesting user's details to check permissions
-            UserAccountDTO requestingUser = userService.getDealerStaffById(requestingUserId);
-            
-            if (requestingUser == null) {
-                ResponseUtils.error(resp, "User not found");
-                return;
-            }
             
             // Extract customerId from request parameters
             Map<String, Object> params = RequestUtils.extractParams(req);
@@ -12,11 +12,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.util.List;
 import java.io.IOException;
 import model.dto.OrderDTO;
-import model.dto.UserAccountDTO;
 import model.service.OrderService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -25,24 +24,15 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/viewOrderFromDealer")
 public class ViewOrderFromDealerController extends HttpServlet {
-    private final UserAccountService userService = new UserAccountService();
-    private final OrderService orderService = new OrderService();
+    private final OrderService orderService = ServiceRegistry.get(OrderService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract token and get userId from JWT
-            String token = JwtUtil.extractToken(req);
-            
-            if (token == null || token.trim().isEmpty()) {
-                ResponseUtils.error(resp, "No authentication token provided");
-                return;
-            }
-            
             int userId;
             try {
-                userId = JwtUtil.extractUserId(token);
+                userId = JwtPrincipal.from(req).getUserId();
             } catch (Exception e) {
                 ResponseUtils.error(resp, "Invalid or expired token");
                 return;
@@ -51,12 +41,7 @@ public class ViewOrderFromDealerController extends HttpServlet {
             System.out.println("DEBUG: ViewOrderFromDealer - userId from token: " + userId);
             
             // Get user details to retrieve dealerId
-            UserAccountDTO user = userService.getDealerStaffById(userId);
-            
-            if (user == null) {
-                ResponseUtils.error(resp, "User not found with ID: " + userId);
-                return;
-            }
+            JwtPrincipal user = JwtPrincipal.from(req);
             
             int dealerId = user.getDealerId();
             
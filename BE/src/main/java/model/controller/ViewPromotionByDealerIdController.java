@@ -11,11 +11,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import model.dto.DealerDTO;
-import model.dto.UserAccountDTO;
 import model.service.PromotionForDealerService;
-import model.service.UserAccountService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -23,25 +22,14 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/viewPromotionDealerId")
 public class ViewPromotionByDealerIdController extends HttpServlet {
-    private final PromotionForDealerService promotionService = new PromotionForDealerService();
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final PromotionForDealerService promotionService = ServiceRegistry.get(PromotionForDealerService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract token and get dealer staff ID from JWT
-            String token = JwtUtil.extractToken(req);
-            int dealerStaffId = JwtUtil.extractUserId(token);
-            
-            // Get dealer staff user account using service layer
-            UserAccountDTO staff = userAccountService.getDealerStaffById(dealerStaffId);
-            
-            if (staff == null) {
-                ResponseUtils.error(resp, "Staff account not found");
-                return;
-            }
-            
+            JwtPrincipal staff = JwtPrincipal.from(req);
+
             // Get dealer ID from staff account
             int dealerId = staff.getDealerId();
             
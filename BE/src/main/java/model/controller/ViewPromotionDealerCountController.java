@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import model.service.PromotionForDealerService;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,7 +23,7 @@ import utils.ResponseUtils;
 @WebServlet("/api/EVM/viewPromotionDealerCount")
 public class ViewPromotionDealerCountController extends HttpServlet {
 
-    private final PromotionForDealerService service = new PromotionForDealerService();
+    private final PromotionForDealerService service = ServiceRegistry.get(PromotionForDealerService.class);
 
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
@@ -0,0 +1,35 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import utils.ReferenceCache;
+import utils.ResponseUtils;
+import utils.SearchIndexes;
+
+@WebServlet("/api/admin/referenceCacheStats")
+public class ViewReferenceCacheStatsController extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        doPost(request, response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            Map<String, Object> stats = ReferenceCache.stats();
+            stats.put("searchIndexes", SearchIndexes.sizes());
+            ResponseUtils.success(response, "Reference cache stats retrieved successfully", stats);
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package model.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import utils.AsyncEndpoints;
+import utils.ResponseUtils;
+
+@WebServlet("/api/admin/threadStats")
+public class ViewThreadStatsController extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        doPost(request, response);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        try {
+            Map<String, Object> stats = AsyncEndpoints.stats();
+            ResponseUtils.success(response, "Thread stats retrieved successfully", stats);
+        } catch (Exception e) {
+            e.printStackTrace();
+            ResponseUtils.error(response, "Internal server error: " + e.getMessage());
+        }
+    }
+}
@@ -12,14 +12,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
-import model.dto.UserAccountDTO;
 import model.dto.VehicleSerialDTO;
-import model.service.UserAccountService;
 import model.service.VehicleService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.RequestUtils;
 import utils.ResponseUtils;
-
+import utils.ServiceRegistry;
 
 /**
  *
@@ -28,25 +26,14 @@ import utils.ResponseUtils;
 @WebServlet("/api/staff/getUnorderedSerials")
 public class ViewUnorderVehicleSerialController extends HttpServlet {
     
-    private final VehicleService vehicleSerialService = new VehicleService();
-    private final UserAccountService userAccountService = new UserAccountService();
+    private final VehicleService vehicleSerialService = ServiceRegistry.get(VehicleService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-            // Extract token and get dealer staff ID from JWT
-            String token = JwtUtil.extractToken(req);
-            int dealerStaffId = JwtUtil.extractUserId(token);
-            
-            // Get dealer staff user account using service layer
-            UserAccountDTO staff = userAccountService.getDealerStaffById(dealerStaffId);
-            
-            if (staff == null) {
-                ResponseUtils.error(resp, "Staff account not found");
-                return;
-            }
-            
+            JwtPrincipal staff = JwtPrincipal.from(req);
+
             // Get dealer ID from staff account
             int dealerId = staff.getDealerId();
             
@@ -12,7 +12,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.PrintWriter;
-import model.service.VehicleService;
+import model.service.CatalogSnapshot;
 import utils.ResponseUtils;
 
 
@@ -22,13 +22,19 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/viewVehicle")
 public class ViewVehicleController extends HttpServlet {
-    private final VehicleService service = new VehicleService();
+    private final CatalogSnapshot catalog = CatalogSnapshot.getInstance();
    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        doPost(req, resp);
+    }
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) 
             throws ServletException, IOException {
         try {
-            ResponseUtils.success(resp, "success", service.HandlingViewAllVehicle());
+            ResponseUtils.cached(req, resp, catalog.activeModels());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(resp, "An error occurred while retrieving vehicles: " + e.getMessage());
@@ -10,7 +10,7 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import model.service.VehicleService;
+import model.service.CatalogSnapshot;
 import utils.ResponseUtils;
 
 
@@ -20,13 +20,19 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/viewVehicleForEVM")
 public class ViewVehicleForEVMController extends HttpServlet {
-    private final VehicleService service = new VehicleService();
+    private final CatalogSnapshot catalog = CatalogSnapshot.getInstance();
    
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        doPost(req, resp);
+    }
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) 
             throws ServletException, IOException {
         try {
-            ResponseUtils.success(resp, "success", service.HandlingViewVehicle());
+            ResponseUtils.cached(req, resp, catalog.allModels());
         } catch (Exception e) {
             e.printStackTrace();
             ResponseUtils.error(resp, "An error occurred while retrieving vehicles: " + e.getMessage());
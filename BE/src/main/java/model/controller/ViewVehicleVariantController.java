@@ -4,7 +4,6 @@
  */
 package model.controller;
 
-import static com.sun.corba.se.spi.presentation.rmi.StubAdapter.request;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -17,6 +16,7 @@ import model.dto.VehicleVariantDTO;
 import model.service.VehicleVariantService;
 import utils.RequestUtils;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 
 /**
@@ -25,7 +25,7 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/EVM/viewVehicleVariant")
 public class ViewVehicleVariantController extends HttpServlet {
-    private final VehicleVariantService service = new VehicleVariantService();
+    private final VehicleVariantService service = ServiceRegistry.get(VehicleVariantService.class);
    
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) 
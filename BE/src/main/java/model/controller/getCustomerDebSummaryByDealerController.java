@@ -13,8 +13,9 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import model.service.PaymentService;
-import utils.JwtUtil;
+import utils.JwtPrincipal;
 import utils.ResponseUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,33 +23,26 @@ import utils.ResponseUtils;
  */
 @WebServlet("/api/staff/getCustomerDebt")
 public class getCustomerDebSummaryByDealerController extends HttpServlet {
-    private final  PaymentService PS = new PaymentService();
+    private final  PaymentService PS = ServiceRegistry.get(PaymentService.class);
     
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
         try {
-          
-            String token = JwtUtil.extractToken(req);
-            if (token == null || token.isEmpty()) {
-                ResponseUtils.error(resp, "Missing or invalid token");
-                return;
-            }
-
-            int userId = JwtUtil.extractUserId(token);
+            JwtPrincipal user = JwtPrincipal.from(req);
+            int userId = user.getUserId();
             if (userId <= 0) {
                 ResponseUtils.error(resp, "Invalid user ID from token");
                 return;
             }
 
-         
-            int dealerId = JwtUtil.extractUserId(token);
+            // The ledger is keyed by the staff member's dealer, not by the user id
+            int dealerId = user.getDealerId();
             if (dealerId <= 0) {
                 ResponseUtils.error(resp, "Dealer ID not found or unauthorized");
                 return;
             }
 
-           
             List<Map<String, Object>> customerDebts = PS.getCustomerDebtSummaryByDealer(dealerId);
 
             if (customerDebts == null || customerDebts.isEmpty()) {
@@ -56,7 +50,6 @@ public class getCustomerDebSummaryByDealerController extends HttpServlet {
                 return;
             }
 
-            
             ResponseUtils.success(resp, "Customer debt summary retrieved successfully", customerDebts);
 
         } catch (Exception e) {
@@ -11,10 +11,19 @@ import java.util.ArrayList;
 import java.util.List;
 import model.dto.ConfirmationDTO;
 import utils.DbUtils;
+import utils.Page;
+import utils.PageQuery;
+import utils.PageRequest;
+import utils.RowCursor;
+import utils.ServiceRegistry;
 
 public class ConfirmationDAO {
 
     private static final String TABLE_NAME = "Confirmation";
+    private static final PageQuery PAGE_QUERY = new PageQuery("SELECT * FROM " + TABLE_NAME, "confirmation_id")
+            .sortable("date", "date_time");
+
+    private final DailySalesRollupDAO rollupDAO = ServiceRegistry.get(DailySalesRollupDAO.class);
 
     private ConfirmationDTO mapToConfirmation(ResultSet rs) throws SQLException {
         return new ConfirmationDTO(
@@ -41,8 +50,26 @@ public class ConfirmationDAO {
         }
     }
 
-    public List<ConfirmationDTO> viewConfirmations() throws SQLException, ClassNotFoundException {
-        return retrieve("1 = 1");
+    /**
+     * One page of {@link #retrieve}. Sort keys: id, date.
+     */
+    public Page<ConfirmationDTO> retrievePage(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch(condition, page, this::mapToConfirmation, params);
+    }
+
+    /**
+     * Same as {@link #retrievePage} but reads the rows lazily; the caller closes the cursor.
+     */
+    public RowCursor<ConfirmationDTO> retrieveCursor(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.open(condition, page, this::mapToConfirmation, params);
+    }
+
+    public Page<ConfirmationDTO> getConfirmationsPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrievePage("1 = 1", page);
+    }
+
+    public RowCursor<ConfirmationDTO> openConfirmations(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrieveCursor("1 = 1", page);
     }
 
     public List<ConfirmationDTO> viewConfirmationsByOrderDetailId(int orderDetailId) throws SQLException, ClassNotFoundException {
@@ -105,11 +132,70 @@ public class ConfirmationDAO {
         return results.get(0);
     }
 
+    public ConfirmationDTO getConfirmationByOrderDetailId(Connection conn, int id) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("SELECT * FROM " + TABLE_NAME + " WHERE order_detail_id = ?")) {
+            ps.setInt(1, id);
+            try ( ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapToConfirmation(rs) : null;
+            }
+        }
+    }
+
     public ConfirmationDTO updateStatus(int confirmationId, String agreement, int staffAdminId) {
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
+            ConfirmationDTO updated = updateStatus(conn, confirmationId, agreement, staffAdminId);
+            conn.commit();
+            return updated;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Update the agreement inside the caller's transaction and move the sale in
+     * DailySalesRollup when the confirmation enters or leaves 'Agree'.
+     *
+     * @return the updated confirmation, null if it does not exist
+     */
+    public ConfirmationDTO updateStatus(Connection conn, int confirmationId, String agreement, int staffAdminId) throws SQLException {
+        String lockSql = "SELECT agreement FROM " + TABLE_NAME + " WITH (UPDLOCK, ROWLOCK) WHERE confirmation_id = ?";
         String updateSql = "UPDATE " + TABLE_NAME + " SET agreement = ?, date_time = ?, staff_admin_id = ? WHERE confirmation_id = ?";
 
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(updateSql)) {
+        String previous;
+        try ( PreparedStatement ps = conn.prepareStatement(lockSql)) {
+            ps.setInt(1, confirmationId);
+            try ( ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                previous = rs.getString("agreement");
+            }
+        }
+
+        boolean wasAgreed = "Agree".equalsIgnoreCase(previous);
+        boolean isAgreed = "Agree".equalsIgnoreCase(agreement);
+        if (wasAgreed) {
+            rollupDAO.applyConfirmation(conn, confirmationId, -1);
+        }
 
+        try ( PreparedStatement ps = conn.prepareStatement(updateSql)) {
             String currentDate = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
 
             ps.setString(1, agreement);          // Agree / Disagree
@@ -117,19 +203,22 @@ public class ConfirmationDAO {
             ps.setInt(3, staffAdminId);
             ps.setInt(4, confirmationId);
 
-            if (ps.executeUpdate() > 0) {
-                // return updated object
-                List<ConfirmationDTO> results = retrieve("confirmation_id = ?", confirmationId);
-                if (results != null && !results.isEmpty()) {
-                    return results.get(0);
-                }
+            if (ps.executeUpdate() == 0) {
+                return null;
             }
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (isAgreed) {
+            rollupDAO.applyConfirmation(conn, confirmationId, 1);
         }
 
-        return null;
+        // return updated object
+        try ( PreparedStatement ps = conn.prepareStatement("SELECT * FROM " + TABLE_NAME + " WHERE confirmation_id = ?")) {
+            ps.setInt(1, confirmationId);
+            try ( ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapToConfirmation(rs) : null;
+            }
+        }
     }
 
     public int batchInsert(Connection conn, List<ConfirmationDTO> confirmations) throws SQLException {
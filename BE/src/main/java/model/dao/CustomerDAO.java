@@ -6,15 +6,26 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import model.dto.CustomerDTO;
+import utils.BatchLoader;
 import utils.DbUtils;
+import utils.Page;
+import utils.PageQuery;
+import utils.PageRequest;
+import utils.RowCursor;
+import utils.TrigramIndex;
 
 public class CustomerDAO {
 
     private static final String TABLE_NAME = "Customer";
     private static final String INSERT_CUSTOMER = "INSERT INTO " + TABLE_NAME
             + " (name, address, email, phone_number) VALUES (?, ?, ?, ?)";
+    private static final PageQuery PAGE_QUERY = new PageQuery("SELECT * FROM " + TABLE_NAME, "customer_id")
+            .sortable("name", "name");
 
     private CustomerDTO mapToCustomer(ResultSet rs) throws SQLException {
         return new CustomerDTO(
@@ -44,6 +55,20 @@ public class CustomerDAO {
         return null;
     }
 
+    /**
+     * One page of {@link #retrieve}. Sort keys: id, name.
+     */
+    public Page<CustomerDTO> retrievePage(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch(condition, page, this::mapToCustomer, params);
+    }
+
+    /**
+     * Same as {@link #retrievePage} but reads the rows lazily; the caller closes the cursor.
+     */
+    public RowCursor<CustomerDTO> retrieveCursor(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.open(condition, page, this::mapToCustomer, params);
+    }
+
     public int create(Connection conn, CustomerDTO customer) throws SQLException {
         try ( PreparedStatement ps = conn.prepareStatement(INSERT_CUSTOMER, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, customer.getName());
@@ -77,12 +102,44 @@ public CustomerDTO getCustomerById(int customerId) {
         return retrieve("name = ?", name);
     }
 
+    public Map<Integer, CustomerDTO> getCustomersByIds(Collection<Integer> customerIds) {
+        try {
+            return BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE customer_id", null,
+                    customerIds, this::mapToCustomer, CustomerDTO::getCustomerId);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Put every customer name into the search index, streaming the table.
+     *
+     * @return number of customers indexed
+     */
+    public int indexNames(TrigramIndex index) throws SQLException, ClassNotFoundException {
+        int count = 0;
+        try ( RowCursor<CustomerDTO> rows = RowCursor.open("SELECT customer_id, name FROM " + TABLE_NAME,
+                rs -> new CustomerDTO(rs.getInt("customer_id"), rs.getString("name"), null, null, null))) {
+            while (rows.hasNext()) {
+                CustomerDTO customer = rows.next();
+                index.put(customer.getCustomerId(), customer.getName(), 0);
+                count++;
+            }
+        }
+        return count;
+    }
+
     public List<CustomerDTO> findById(int customerId) {
         return retrieve("customer_id = ?", customerId);
     }
 
-    public List<CustomerDTO> getAllCustomer() {
-        return retrieve("1 = 1");
+    public Page<CustomerDTO> getCustomersPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrievePage("1 = 1", page);
+    }
+
+    public RowCursor<CustomerDTO> openAllCustomers(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrieveCursor("1 = 1", page);
     }
 
     public List<CustomerDTO> getCustomersByDealerId(int dealerId) throws SQLException, ClassNotFoundException {
@@ -0,0 +1,124 @@
+package model.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import model.dto.CustomerDebtLedgerDTO;
+import utils.DbUtils;
+
+public class CustomerDebtLedgerDAO {
+
+    private static final String TABLE_NAME = "CustomerDebtLedger";
+
+    // Insert the row on first use, otherwise add the deltas to it
+    private static final String APPLY_DELTA_SQL
+            = "MERGE " + TABLE_NAME + " WITH (HOLDLOCK) AS l "
+            + "USING (SELECT ? AS dealer_id, ? AS customer_id) AS src "
+            + "ON l.dealer_id = src.dealer_id AND l.customer_id = src.customer_id "
+            + "WHEN MATCHED THEN UPDATE SET outstanding_debt = l.outstanding_debt + ?, "
+            + "paid_amount = l.paid_amount + ?, plan_count = l.plan_count + ?, updated_at = SYSDATETIME() "
+            + "WHEN NOT MATCHED THEN INSERT (dealer_id, customer_id, outstanding_debt, paid_amount, plan_count) "
+            + "VALUES (src.dealer_id, src.customer_id, ?, ?, ?);";
+
+    private CustomerDebtLedgerDTO mapToLedger(ResultSet rs) throws SQLException {
+        return new CustomerDebtLedgerDTO(
+                rs.getInt("dealer_id"),
+                rs.getInt("customer_id"),
+                rs.getBigDecimal("outstanding_debt"),
+                rs.getBigDecimal("paid_amount"),
+                rs.getInt("plan_count")
+        );
+    }
+
+    public void applyDelta(Connection conn, int dealerId, int customerId,
+            BigDecimal outstandingDelta, BigDecimal paidDelta, int planDelta) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement(APPLY_DELTA_SQL)) {
+            ps.setInt(1, dealerId);
+            ps.setInt(2, customerId);
+            ps.setBigDecimal(3, outstandingDelta);
+            ps.setBigDecimal(4, paidDelta);
+            ps.setInt(5, planDelta);
+            ps.setBigDecimal(6, outstandingDelta);
+            ps.setBigDecimal(7, paidDelta);
+            ps.setInt(8, planDelta);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Ledger rows of one dealer that still have open plans, with the customer's contact info.
+     */
+    public List<CustomerDebtLedgerDTO> getByDealerId(int dealerId) throws SQLException, ClassNotFoundException {
+        String sql = "SELECT l.dealer_id, l.customer_id, l.outstanding_debt, l.paid_amount, l.plan_count, "
+                + "c.name, c.email, c.phone_number "
+                + "FROM " + TABLE_NAME + " l JOIN Customer c ON c.customer_id = l.customer_id "
+                + "WHERE l.dealer_id = ? AND l.plan_count > 0 ORDER BY l.customer_id";
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, dealerId);
+            try ( ResultSet rs = ps.executeQuery()) {
+                List<CustomerDebtLedgerDTO> list = new ArrayList<>();
+                while (rs.next()) {
+                    CustomerDebtLedgerDTO row = mapToLedger(rs);
+                    row.setName(rs.getString("name"));
+                    row.setEmail(rs.getString("email"));
+                    row.setPhoneNumber(rs.getString("phone_number"));
+                    list.add(row);
+                }
+                return list;
+            }
+        }
+    }
+
+    public List<CustomerDebtLedgerDTO> getAll() throws SQLException, ClassNotFoundException {
+        try ( Connection conn = DbUtils.getConnection()) {
+            return getAll(conn);
+        }
+    }
+
+    public List<CustomerDebtLedgerDTO> getAll(Connection conn) throws SQLException {
+        String sql = "SELECT * FROM " + TABLE_NAME;
+        try ( PreparedStatement ps = conn.prepareStatement(sql);  ResultSet rs = ps.executeQuery()) {
+            List<CustomerDebtLedgerDTO> list = new ArrayList<>();
+            while (rs.next()) {
+                list.add(mapToLedger(rs));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Take an exclusive table lock held until the caller's transaction ends.
+     */
+    public void lockTable(Connection conn) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + TABLE_NAME + " WITH (TABLOCKX, HOLDLOCK)")) {
+            ps.executeQuery().close();
+        }
+    }
+
+    /**
+     * Replace the whole ledger with {@code rows}. The caller owns the transaction.
+     */
+    public void replaceAll(Connection conn, Collection<CustomerDebtLedgerDTO> rows) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABLE_NAME)) {
+            ps.executeUpdate();
+        }
+        String sql = "INSERT INTO " + TABLE_NAME
+                + " (dealer_id, customer_id, outstanding_debt, paid_amount, plan_count) VALUES (?, ?, ?, ?, ?)";
+        try ( PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (CustomerDebtLedgerDTO row : rows) {
+                ps.setInt(1, row.getDealerId());
+                ps.setInt(2, row.getCustomerId());
+                ps.setBigDecimal(3, row.getTotalOutstandingDebt());
+                ps.setBigDecimal(4, row.getTotalPaidAmount());
+                ps.setInt(5, row.getTotalPlans());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package model.dao;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import utils.DbUtils;
+
+/**
+ * DailySalesRollup holds, per (day, dealer, model, variant), the company sales that
+ * the sales-target endpoints report. A sale is an order detail of a dealer order
+ * (customer_id = 0) whose confirmation is 'Agree'; the day is the confirmation date.
+ * An order is counted once, on the row of its first agreed confirmation (earliest
+ * date_time, then lowest confirmation_id).
+ */
+public class DailySalesRollupDAO {
+
+    private static final String TABLE_NAME = "DailySalesRollup";
+
+    // Contribution of one confirmation's order detail, multiplied by the sign (+1 / -1).
+    // The order count sits on the order's first agreed confirmation, ranked as in
+    // REBUILD_SQL; when that is this confirmation, the count moves between it and
+    // the runner-up (rank 2) in the same statement.
+    private static final String APPLY_CONFIRMATION_SQL
+            = "WITH p AS (SELECT ? AS sign, ? AS confirmation_id), "
+            + "ranked AS ( "
+            + "  SELECT c.confirmation_id, CAST(c.date_time AS DATE) AS sales_day, ISNULL(u.dealer_id, 0) AS dealer_id, "
+            + "         o.model_id, ISNULL(vs.variant_id, 0) AS variant_id, od.quantity, "
+            + "         CAST(od.unit_price * od.quantity AS DECIMAL(19, 2)) AS revenue, "
+            + "         ROW_NUMBER() OVER (ORDER BY c.date_time, c.confirmation_id) AS rn "
+            + "  FROM Confirmation c "
+            + "  JOIN OrderDetail od ON od.order_detail_id = c.order_detail_id "
+            + "  JOIN [Order] o ON o.order_id = od.order_id "
+            + "  LEFT JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "  LEFT JOIN VehicleSerial vs ON vs.serial_id = od.serial_id "
+            + "  WHERE c.agreement = 'Agree' AND o.customer_id = 0 "
+            + "  AND o.order_id = (SELECT od0.order_id FROM Confirmation c0 "
+            + "                    JOIN OrderDetail od0 ON od0.order_detail_id = c0.order_detail_id "
+            + "                    JOIN p ON p.confirmation_id = c0.confirmation_id) "
+            + ") "
+            + "MERGE " + TABLE_NAME + " WITH (HOLDLOCK) AS r "
+            + "USING ( "
+            + "  SELECT x.sales_day, x.dealer_id, x.model_id, x.variant_id, "
+            + "         SUM(CASE WHEN x.confirmation_id = p.confirmation_id "
+            + "                  THEN CASE WHEN x.rn = 1 THEN p.sign ELSE 0 END "
+            + "                  ELSE -p.sign END) AS order_delta, "
+            + "         SUM(CASE WHEN x.confirmation_id = p.confirmation_id THEN p.sign ELSE 0 END) AS car_delta, "
+            + "         SUM(CASE WHEN x.confirmation_id = p.confirmation_id THEN p.sign * x.quantity ELSE 0 END) AS quantity_delta, "
+            + "         SUM(CASE WHEN x.confirmation_id = p.confirmation_id THEN p.sign * x.revenue ELSE 0 END) AS revenue_delta "
+            + "  FROM ranked x CROSS JOIN p "
+            + "  WHERE x.confirmation_id = p.confirmation_id "
+            + "  OR (x.rn = 2 AND EXISTS (SELECT 1 FROM ranked f WHERE f.rn = 1 AND f.confirmation_id = p.confirmation_id)) "
+            + "  GROUP BY x.sales_day, x.dealer_id, x.model_id, x.variant_id "
+            + ") AS src "
+            + "ON r.sales_day = src.sales_day AND r.dealer_id = src.dealer_id "
+            + "AND r.model_id = src.model_id AND r.variant_id = src.variant_id "
+            + "WHEN MATCHED THEN UPDATE SET "
+            + "  order_count = r.order_count + src.order_delta, "
+            + "  car_count = r.car_count + src.car_delta, "
+            + "  total_quantity = r.total_quantity + src.quantity_delta, "
+            + "  total_revenue = r.total_revenue + src.revenue_delta "
+            + "WHEN NOT MATCHED THEN INSERT (sales_day, dealer_id, model_id, variant_id, order_count, car_count, total_quantity, total_revenue) "
+            + "  VALUES (src.sales_day, src.dealer_id, src.model_id, src.variant_id, "
+            + "          src.order_delta, src.car_delta, src.quantity_delta, src.revenue_delta);";
+
+    private static final String REBUILD_SQL
+            = "INSERT INTO " + TABLE_NAME
+            + " (sales_day, dealer_id, model_id, variant_id, order_count, car_count, total_quantity, total_revenue) "
+            + "SELECT sales_day, dealer_id, model_id, variant_id, SUM(first_of_order), COUNT(*), SUM(quantity), SUM(revenue) "
+            + "FROM ( "
+            + "  SELECT CAST(c.date_time AS DATE) AS sales_day, ISNULL(u.dealer_id, 0) AS dealer_id, "
+            + "         o.model_id, ISNULL(vs.variant_id, 0) AS variant_id, od.quantity, "
+            + "         CAST(od.unit_price * od.quantity AS DECIMAL(19, 2)) AS revenue, "
+            + "         CASE WHEN ROW_NUMBER() OVER (PARTITION BY o.order_id "
+            + "                   ORDER BY c.date_time, c.confirmation_id) = 1 THEN 1 ELSE 0 END AS first_of_order "
+            + "  FROM Confirmation c "
+            + "  JOIN OrderDetail od ON od.order_detail_id = c.order_detail_id "
+            + "  JOIN [Order] o ON o.order_id = od.order_id "
+            + "  LEFT JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "  LEFT JOIN VehicleSerial vs ON vs.serial_id = od.serial_id "
+            + "  WHERE c.agreement = 'Agree' AND o.customer_id = 0 "
+            + ") s "
+            + "GROUP BY sales_day, dealer_id, model_id, variant_id";
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) the sale of one agreed confirmation.
+     * Call with -1 before an 'Agree' confirmation changes and with 1 after it becomes 'Agree'.
+     * Both calls must see the confirmation as 'Agree', so it is ranked among the order's
+     * agreed confirmations exactly as {@link #rebuild} ranks it.
+     */
+    public void applyConfirmation(Connection conn, int confirmationId, int sign) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement(APPLY_CONFIRMATION_SQL)) {
+            ps.setInt(1, sign);
+            ps.setInt(2, confirmationId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recompute the whole table from Confirmation/OrderDetail/Order. The caller owns the transaction.
+     *
+     * @return number of rollup rows written
+     */
+    public int rebuild(Connection conn) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("DELETE FROM " + TABLE_NAME + " WITH (TABLOCKX)")) {
+            ps.executeUpdate();
+        }
+        try ( PreparedStatement ps = conn.prepareStatement(REBUILD_SQL)) {
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Totals for from &lt;= sales_day &lt; toExclusive.
+     */
+    public Map<String, Object> getTotals(LocalDate from, LocalDate toExclusive) throws SQLException, ClassNotFoundException {
+        String sql = "SELECT ISNULL(SUM(order_count), 0) AS total_orders, ISNULL(SUM(car_count), 0) AS total_cars, "
+                + "ISNULL(SUM(total_quantity), 0) AS total_quantity, ISNULL(SUM(total_revenue), 0) AS total_revenue "
+                + "FROM " + TABLE_NAME + " WHERE sales_day >= ? AND sales_day < ?";
+
+        Map<String, Object> result = new HashMap<>();
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(toExclusive));
+            try ( ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                result.put("totalOrders", rs.getInt("total_orders"));
+                result.put("totalCars", rs.getInt("total_cars"));
+                result.put("totalQuantity", rs.getInt("total_quantity"));
+                result.put("totalRevenue", rs.getDouble("total_revenue"));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Totals per calendar month of {@code year}, months without sales are left out.
+     */
+    public List<Map<String, Object>> getMonthlyTotals(int year) throws SQLException, ClassNotFoundException {
+        String sql = "SELECT MONTH(sales_day) AS month, SUM(order_count) AS total_orders, SUM(car_count) AS total_cars, "
+                + "SUM(total_quantity) AS total_quantity, SUM(total_revenue) AS total_revenue "
+                + "FROM " + TABLE_NAME + " WHERE sales_day >= ? AND sales_day < ? "
+                + "GROUP BY MONTH(sales_day) HAVING SUM(car_count) > 0 ORDER BY MONTH(sales_day)";
+
+        List<Map<String, Object>> monthlyData = new ArrayList<>();
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(LocalDate.of(year, 1, 1)));
+            ps.setDate(2, Date.valueOf(LocalDate.of(year + 1, 1, 1)));
+            try ( ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> monthData = new HashMap<>();
+                    monthData.put("month", rs.getInt("month"));
+                    monthData.put("totalOrders", rs.getInt("total_orders"));
+                    monthData.put("totalCars", rs.getInt("total_cars"));
+                    monthData.put("totalQuantity", rs.getInt("total_quantity"));
+                    monthData.put("totalRevenue", rs.getDouble("total_revenue"));
+                    monthlyData.add(monthData);
+                }
+            }
+        }
+        return monthlyData;
+    }
+}
@@ -9,9 +9,18 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import model.dto.DealerDTO;
+import utils.BatchLoader;
 import utils.DbUtils;
+import utils.ReferenceCache;
+import utils.Page;
+import utils.PageQuery;
+import utils.PageRequest;
+import utils.TrigramIndex;
 
 /**
  *
@@ -20,6 +29,8 @@ import utils.DbUtils;
 public class DealerDAO {
 
     private static final String TABLE_NAME = "Dealer";
+    private static final PageQuery PAGE_QUERY = new PageQuery("SELECT * FROM " + TABLE_NAME, "dealer_id")
+            .sortable("dealerName", "dealer_name");
 
     private DealerDTO mapToDealer(ResultSet rs) throws SQLException {
         return new DealerDTO(
@@ -48,8 +59,49 @@ public class DealerDAO {
         return null;
     }
 
+    /**
+     * One page of {@link #retrieve}. Sort keys: id, dealerName.
+     */
+    public Page<DealerDTO> retrievePage(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch(condition, page, this::mapToDealer, params);
+    }
+
+    /**
+     * Served from {@link ReferenceCache#DEALERS}; the returned object is shared.
+     */
     public DealerDTO GetDealerById(int id) {
-        return retrieve("dealer_id=?", id).get(0);
+        return ReferenceCache.DEALERS.get(id, () -> retrieve("dealer_id=?", id).get(0));
+    }
+
+    /**
+     * Dealers by id, served from {@link ReferenceCache#DEALERS}.
+     */
+    public Map<Integer, DealerDTO> getDealersByIds(Collection<Integer> dealerIds) {
+        try {
+            return ReferenceCache.DEALERS.getAll(dealerIds, missing
+                    -> BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE dealer_id", null,
+                            missing, this::mapToDealer, DealerDTO::getDealerId));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Put every dealer name into the search index.
+     *
+     * @return number of dealers indexed
+     */
+    public int indexNames(TrigramIndex index) throws SQLException, ClassNotFoundException {
+        int count = 0;
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(
+                "SELECT dealer_id, dealer_name FROM " + TABLE_NAME);  ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                index.put(rs.getInt("dealer_id"), rs.getString("dealer_name"), 0);
+                count++;
+            }
+        }
+        return count;
     }
 
     public List<DealerDTO> findByName(String name) {
@@ -59,5 +111,9 @@ public class DealerDAO {
     public List<DealerDTO> getAllDealers() {
         return retrieve("1 = 1");
     }
+
+    public Page<DealerDTO> getDealersPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrievePage("1 = 1", page);
+    }
     
 }
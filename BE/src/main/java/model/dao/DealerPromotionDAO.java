@@ -4,6 +4,7 @@ import java.sql.*;
 import java.util.*;
 import model.dto.PromotionDTO;
 import utils.DbUtils;
+import utils.ReferenceCache;
 
 public class DealerPromotionDAO {
 
@@ -37,12 +38,41 @@ public class DealerPromotionDAO {
         return promotions;
     }
 
+    /**
+     * Every dealer's promotions, by dealer id, for {@code PromotionEngine}.
+     */
+    public Map<Integer, List<PromotionDTO>> getAllDealerPromotions() throws SQLException, ClassNotFoundException {
+        String sql = "SELECT dp.dealer_id, p.promo_id, p.description, p.start_date, p.end_date, p.discount_rate, p.type "
+                + "FROM Promotion p JOIN " + TABLE_NAME + " dp ON dp.promo_id = p.promo_id";
+        Map<Integer, List<PromotionDTO>> byDealer = new HashMap<>();
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql);  ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                byDealer.computeIfAbsent(rs.getInt("dealer_id"), k -> new ArrayList<>()).add(new PromotionDTO(
+                        rs.getInt("promo_id"),
+                        rs.getString("description"),
+                        rs.getString("start_date"),
+                        rs.getString("end_date"),
+                        rs.getString("discount_rate"),
+                        rs.getString("type")
+                ));
+            }
+        }
+        return byDealer;
+    }
+
+    private static boolean changed(int rows) {
+        if (rows > 0) {
+            ReferenceCache.promotionsChanged();
+        }
+        return rows > 0;
+    }
+
     public boolean createPromotionForDealer(int promoId, int dealerId) {
         String sql = "INSERT INTO " + TABLE_NAME + " (promo_id, dealer_id) VALUES (?, ?)";
         try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, promoId);
             ps.setInt(2, dealerId);
-            return ps.executeUpdate() > 0;
+            return changed(ps.executeUpdate());
         } catch (Exception e) {
             e.printStackTrace();
             return false;
@@ -56,7 +86,7 @@ public class DealerPromotionDAO {
             ps.setInt(1, newPromoId);
             ps.setInt(2, promoId);
             ps.setInt(3, dealerId);
-            return ps.executeUpdate() > 0;
+            return changed(ps.executeUpdate());
         } catch (Exception e) {
             e.printStackTrace();
             return false;
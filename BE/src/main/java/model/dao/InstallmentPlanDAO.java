@@ -3,13 +3,56 @@ package model.dao;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import model.dto.CustomerDTO;
 import model.dto.InstallmentPlanDTO;
+import model.dto.OrderDTO;
+import model.dto.PaymentDTO;
 import utils.DbUtils;
 
 public class InstallmentPlanDAO {
 
     private static final String TABLE_NAME = "InstallmentPlan";
 
+    // Active/overdue plans of one dealer with everything the installment list shows.
+    // The dealer filter goes through the staff account that created the order.
+    private static final String ACTIVE_PLANS_BY_DEALER_SQL
+            = "SELECT ip.plan_id, ip.payment_id, ip.interest_rate, ip.term_month, ip.monthly_pay, ip.status, "
+            + "p.order_id, p.method, p.amount, p.payment_date, "
+            + "o.customer_id, o.dealer_staff_id, o.model_id, o.order_date, o.status AS order_status, "
+            + "c.name, c.address, c.email, c.phone_number, "
+            + "d.dealer_name, vm.model_name, od.serial_id, vs.variant_id, vv.version_name "
+            + "FROM " + TABLE_NAME + " ip "
+            + "JOIN Payment p ON p.payment_id = ip.payment_id "
+            + "JOIN [Order] o ON o.order_id = p.order_id "
+            + "JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "JOIN Customer c ON c.customer_id = o.customer_id "
+            + "LEFT JOIN Dealer d ON d.dealer_id = u.dealer_id "
+            + "LEFT JOIN VehicleModel vm ON vm.model_id = o.model_id "
+            + "OUTER APPLY (SELECT TOP 1 serial_id FROM OrderDetail "
+            + "             WHERE order_id = o.order_id ORDER BY order_detail_id) od "
+            + "LEFT JOIN VehicleSerial vs ON vs.serial_id = od.serial_id "
+            + "LEFT JOIN VehicleVariant vv ON vv.variant_id = vs.variant_id "
+            + "WHERE u.dealer_id = ? AND ip.status IN ('ACTIVE', 'OVERDUE') AND o.customer_id > 0 "
+            + "ORDER BY ip.plan_id";
+
+    /**
+     * Receives one row of {@link #forEachPlanDebtSource}.
+     */
+    public interface PlanDebtSourceHandler {
+
+        void handle(InstallmentPlanDTO plan, double paymentAmount, int dealerId, int customerId);
+    }
+
+    /**
+     * Receives one row of {@link #forEachActivePlanByDealer}. variantId and the
+     * names are null when the related row does not exist.
+     */
+    public interface DealerPlanRowHandler {
+
+        void handle(InstallmentPlanDTO plan, PaymentDTO payment, OrderDTO order, CustomerDTO customer,
+                String dealerName, String modelName, String serialId, Integer variantId, String variantName);
+    }
+
     private InstallmentPlanDTO mapToInstallmentPlan(ResultSet rs) throws SQLException {
         return new InstallmentPlanDTO(
                 rs.getInt("plan_id"),
@@ -40,9 +83,18 @@ public class InstallmentPlanDAO {
     }
 
     public InstallmentPlanDTO create(InstallmentPlanDTO plan) throws ClassNotFoundException {
+        try ( Connection conn = DbUtils.getConnection()) {
+            return create(conn, plan);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public InstallmentPlanDTO create(Connection conn, InstallmentPlanDTO plan) throws SQLException {
         String sql = "INSERT INTO " + TABLE_NAME
                 + " (payment_id, interest_rate, term_month, monthly_pay, status) VALUES (?, ?, ?, ?, ?)";
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try ( PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setInt(1, plan.getPaymentId());
             ps.setDouble(2, Double.parseDouble(plan.getInterestRate()));
@@ -62,15 +114,21 @@ public class InstallmentPlanDAO {
             }
 
             return plan;
+        }
+    }
+
+    public boolean updateStatus(InstallmentPlanDTO plan) throws ClassNotFoundException {
+        try ( Connection conn = DbUtils.getConnection()) {
+            return updateStatus(conn, plan);
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
-        return null;
     }
 
-    public boolean updateStatus(InstallmentPlanDTO plan) throws ClassNotFoundException {
+    public boolean updateStatus(Connection conn, InstallmentPlanDTO plan) throws SQLException {
         String sql = "UPDATE " + TABLE_NAME + " SET status = ?, term_month = ? WHERE plan_id = ?";
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
+        try ( PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, plan.getStatus());
             ps.setString(2, plan.getTermMonth());
@@ -78,10 +136,42 @@ public class InstallmentPlanDAO {
 
             int affected = ps.executeUpdate();
             return affected > 0;
+        }
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * Read the plan together with its payment amount and owning dealer/customer.
+     * With a planId the row is locked (UPDLOCK) until the caller's transaction ends;
+     * with null every ACTIVE/OVERDUE plan of a real customer is returned.
+     */
+    public void forEachPlanDebtSource(Connection conn, Integer planId, PlanDebtSourceHandler handler) throws SQLException {
+        String sql = "SELECT ip.*, p.amount, o.customer_id, u.dealer_id "
+                + "FROM " + TABLE_NAME + " ip " + (planId != null ? "WITH (UPDLOCK, ROWLOCK) " : "")
+                + "JOIN Payment p ON p.payment_id = ip.payment_id "
+                + "JOIN [Order] o ON o.order_id = p.order_id "
+                + "JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+                + (planId != null
+                        ? "WHERE ip.plan_id = ?"
+                        : "WHERE ip.status IN ('ACTIVE', 'OVERDUE') AND o.customer_id > 0");
+        try ( PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (planId != null) {
+                ps.setInt(1, planId);
+            }
+            try ( ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapToInstallmentPlan(rs), rs.getDouble("amount"),
+                            rs.getInt("dealer_id"), rs.getInt("customer_id"));
+                }
+            }
+        }
+    }
+
+    public InstallmentPlanDTO findById(Connection conn, int planId) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("SELECT * FROM " + TABLE_NAME + " WHERE plan_id = ?")) {
+            ps.setInt(1, planId);
+            try ( ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapToInstallmentPlan(rs) : null;
+            }
         }
     }
 
@@ -102,6 +192,50 @@ public class InstallmentPlanDAO {
         return retrieve("status IN (?, ?)", "ACTIVE", "OVERDUE");
     }
 
+    /**
+     * Stream the dealer's active/overdue plans to {@code handler}, one joined query.
+     */
+    public void forEachActivePlanByDealer(int dealerId, DealerPlanRowHandler handler) throws SQLException, ClassNotFoundException {
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(ACTIVE_PLANS_BY_DEALER_SQL)) {
+            ps.setInt(1, dealerId);
+            try ( ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    InstallmentPlanDTO plan = mapToInstallmentPlan(rs);
+                    PaymentDTO payment = new PaymentDTO(
+                            rs.getInt("payment_id"),
+                            rs.getInt("order_id"),
+                            rs.getString("method"),
+                            rs.getDouble("amount"),
+                            rs.getString("payment_date")
+                    );
+                    OrderDTO order = new OrderDTO(
+                            rs.getInt("order_id"),
+                            rs.getInt("customer_id"),
+                            rs.getInt("dealer_staff_id"),
+                            rs.getInt("model_id"),
+                            rs.getString("order_date"),
+                            rs.getString("order_status")
+                    );
+                    CustomerDTO customer = new CustomerDTO(
+                            rs.getInt("customer_id"),
+                            rs.getString("name"),
+                            rs.getString("address"),
+                            rs.getString("email"),
+                            rs.getString("phone_number")
+                    );
+                    int variantId = rs.getInt("variant_id");
+
+                    handler.handle(plan, payment, order, customer,
+                            rs.getString("dealer_name"),
+                            rs.getString("model_name"),
+                            rs.getString("serial_id"),
+                            variantId > 0 ? variantId : null,
+                            rs.getString("version_name"));
+                }
+            }
+        }
+    }
+
     public InstallmentPlanDTO findById(int planId) {
         List<InstallmentPlanDTO> list = retrieve("plan_id = ?", planId);
         return list.get(0);
@@ -9,8 +9,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import model.dto.InventoryBreakdownDTO;
 import model.dto.InventoryDTO;
+import model.dto.VehicleModelDTO;
 import utils.DbUtils;
 
 /**
@@ -20,6 +25,46 @@ import utils.DbUtils;
 public class InventoryDAO {
 
     private static final String TABLE_NAME = "Inventory";
+    private static final String BREAKDOWN_TABLE = "InventoryBreakdown";
+
+    // Insert the (variant, dealer) row on first use, otherwise add the delta to it
+    private static final String APPLY_BREAKDOWN_DELTA_SQL
+            = "MERGE " + BREAKDOWN_TABLE + " WITH (HOLDLOCK) AS b "
+            + "USING (SELECT vv.model_id, vv.variant_id, ? AS dealer_id FROM VehicleVariant vv WHERE vv.variant_id = ?) AS src "
+            + "ON b.variant_id = src.variant_id AND b.dealer_id = src.dealer_id "
+            + "WHEN MATCHED THEN UPDATE SET quantity = b.quantity + ?, updated_at = SYSDATETIME() "
+            + "WHEN NOT MATCHED THEN INSERT (model_id, variant_id, dealer_id, quantity) "
+            + "VALUES (src.model_id, src.variant_id, src.dealer_id, ?);";
+
+    private static final String APPLY_MODEL_DELTA_SQL
+            = "MERGE " + TABLE_NAME + " WITH (HOLDLOCK) AS i "
+            + "USING (SELECT model_id FROM VehicleVariant WHERE variant_id = ?) AS src "
+            + "ON i.model_id = src.model_id "
+            + "WHEN MATCHED THEN UPDATE SET quantity = i.quantity + ? "
+            + "WHEN NOT MATCHED THEN INSERT (model_id, quantity) VALUES (src.model_id, ?);";
+
+    // Available serials grouped the same way as the counters
+    private static final String COMPUTE_BREAKDOWN_SQL
+            = "SELECT vv.model_id, vs.variant_id, "
+            + "       CASE WHEN vs.state = '" + VehicleSerialDAO.STATE_DEALER_HELD + "' THEN ISNULL(vs.dealer_id, 0) ELSE 0 END AS dealer_id, "
+            + "       COUNT(*) AS quantity "
+            + "FROM VehicleSerial vs "
+            + "INNER JOIN VehicleVariant vv ON vv.variant_id = vs.variant_id "
+            + "WHERE vs.state IN ('" + VehicleSerialDAO.STATE_FACTORY + "', '" + VehicleSerialDAO.STATE_DEALER_HELD + "') "
+            + "GROUP BY vv.model_id, vs.variant_id, "
+            + "         CASE WHEN vs.state = '" + VehicleSerialDAO.STATE_DEALER_HELD + "' THEN ISNULL(vs.dealer_id, 0) ELSE 0 END";
+
+    private static final String SYNC_MODEL_QUANTITIES_SQL
+            = "UPDATE i SET quantity = ISNULL(t.quantity, 0) "
+            + "FROM " + TABLE_NAME + " i "
+            + "LEFT JOIN (SELECT model_id, SUM(quantity) AS quantity FROM " + BREAKDOWN_TABLE + " GROUP BY model_id) t "
+            + "ON t.model_id = i.model_id";
+
+    private static final String INSERT_MISSING_MODELS_SQL
+            = "INSERT INTO " + TABLE_NAME + " (model_id, quantity) "
+            + "SELECT b.model_id, SUM(b.quantity) FROM " + BREAKDOWN_TABLE + " b "
+            + "WHERE NOT EXISTS (SELECT 1 FROM " + TABLE_NAME + " i WHERE i.model_id = b.model_id) "
+            + "GROUP BY b.model_id";
 
     private InventoryDTO mapToInventory(ResultSet rs) throws SQLException {
         return new InventoryDTO(
@@ -55,46 +100,134 @@ public class InventoryDAO {
         return retrieve("model_id = ?", id);
     }
 
-    public int getAvailableSerialCountByModelId(int modelId) {
-        String sql = "SELECT COUNT(DISTINCT vs.serial_id) as available_count "
-                + "FROM VehicleSerial vs "
-                + "INNER JOIN VehicleVariant vv ON vs.variant_id = vv.variant_id "
-                + "WHERE vv.model_id = ? "
-                // Exclude serials ordered by actual customers
-                + "AND vs.serial_id NOT IN ("
-                + "    SELECT od.serial_id "
-                + "    FROM OrderDetail od "
-                + "    INNER JOIN [Order] o ON od.order_id = o.order_id "
-                + "    WHERE od.serial_id IS NOT NULL "
-                + "    AND o.customer_id > 0"
-                + ") "
-                // AND (unordered OR ordered by dealers - not actual customers)
-                + "AND ("
-                + "    vs.serial_id NOT IN ("
-                + "        SELECT od2.serial_id "
-                + "        FROM OrderDetail od2 "
-                + "        WHERE od2.serial_id IS NOT NULL"
-                + "    ) "
-                + "    OR vs.serial_id IN ("
-                + "        SELECT od3.serial_id "
-                + "        FROM OrderDetail od3 "
-                + "        INNER JOIN [Order] o3 ON od3.order_id = o3.order_id "
-                + "        WHERE od3.serial_id IS NOT NULL "
-                + "        AND o3.customer_id = 0"
-                + "    )"
-                + ")";
+    /**
+     * Inventory rows of active models with their model, one joined read.
+     * quantity is the counter kept by {@link #applyDelta}.
+     */
+    public List<InventoryDTO> getActiveInventory() throws SQLException, ClassNotFoundException {
+        String sql = "SELECT i.inventory_id, i.model_id, i.quantity, m.model_name, m.description, m.is_active "
+                + "FROM " + TABLE_NAME + " i "
+                + "INNER JOIN VehicleModel m ON m.model_id = i.model_id "
+                + "WHERE m.is_active = 1";
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql);  ResultSet rs = ps.executeQuery()) {
+            List<InventoryDTO> list = new ArrayList<>();
+            while (rs.next()) {
+                InventoryDTO inventory = mapToInventory(rs);
+                List<VehicleModelDTO> models = new ArrayList<>();
+                models.add(new VehicleModelDTO(
+                        rs.getInt("model_id"),
+                        rs.getString("model_name"),
+                        rs.getString("description"),
+                        rs.getBoolean("is_active")
+                ));
+                inventory.setList(models);
+                list.add(inventory);
+            }
+            return list;
+        }
+    }
 
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, modelId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("available_count");
+    /**
+     * Add {@code delta} available serials of a variant held by {@code dealerId}
+     * (0 = factory) to InventoryBreakdown and to the model's Inventory.quantity.
+     * The caller owns the transaction.
+     */
+    public void applyDelta(Connection conn, int variantId, int dealerId, int delta) throws SQLException {
+        if (delta == 0) {
+            return;
+        }
+        try ( PreparedStatement ps = conn.prepareStatement(APPLY_BREAKDOWN_DELTA_SQL)) {
+            ps.setInt(1, dealerId);
+            ps.setInt(2, variantId);
+            ps.setInt(3, delta);
+            ps.setInt(4, delta);
+            ps.executeUpdate();
+        }
+        try ( PreparedStatement ps = conn.prepareStatement(APPLY_MODEL_DELTA_SQL)) {
+            ps.setInt(1, variantId);
+            ps.setInt(2, delta);
+            ps.setInt(3, delta);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Breakdown recomputed from VehicleSerial.
+     */
+    public List<InventoryBreakdownDTO> computeBreakdown(Connection conn) throws SQLException {
+        return readBreakdown(conn, COMPUTE_BREAKDOWN_SQL);
+    }
+
+    public List<InventoryBreakdownDTO> getBreakdown(Connection conn) throws SQLException {
+        return readBreakdown(conn, "SELECT model_id, variant_id, dealer_id, quantity FROM " + BREAKDOWN_TABLE);
+    }
+
+    /**
+     * Inventory.quantity per model.
+     */
+    public Map<Integer, Integer> getModelQuantities(Connection conn) throws SQLException {
+        String sql = "SELECT model_id, MAX(CAST(quantity AS INT)) AS quantity FROM " + TABLE_NAME + " GROUP BY model_id";
+        try ( PreparedStatement ps = conn.prepareStatement(sql);  ResultSet rs = ps.executeQuery()) {
+            Map<Integer, Integer> quantities = new HashMap<>();
+            while (rs.next()) {
+                quantities.put(rs.getInt("model_id"), rs.getInt("quantity"));
             }
-        } catch (Exception e) {
-            System.err.println("Error in getAvailableSerialCountByModelId(): " + e.getMessage());
-            e.printStackTrace();
+            return quantities;
+        }
+    }
+
+    /**
+     * Take exclusive locks on the counters, held until the caller's transaction ends.
+     */
+    public void lockCounters(Connection conn) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + BREAKDOWN_TABLE + " WITH (TABLOCKX, HOLDLOCK)")) {
+            ps.executeQuery().close();
+        }
+        try ( PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM " + TABLE_NAME + " WITH (TABLOCKX, HOLDLOCK)")) {
+            ps.executeQuery().close();
+        }
+    }
+
+    /**
+     * Replace the breakdown with {@code rows} and set Inventory.quantity to the
+     * per-model sums. The caller owns the transaction.
+     */
+    public void replaceAll(Connection conn, Collection<InventoryBreakdownDTO> rows) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement("DELETE FROM " + BREAKDOWN_TABLE)) {
+            ps.executeUpdate();
+        }
+        String sql = "INSERT INTO " + BREAKDOWN_TABLE + " (model_id, variant_id, dealer_id, quantity) VALUES (?, ?, ?, ?)";
+        try ( PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (InventoryBreakdownDTO row : rows) {
+                ps.setInt(1, row.getModelId());
+                ps.setInt(2, row.getVariantId());
+                ps.setInt(3, row.getDealerId());
+                ps.setInt(4, row.getQuantity());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try ( PreparedStatement ps = conn.prepareStatement(SYNC_MODEL_QUANTITIES_SQL)) {
+            ps.executeUpdate();
+        }
+        try ( PreparedStatement ps = conn.prepareStatement(INSERT_MISSING_MODELS_SQL)) {
+            ps.executeUpdate();
+        }
+    }
+
+    private List<InventoryBreakdownDTO> readBreakdown(Connection conn, String sql) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement(sql);  ResultSet rs = ps.executeQuery()) {
+            List<InventoryBreakdownDTO> list = new ArrayList<>();
+            while (rs.next()) {
+                list.add(new InventoryBreakdownDTO(
+                        rs.getInt("model_id"),
+                        rs.getInt("variant_id"),
+                        rs.getInt("dealer_id"),
+                        rs.getInt("quantity")
+                ));
+            }
+            return list;
         }
-        return 0;
     }
 
 }
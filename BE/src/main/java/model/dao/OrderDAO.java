@@ -4,7 +4,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.sql.Statement;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -13,14 +15,22 @@ import java.util.Map;
 import model.dto.ConfirmationDTO;
 import model.dto.OrderDTO;
 import utils.DbUtils;
+import utils.Page;
+import utils.PageQuery;
+import utils.PageRequest;
+import utils.RowCursor;
 
 public class OrderDAO {
 
     private static final String TABLE_NAME = "[Order]";
+    // Orders with the dealer of the staff account that created them
+    private static final PageQuery PAGE_QUERY = new PageQuery(
+            "SELECT o.* FROM " + TABLE_NAME + " o INNER JOIN UserAccount u ON o.dealer_staff_id = u.user_id", "o.order_id")
+            .sortable("orderDate", "o.order_date");
     private static final String INSERT_ORDER = "INSERT INTO " + TABLE_NAME
             + " (customer_id, dealer_staff_id, model_id, order_date, status) VALUES (?, ?, ?, ?, ?)";
 
-    private OrderDTO mapToOrder(ResultSet rs) throws SQLException {
+    OrderDTO mapToOrder(ResultSet rs) throws SQLException {
         return new OrderDTO(
                 rs.getInt("order_id"),
                 rs.getInt("customer_id"),
@@ -103,25 +113,19 @@ public class OrderDAO {
         return orders;
     }
 
-    public List<OrderDTO> getAllByDealerId(int dealerId) throws SQLException, ClassNotFoundException {
-        String sql = "SELECT o.* FROM [Order] o "
-                + "INNER JOIN UserAccount u ON o.dealer_staff_id = u.user_id "
-                + "WHERE u.dealer_id = ? AND o.customer_id != 0";
-
-        List<OrderDTO> orders = new ArrayList<>();
-
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, dealerId);
-
-            try ( ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    orders.add(mapToOrder(rs));
-                }
-            }
-        }
+    /**
+     * Customer orders (customer_id != 0) created by the dealer's staff, one
+     * page at a time. Sort keys: id, orderDate.
+     */
+    public Page<OrderDTO> getAllByDealerId(int dealerId, PageRequest page) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch("u.dealer_id = ? AND o.customer_id != 0", page, this::mapToOrder, dealerId);
+    }
 
-        return orders;
+    /**
+     * One page of {@link #getByStaffId}. Sort keys: id, orderDate.
+     */
+    public Page<OrderDTO> getByStaffId(int dealerStaffId, PageRequest page) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch("o.dealer_staff_id = ? AND o.customer_id != 0", page, this::mapToOrder, dealerStaffId);
     }
 
     public List<OrderDTO> getAllOrderFromDealer(int dealerId) throws SQLException, ClassNotFoundException {
@@ -217,7 +221,11 @@ public class OrderDAO {
         }
     }
 
-    public List<Map<String, Object>> retrieveOrdersWithConfirmedDetails()
+    /**
+     * Order lines that have a confirmation, newest orders first, read lazily;
+     * the caller closes the cursor.
+     */
+    public RowCursor<Map<String, Object>> openOrdersWithConfirmedDetails()
             throws SQLException, ClassNotFoundException {
         String sql = "SELECT o.order_id, o.customer_id, o.dealer_staff_id, o.model_id, o.order_date, o.status, "
                 + "d.order_detail_id, d.serial_id, d.quantity, d.unit_price "
@@ -226,33 +234,24 @@ public class OrderDAO {
                 + "WHERE EXISTS (SELECT 1 FROM Confirmation c WHERE c.order_detail_id = d.order_detail_id) "
                 + "ORDER BY o.order_date DESC";
 
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ResultSet rs = ps.executeQuery();
-            List<Map<String, Object>> list = new ArrayList<>();
-
-            while (rs.next()) {
-                Map<String, Object> row = new LinkedHashMap<>();
-
-                // Order info
-                row.put("order_id", rs.getInt("order_id"));
-                row.put("customer_id", rs.getInt("customer_id"));
-                row.put("dealer_staff_id", rs.getInt("dealer_staff_id"));
-                row.put("model_id", rs.getInt("model_id"));
-                row.put("order_date", rs.getString("order_date"));
-                row.put("status", rs.getString("status"));
-
-                // Order detail info
-                row.put("order_detail_id", rs.getInt("order_detail_id"));
-                row.put("serial_id", rs.getString("serial_id"));
-                row.put("quantity", rs.getInt("quantity"));
-                row.put("unit_price", rs.getDouble("unit_price"));
-
-                list.add(row);
-            }
-
-            return list;
-        }
+        return RowCursor.open(sql, rs -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+
+            // Order info
+            row.put("order_id", rs.getInt("order_id"));
+            row.put("customer_id", rs.getInt("customer_id"));
+            row.put("dealer_staff_id", rs.getInt("dealer_staff_id"));
+            row.put("model_id", rs.getInt("model_id"));
+            row.put("order_date", rs.getString("order_date"));
+            row.put("status", rs.getString("status"));
+
+            // Order detail info
+            row.put("order_detail_id", rs.getInt("order_detail_id"));
+            row.put("serial_id", rs.getString("serial_id"));
+            row.put("quantity", rs.getInt("quantity"));
+            row.put("unit_price", rs.getDouble("unit_price"));
+            return row;
+        });
     }
 
     public List<OrderDTO> getAllApprovedOrdersFromAllDealers() throws SQLException, ClassNotFoundException {
@@ -291,93 +290,52 @@ public class OrderDAO {
         return orders;
     }
 
-    public Map<String, Object> calculateCompanyYearlySalesTarget(Integer year)
+    /**
+     * Units ordered per active model in each trailing window ending at {@code until}
+     * (exclusive), plus the per-day rate. Keys per window: sold{N}d and rate{N}d.
+     */
+    public List<Map<String, Object>> getModelConsumption(LocalDateTime until, int[] windowDays)
             throws SQLException, ClassNotFoundException {
 
-        if (year == null) {
-            year = java.time.Year.now().getValue(); // Current year
+        int longest = 0;
+        StringBuilder sums = new StringBuilder();
+        for (int days : windowDays) {
+            longest = Math.max(longest, days);
+            sums.append(", ISNULL(SUM(CASE WHEN o.order_date >= ? THEN od.quantity END), 0) AS sold_").append(days);
         }
 
-        String sql = "SELECT "
-                + "COUNT(DISTINCT o.order_id) as total_orders, "
-                + "COUNT(DISTINCT od.order_detail_id) as total_cars, "
-                + "SUM(od.quantity) as total_quantity, "
-                + "SUM(od.unit_price * od.quantity) as total_revenue "
-                + "FROM [Order] o "
-                + "INNER JOIN OrderDetail od ON o.order_id = od.order_id "
-                + "INNER JOIN Confirmation c ON od.order_detail_id = c.order_detail_id "
-                + "WHERE c.agreement = 'Agree' "
-                + "AND o.customer_id = 0 "
-                + "AND YEAR(c.date_time) = ?";
-
-        Map<String, Object> result = new HashMap<>();
+        String sql = "SELECT vm.model_id, vm.model_name" + sums + " "
+                + "FROM VehicleModel vm "
+                + "LEFT JOIN " + TABLE_NAME + " o ON o.model_id = vm.model_id AND o.order_date >= ? AND o.order_date < ? "
+                + "LEFT JOIN OrderDetail od ON od.order_id = o.order_id "
+                + "WHERE vm.is_active = 1 "
+                + "GROUP BY vm.model_id, vm.model_name "
+                + "ORDER BY vm.model_id";
 
+        List<Map<String, Object>> list = new ArrayList<>();
         try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, year);
-
-            try ( ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    result.put("year", year);
-                    result.put("totalOrders", rs.getInt("total_orders"));
-                    result.put("totalCars", rs.getInt("total_cars"));
-                    result.put("totalQuantity", rs.getInt("total_quantity"));
-                    result.put("totalRevenue", rs.getDouble("total_revenue"));
-                } else {
-                    result.put("year", year);
-                    result.put("totalOrders", 0);
-                    result.put("totalCars", 0);
-                    result.put("totalQuantity", 0);
-                    result.put("totalRevenue", 0.0);
-                }
+            int i = 1;
+            for (int days : windowDays) {
+                ps.setTimestamp(i++, Timestamp.valueOf(until.minusDays(days)));
             }
-        }
-
-        return result;
-    }
-
-    public List<Map<String, Object>> calculateCompanyMonthlyBreakdown(Integer year)
-            throws SQLException, ClassNotFoundException {
-
-        if (year == null) {
-            year = java.time.Year.now().getValue();
-        }
-
-        String sql = "SELECT "
-                + "MONTH(c.date_time) as month, "
-                + "COUNT(DISTINCT o.order_id) as total_orders, "
-                + "COUNT(DISTINCT od.order_detail_id) as total_cars, "
-                + "SUM(od.quantity) as total_quantity, "
-                + "SUM(od.unit_price * od.quantity) as total_revenue "
-                + "FROM [Order] o "
-                + "INNER JOIN OrderDetail od ON o.order_id = od.order_id "
-                + "INNER JOIN Confirmation c ON od.order_detail_id = c.order_detail_id "
-                + "WHERE c.agreement = 'Agree' "
-                + "AND o.customer_id = 0 "
-                + "AND YEAR(c.date_time) = ? "
-                + "GROUP BY MONTH(c.date_time) "
-                + "ORDER BY MONTH(c.date_time)";
-
-        List<Map<String, Object>> monthlyData = new ArrayList<>();
-
-        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, year);
+            ps.setTimestamp(i++, Timestamp.valueOf(until.minusDays(longest)));
+            ps.setTimestamp(i, Timestamp.valueOf(until));
 
             try ( ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Map<String, Object> monthData = new HashMap<>();
-                    monthData.put("month", rs.getInt("month"));
-                    monthData.put("totalOrders", rs.getInt("total_orders"));
-                    monthData.put("totalCars", rs.getInt("total_cars"));
-                    monthData.put("totalQuantity", rs.getInt("total_quantity"));
-                    monthData.put("totalRevenue", rs.getDouble("total_revenue"));
-                    monthlyData.add(monthData);
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("modelId", rs.getInt("model_id"));
+                    row.put("modelName", rs.getString("model_name"));
+                    for (int days : windowDays) {
+                        int sold = rs.getInt("sold_" + days);
+                        row.put("sold" + days + "d", sold);
+                        row.put("rate" + days + "d", Math.round(sold * 100.0 / days) / 100.0);
+                    }
+                    list.add(row);
                 }
             }
         }
-
-        return monthlyData;
+        return list;
     }
 
 }
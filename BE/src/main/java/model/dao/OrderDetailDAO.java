@@ -8,6 +8,9 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import model.dto.OrderDetailDTO;
+import java.util.Collection;
+import java.util.Map;
+import utils.BatchLoader;
 import utils.DbUtils;
 
 public class OrderDetailDAO {
@@ -16,7 +19,7 @@ public class OrderDetailDAO {
     private static final String INSERT_ORDER_DETAIL = "INSERT INTO " + TABLE_NAME
             + " (order_id, serial_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
 
-    private OrderDetailDTO mapToOrderDetail(ResultSet rs) throws SQLException {
+    OrderDetailDTO mapToOrderDetail(ResultSet rs) throws SQLException {
         return new OrderDetailDTO(
                 rs.getInt("order_detail_id"),
                 rs.getInt("order_id"),
@@ -87,6 +90,14 @@ public class OrderDetailDAO {
         return retrieve("order_id=?", orderId);
     }
 
+    /**
+     * First detail (lowest order_detail_id) of each order, keyed by order_id.
+     */
+    public Map<Integer, OrderDetailDTO> getFirstOrderDetailByOrderIds(Collection<Integer> orderIds) throws SQLException, ClassNotFoundException {
+        return BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE order_id", "ORDER BY order_detail_id",
+                orderIds, this::mapToOrderDetail, OrderDetailDTO::getOrderId);
+    }
+
     public double getOrderTotal(int orderId) throws ClassNotFoundException, SQLException {
         String sql = "SELECT SUM(quantity * unit_price) AS total FROM OrderDetail WHERE order_id = ?";
         try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -99,6 +110,15 @@ public class OrderDetailDAO {
         return 0;
     }
 
+    public boolean updateUnitPrice(Connection conn, int orderDetailId, double unitPrice) throws SQLException {
+        String sql = "UPDATE " + TABLE_NAME + " SET unit_price = ? WHERE order_detail_id = ?";
+        try ( PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDouble(1, unitPrice);
+            ps.setInt(2, orderDetailId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
     public boolean updateUnitPrice(int orderDetailId, double unitPrice) throws SQLException, ClassNotFoundException {
         String sql = "UPDATE " + TABLE_NAME + " SET unit_price = ? WHERE order_detail_id = ?";
 
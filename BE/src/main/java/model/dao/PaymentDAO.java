@@ -3,13 +3,64 @@ package model.dao;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import model.dto.CustomerDTO;
+import model.dto.OrderDTO;
+import model.dto.OrderDetailDTO;
+import model.dto.PaymentCheckoutDTO;
 import model.dto.PaymentDTO;
 import utils.DbUtils;
+import utils.ServiceRegistry;
 
 public class PaymentDAO {
 
     private static final String TABLE_NAME = "Payment";
 
+    // One page of a dealer's payments for one method, ordered by payment_id (keyset).
+    // calculated_total is the sum of all detail lines of the order.
+    private static final String PAYMENTS_BY_DEALER_AND_METHOD_SQL
+            = "SELECT TOP (?) p.payment_id, p.order_id, p.method, p.amount, p.payment_date, "
+            + "o.customer_id, o.dealer_staff_id, o.model_id, o.order_date, o.status AS order_status, "
+            + "c.name, c.address, c.email, c.phone_number, "
+            + "d.dealer_name, vm.model_name, od.serial_id, vs.variant_id, vv.version_name, "
+            + "ISNULL(tot.calculated_total, 0) AS calculated_total "
+            + "FROM " + TABLE_NAME + " p "
+            + "JOIN [Order] o ON o.order_id = p.order_id "
+            + "JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "JOIN Customer c ON c.customer_id = o.customer_id "
+            + "LEFT JOIN Dealer d ON d.dealer_id = u.dealer_id "
+            + "LEFT JOIN VehicleModel vm ON vm.model_id = o.model_id "
+            + "OUTER APPLY (SELECT TOP 1 serial_id FROM OrderDetail "
+            + "             WHERE order_id = o.order_id ORDER BY order_detail_id) od "
+            + "OUTER APPLY (SELECT SUM(quantity * unit_price) AS calculated_total FROM OrderDetail "
+            + "             WHERE order_id = o.order_id) tot "
+            + "LEFT JOIN VehicleSerial vs ON vs.serial_id = od.serial_id "
+            + "LEFT JOIN VehicleVariant vv ON vv.variant_id = vs.variant_id "
+            + "WHERE u.dealer_id = ? AND p.method = ? AND o.customer_id > 0 AND p.payment_id > ? "
+            + "ORDER BY p.payment_id";
+
+    /**
+     * Receives one row of {@link #forEachPaymentByDealerAndMethod}. variantId and the
+     * names are null when the related row does not exist.
+     */
+    public interface DealerPaymentRowHandler {
+
+        void handle(PaymentDTO payment, OrderDTO order, CustomerDTO customer, String dealerName,
+                String modelName, String serialId, Integer variantId, String variantName, double calculatedTotal);
+    }
+
+    // Order (locked), staff's dealer and existing payment; then the order's detail lines
+    private static final String CHECKOUT_SQL
+            = "SELECT o.*, u.user_id AS staff_id, u.dealer_id AS staff_dealer_id, d.dealer_id AS found_dealer_id, "
+            + "(SELECT TOP 1 p.payment_id FROM " + TABLE_NAME + " p WHERE p.order_id = o.order_id) AS existing_payment_id "
+            + "FROM [Order] o WITH (UPDLOCK, ROWLOCK) "
+            + "LEFT JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "LEFT JOIN Dealer d ON d.dealer_id = u.dealer_id "
+            + "WHERE o.order_id = ?; "
+            + "SELECT * FROM OrderDetail WHERE order_id = ?;";
+
+    private final OrderDAO orderDAO = ServiceRegistry.get(OrderDAO.class);
+    private final OrderDetailDAO orderDetailDAO = ServiceRegistry.get(OrderDetailDAO.class);
+
     private PaymentDTO mapToPayment(ResultSet rs) throws SQLException {
         return new PaymentDTO(
                 rs.getInt("order_id"),
@@ -38,13 +89,21 @@ public class PaymentDAO {
     }
 
     public boolean create(PaymentDTO payment) throws ClassNotFoundException {
+        try (Connection conn = DbUtils.getConnection()) {
+            return create(conn, payment);
+        } catch (SQLException e) {
+            System.out.println("Error creating payment: " + e.getMessage());
+        }
+        return false;
+    }
+
+    public boolean create(Connection conn, PaymentDTO payment) throws SQLException {
         if (payment.getMethod() == null || payment.getMethod().isEmpty()) {
             payment.setMethod("TT");
         }
 
         String sql = "INSERT INTO " + TABLE_NAME + " (order_id, amount, payment_date, method) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DbUtils.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setInt(1, payment.getOrderId());
             ps.setDouble(2, payment.getAmount());
@@ -60,8 +119,6 @@ public class PaymentDAO {
                 }
                 return true;
             }
-        } catch (SQLException e) {
-            System.out.println("Error creating payment: " + e.getMessage());
         }
         return false;
     }
@@ -70,6 +127,55 @@ public class PaymentDAO {
         return retrieve("1 = 1");
     }
 
+    /**
+     * Stream up to {@code limit} payments of the dealer made with {@code method} whose
+     * payment_id is greater than {@code afterPaymentId}. A limit of 0 or less means no limit.
+     */
+    public void forEachPaymentByDealerAndMethod(int dealerId, String method, int afterPaymentId, int limit,
+            DealerPaymentRowHandler handler) throws SQLException, ClassNotFoundException {
+        try (Connection conn = DbUtils.getConnection(); PreparedStatement ps = conn.prepareStatement(PAYMENTS_BY_DEALER_AND_METHOD_SQL)) {
+            ps.setInt(1, limit > 0 ? limit : Integer.MAX_VALUE);
+            ps.setInt(2, dealerId);
+            ps.setString(3, method);
+            ps.setInt(4, afterPaymentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    PaymentDTO payment = new PaymentDTO(
+                            rs.getInt("payment_id"),
+                            rs.getInt("order_id"),
+                            rs.getString("method"),
+                            rs.getDouble("amount"),
+                            rs.getString("payment_date")
+                    );
+                    OrderDTO order = new OrderDTO(
+                            rs.getInt("order_id"),
+                            rs.getInt("customer_id"),
+                            rs.getInt("dealer_staff_id"),
+                            rs.getInt("model_id"),
+                            rs.getString("order_date"),
+                            rs.getString("order_status")
+                    );
+                    CustomerDTO customer = new CustomerDTO(
+                            rs.getInt("customer_id"),
+                            rs.getString("name"),
+                            rs.getString("address"),
+                            rs.getString("email"),
+                            rs.getString("phone_number")
+                    );
+                    int variantId = rs.getInt("variant_id");
+
+                    handler.handle(payment, order, customer,
+                            rs.getString("dealer_name"),
+                            rs.getString("model_name"),
+                            rs.getString("serial_id"),
+                            variantId > 0 ? variantId : null,
+                            rs.getString("version_name"),
+                            rs.getDouble("calculated_total"));
+                }
+            }
+        }
+    }
+
     public PaymentDTO findPaymentById(int paymentId) {
         List<PaymentDTO> list = retrieve("payment_id = ?", paymentId);
         if (list != null && !list.isEmpty()) {
@@ -91,4 +197,43 @@ public class PaymentDAO {
     public List<PaymentDTO> findPaymentListByOrderId(int orderId) {
         return retrieve("order_id = ?", orderId);
     }
+
+    /**
+     * Read the order, its details, its staff's dealer and any existing
+     * payment as one batch on the caller's connection.
+     * The order row stays locked (UPDLOCK) until the caller's transaction
+     * ends, so two payments for the same order cannot both pass the
+     * existing-payment check.
+     *
+     * @return null when the order does not exist
+     */
+    public PaymentCheckoutDTO loadCheckout(Connection conn, int orderId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(CHECKOUT_SQL)) {
+            ps.setInt(1, orderId);
+            ps.setInt(2, orderId);
+
+            PaymentCheckoutDTO checkout = new PaymentCheckoutDTO();
+            ps.execute();
+            try (ResultSet rs = ps.getResultSet()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                checkout.setOrder(orderDAO.mapToOrder(rs));
+                checkout.setStaffFound(rs.getObject("staff_id") != null);
+                checkout.setStaffDealerId(rs.getInt("staff_dealer_id"));
+                checkout.setDealerId(rs.getInt("found_dealer_id"));
+                checkout.setExistingPaymentId(rs.getInt("existing_payment_id"));
+            }
+
+            ps.getMoreResults();
+            List<OrderDetailDTO> details = new ArrayList<>();
+            try (ResultSet rs = ps.getResultSet()) {
+                while (rs.next()) {
+                    details.add(orderDetailDAO.mapToOrderDetail(rs));
+                }
+            }
+            checkout.getOrder().setDetails(details);
+            return checkout;
+        }
+    }
 }
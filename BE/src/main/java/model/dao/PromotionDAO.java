@@ -12,6 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 import model.dto.PromotionDTO;
 import utils.DbUtils;
+import utils.Page;
+import utils.PageQuery;
+import utils.PageRequest;
+import utils.ReferenceCache;
 
 /**
  *
@@ -20,6 +24,9 @@ import utils.DbUtils;
 public class PromotionDAO {
 
     private static final String TABLE_NAME = "Promotion";
+    private static final PageQuery PAGE_QUERY = new PageQuery("SELECT * FROM " + TABLE_NAME, "promo_id")
+            .sortable("startDate", "start_date")
+            .sortable("endDate", "end_date");
 
     private PromotionDTO mapToPromotion(ResultSet rs) throws SQLException {
         return new PromotionDTO(
@@ -50,10 +57,21 @@ public class PromotionDAO {
         return null;
     }
 
+    /**
+     * One page of {@link #retrieve}. Sort keys: id, startDate, endDate.
+     */
+    public Page<PromotionDTO> retrievePage(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch(condition, page, this::mapToPromotion, params);
+    }
+
     public List<PromotionDTO> GetAllPromotion() {
         return retrieve("1 = 1");
     }
 
+    public Page<PromotionDTO> getPromotionsPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrievePage("1 = 1", page);
+    }
+
     public List<PromotionDTO> GetPromotionById(int promoId) {
         return retrieve("promo_id = ?", promoId);
     }
@@ -75,6 +93,7 @@ public class PromotionDAO {
             int rowsAffected = ps.executeUpdate();
 
             if (rowsAffected > 0) {
+                ReferenceCache.promotionsChanged();
                 ResultSet rs = ps.getGeneratedKeys();
                 if (rs.next()) {
                     return new PromotionDTO(
@@ -102,6 +121,9 @@ public class PromotionDAO {
             ps.setInt(1, promoId);
 
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                ReferenceCache.promotionsChanged();
+            }
 
             return rowsAffected > 0;
 
@@ -7,7 +7,9 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.text.SimpleDateFormat;
 import java.text.ParseException;
 import java.math.BigDecimal;
@@ -25,6 +27,23 @@ public class SaleRecordDAO {
             + " (customer_id, dealer_id, dealer_staff_id, sale_date, sale_amount) "
             + " VALUES (?, ?, ?, ?, ?)";
 
+    // Sales per dealer: every order counts its first detail line (quantity x unit_price).
+    // {range} is replaced by the order_date predicate, empty when no range is given.
+    private static final String DEALER_SALES_SUMMARY_SQL
+            = "SELECT d.dealer_id, d.dealer_name, d.address, d.phone_number, "
+            + "ISNULL(s.total_sales, 0) AS total_sales, ISNULL(s.total_orders, 0) AS total_orders "
+            + "FROM Dealer d LEFT JOIN ( "
+            + "  SELECT u.dealer_id, SUM(CAST(od.quantity AS DECIMAL(19, 0)) * CAST(od.unit_price AS DECIMAL(19, 2))) AS total_sales, "
+            + "         COUNT(*) AS total_orders "
+            + "  FROM [Order] o "
+            + "  JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "  CROSS APPLY (SELECT TOP 1 quantity, unit_price FROM OrderDetail "
+            + "               WHERE order_id = o.order_id ORDER BY order_detail_id) od "
+            + "  WHERE od.quantity IS NOT NULL {range}"
+            + "  GROUP BY u.dealer_id "
+            + ") s ON s.dealer_id = d.dealer_id "
+            + "ORDER BY d.dealer_id";
+
     private SaleRecordDTO mapToSaleRecord(ResultSet rs) throws SQLException {
         String saleDateString = null;
         Timestamp dbTimestamp = rs.getTimestamp("sale_date");
@@ -104,4 +123,37 @@ public class SaleRecordDAO {
     public List<SaleRecordDTO> findSaleRecordByDealerStaffId(int dealerStaffId) {
         return retrieve("dealer_staff_id = ?", dealerStaffId);
     }
+
+    /**
+     * Sales total and order count of every dealer in one grouped query.
+     * Orders are filtered with from &lt;= order_date &lt; toExclusive when both bounds are given.
+     */
+    public List<Map<String, Object>> getDealerSalesSummary(Timestamp from, Timestamp toExclusive) throws ClassNotFoundException, SQLException {
+        boolean ranged = from != null && toExclusive != null;
+        String sql = DEALER_SALES_SUMMARY_SQL.replace("{range}",
+                ranged ? "AND o.order_date >= ? AND o.order_date < ? " : "");
+
+        try (Connection conn = DbUtils.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (ranged) {
+                ps.setTimestamp(1, from);
+                ps.setTimestamp(2, toExclusive);
+            }
+
+            List<Map<String, Object>> list = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("dealerId", rs.getInt("dealer_id"));
+                    row.put("dealerName", rs.getString("dealer_name"));
+                    row.put("address", rs.getString("address"));
+                    row.put("phoneNumber", rs.getString("phone_number"));
+                    row.put("totalSales", rs.getBigDecimal("total_sales"));
+                    row.put("totalOrders", rs.getInt("total_orders"));
+                    list.add(row);
+                }
+            }
+            return list;
+        }
+    }
 }
@@ -4,16 +4,30 @@ import java.sql.*;
 import java.util.*;
 import model.dto.RoleDTO;
 import model.dto.UserAccountDTO;
+import utils.BatchLoader;
 import utils.DbUtils;
+import utils.ReferenceCache;
+import utils.Page;
+import utils.PageQuery;
+import utils.PageRequest;
+import utils.SearchIndexes;
+import utils.TrigramIndex;
+import utils.UserAttributeCache;
 
 public class UserAccountDAO {
 
     private static final String TABLE_NAME = "[UserAccount]";
+    private static final PageQuery PAGE_QUERY = new PageQuery("SELECT * FROM " + TABLE_NAME, "user_id")
+            .sortable("username", "username");
     private static final String USER_ROLE_TABLE = "[UserRole]";
     private static final String SEARCH_SQL
             = "SELECT u.user_id, u.dealer_id, u.username, u.email, u.phone_number "
             + "FROM UserAccount u JOIN UserRole ur ON u.user_id = ur.user_id "
             + "WHERE ur.role_id in (1,2) AND u.username LIKE ?";
+    private static final String SEARCH_INDEX_SQL
+            = "SELECT DISTINCT u.user_id, u.dealer_id, u.username "
+            + "FROM UserAccount u JOIN UserRole ur ON u.user_id = ur.user_id "
+            + "WHERE ur.role_id in (1,2)";
 
     private UserAccountDTO mapToUser(ResultSet rs) throws SQLException {
         return new UserAccountDTO(
@@ -45,21 +59,74 @@ public class UserAccountDAO {
         return null;
     }
 
+    /**
+     * One page of {@link #retrieve}. Sort keys: id, username.
+     */
+    public Page<UserAccountDTO> retrievePage(String condition, PageRequest page, Object... params) throws SQLException, ClassNotFoundException {
+        return PAGE_QUERY.fetch(condition, page, this::mapToUser, params);
+    }
+
     public UserAccountDTO getUserById(int userId) {
         List<UserAccountDTO> users = retrieve("user_id=?", userId);
         return (users != null && !users.isEmpty()) ? users.get(0) : null;
     }
 
+    /**
+     * Only the fields checked on every request: dealer, role and active flag.
+     */
+    public UserAccountDTO getUserAttributes(int userId) throws SQLException, ClassNotFoundException {
+        String sql = "SELECT user_id, role_id, dealer_id, is_active FROM " + TABLE_NAME + " WHERE user_id = ?";
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            try ( ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new UserAccountDTO(
+                        rs.getInt("user_id"),
+                        rs.getInt("role_id"),
+                        rs.getInt("dealer_id"),
+                        null,
+                        null,
+                        null,
+                        rs.getBoolean("is_active")
+                );
+            }
+        }
+    }
+
+    public Map<Integer, UserAccountDTO> getUsersByIds(Collection<Integer> userIds) {
+        try {
+            return BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE user_id", null,
+                    userIds, this::mapToUser, UserAccountDTO::getUserId);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+
     public List<UserAccountDTO> getAllDealerAccounts() {
         List<UserAccountDTO> list = retrieve("dealer_id IS NOT NULL AND dealer_id > 0");
         return list != null ? list : new ArrayList<>();
     }
 
+    public Page<UserAccountDTO> getDealerAccountsPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return retrievePage("dealer_id IS NOT NULL AND dealer_id > 0", page);
+    }
+
     public List<UserAccountDTO> findUserByDealerId(int dealerId) {
         return retrieve("dealer_id = ?", dealerId);
     }
 
+    /**
+     * Served from {@link ReferenceCache#USER_ROLES}; the returned list is read-only.
+     */
     public List<RoleDTO> getUserRoles(int userId) {
+        long generation = ReferenceCache.USER_ROLES.generation();
+        List<RoleDTO> cached = ReferenceCache.USER_ROLES.get(userId);
+        if (cached != null) {
+            return cached;
+        }
         List<RoleDTO> roles = new ArrayList<>();
         String sql = "SELECT r.role_id, r.role_name FROM Role r "
                 + "JOIN UserRole ur ON r.role_id = ur.role_id WHERE ur.user_id = ?";
@@ -69,6 +136,8 @@ public class UserAccountDAO {
             while (rs.next()) {
                 roles.add(new RoleDTO(rs.getInt("role_id"), rs.getString("role_name")));
             }
+            roles = Collections.unmodifiableList(roles);
+            ReferenceCache.USER_ROLES.putIfUnchanged(userId, roles, generation);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -94,6 +163,32 @@ public class UserAccountDAO {
         return list;
     }
 
+    /**
+     * Put the usernames of all dealer staff and managers into the search
+     * index, scoped by their dealer.
+     *
+     * @return number of accounts indexed
+     */
+    public int indexNames(TrigramIndex index) throws SQLException, ClassNotFoundException {
+        int count = 0;
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(SEARCH_INDEX_SQL);  ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                index.put(rs.getInt("user_id"), rs.getString("username"), rs.getInt("dealer_id"));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Same roles as SEARCH_INDEX_SQL
+    private static void indexAccount(int userId, String username, int dealerId, int roleId) {
+        if (roleId == 1 || roleId == 2) {
+            SearchIndexes.DEALER_STAFF.put(userId, username, dealerId);
+        } else {
+            SearchIndexes.DEALER_STAFF.remove(userId);
+        }
+    }
+
     public List<Integer> getStaffIdsByDealer(int dealerId) throws ClassNotFoundException, SQLException {
         List<Integer> staffIds = new ArrayList<>();
         String sql = "SELECT user_id FROM UserAccount WHERE dealer_id = ?";
@@ -154,6 +249,7 @@ public class UserAccountDAO {
             psRole.executeUpdate();
 
             conn.commit(); // Commit transaction
+            indexAccount(userId, username, dealerId, roleId);
 
             UserAccountDTO createdUser = new UserAccountDTO();
             createdUser.setUserId(userId);
@@ -222,7 +318,13 @@ public class UserAccountDAO {
             psRole.executeUpdate();
 
             conn.commit();
-            return getUserById(userId);
+            UserAttributeCache.invalidate(userId);
+            ReferenceCache.USER_ROLES.invalidate(userId);
+            UserAccountDTO updated = getUserById(userId);
+            if (updated != null) {
+                indexAccount(userId, username, updated.getDealerId(), roleId);
+            }
+            return updated;
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -239,6 +341,7 @@ public class UserAccountDAO {
             ps.setInt(2, userId);
 
             int rowsAffected = ps.executeUpdate();
+            UserAttributeCache.invalidate(userId);
             return rowsAffected > 0;
 
         } catch (Exception e) {
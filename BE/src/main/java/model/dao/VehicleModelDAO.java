@@ -12,7 +12,14 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import model.dto.VehicleModelDTO;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import utils.BatchLoader;
 import utils.DbUtils;
+import utils.ReferenceCache;
+import utils.SearchIndexes;
+import utils.TrigramIndex;
 
 /**
  *
@@ -55,10 +62,52 @@ public class VehicleModelDAO {
         return retrieve("model_name=?",model_name);
     }
 
+    /**
+     * The model as a one-element list (empty if it does not exist), served
+     * from {@link ReferenceCache#MODELS}.
+     */
     public List<VehicleModelDTO> viewVehicleModelById(int modelId) {
-        return retrieve("model_id=?", modelId);
+        long generation = ReferenceCache.MODELS.generation();
+        VehicleModelDTO model = ReferenceCache.MODELS.get(modelId);
+        if (model != null) {
+            return Collections.singletonList(model);
+        }
+        List<VehicleModelDTO> list = retrieve("model_id=?", modelId);
+        if (list != null && !list.isEmpty()) {
+            ReferenceCache.MODELS.putIfUnchanged(modelId, list.get(0), generation);
+        }
+        return list;
+    }
+
+    public Map<Integer, VehicleModelDTO> getModelsByIds(Collection<Integer> modelIds) {
+        try {
+            return ReferenceCache.MODELS.getAll(modelIds, missing
+                    -> BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE model_id", null,
+                            missing, this::mapToVehicleModel, VehicleModelDTO::getModelId));
+        } catch (Exception e) {
+            System.err.println("Error in getModelsByIds(): " + e.getMessage());
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
     }
     
+    /**
+     * Put every model name into the search index.
+     *
+     * @return number of models indexed
+     */
+    public int indexNames(TrigramIndex index) throws SQLException, ClassNotFoundException {
+        int count = 0;
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(
+                "SELECT model_id, model_name FROM " + TABLE_NAME);  ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                index.put(rs.getInt("model_id"), rs.getString("model_name"), 0);
+                count++;
+            }
+        }
+        return count;
+    }
+
     public VehicleModelDTO create(String modelName, String description) {
         String sql = "INSERT INTO " + TABLE_NAME + " (model_name, description, is_active) VALUES (?, ?, 1)";
         try (Connection conn = DbUtils.getConnection(); 
@@ -67,10 +116,12 @@ public class VehicleModelDAO {
             ps.setString(2, description);
             
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.catalogChanged();
             if (affectedRows > 0) {
                 ResultSet generatedKeys = ps.getGeneratedKeys();
                 if (generatedKeys.next()) {
                     int generatedId = generatedKeys.getInt(1);
+                    SearchIndexes.MODELS.put(generatedId, modelName, 0);
                     return new VehicleModelDTO(generatedId, modelName, description, true);
                 }
             }
@@ -90,6 +141,11 @@ public class VehicleModelDAO {
             ps.setInt(3, modelId);
             
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.MODELS.invalidate(modelId);
+            ReferenceCache.catalogChanged();
+            if (affectedRows > 0) {
+                SearchIndexes.MODELS.put(modelId, modelName, 0);
+            }
             return affectedRows > 0;
         } catch (Exception e) {
             System.err.println("Error in update(): " + e.getMessage());
@@ -105,6 +161,8 @@ public class VehicleModelDAO {
             ps.setInt(1, modelId);
             
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.MODELS.invalidate(modelId);
+            ReferenceCache.catalogChanged();
             return affectedRows > 0;
         } catch (Exception e) {
             System.err.println("Error in disable(): " + e.getMessage());
@@ -120,6 +178,8 @@ public class VehicleModelDAO {
             ps.setInt(1, modelId);
             
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.MODELS.invalidate(modelId);
+            ReferenceCache.catalogChanged();
             return affectedRows > 0;
         } catch (Exception e) {
             System.err.println("Error in enable(): " + e.getMessage());
@@ -9,10 +9,18 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import model.dto.VehicleSerialDTO;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import utils.BatchLoader;
 import utils.DbUtils;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -21,8 +29,44 @@ import utils.DbUtils;
 public class VehicleSerialDAO {
 
     private static final String TABLE_NAME = "VehicleSerial";
+    // Counter rows are locked in this order, so two transactions moving stock
+    // of the same variants cannot wait on each other's rows
+    private static final Comparator<List<Integer>> BY_VARIANT_THEN_HOLDER
+            = Comparator.<List<Integer>>comparingInt(key -> key.get(0)).thenComparingInt(key -> key.get(1));
     private static final String INSERT_SQL = "INSERT INTO " + TABLE_NAME + " (serial_id, variant_id) VALUES (?, ?)";
 
+    public static final String STATE_FACTORY = "FACTORY";
+    public static final String STATE_DEALER_HELD = "DEALER_HELD";
+    public static final String STATE_RESERVED = "RESERVED";
+    public static final String STATE_SOLD = "SOLD";
+
+    // Serials not sold to a customer and not waiting for a custom order approval
+    private static final String AVAILABLE_SERIALS_SQL = "SELECT vs.serial_id, vs.variant_id "
+            + "FROM VehicleSerial vs "
+            + "WHERE vs.state IN ('" + STATE_FACTORY + "', '" + STATE_DEALER_HELD + "') ";
+
+    // Derive the state from the orders a serial appears in: customer order > pending
+    // custom order > dealer order > none. Used once to fill the state/dealer_id columns.
+    private static final String BACKFILL_STATES_SQL
+            = "UPDATE vs SET state = COALESCE(x.state, '" + STATE_FACTORY + "'), dealer_id = x.dealer_id "
+            + "FROM " + TABLE_NAME + " vs "
+            + "OUTER APPLY ("
+            + "    SELECT TOP 1 u.dealer_id, "
+            + "           CASE WHEN o.customer_id > 0 THEN '" + STATE_SOLD + "' "
+            + "                WHEN c.agreement IS NOT NULL AND c.agreement <> 'Agree' THEN '" + STATE_RESERVED + "' "
+            + "                ELSE '" + STATE_DEALER_HELD + "' END AS state "
+            + "    FROM OrderDetail od "
+            + "    INNER JOIN [Order] o ON o.order_id = od.order_id "
+            + "    LEFT JOIN UserAccount u ON u.user_id = o.dealer_staff_id "
+            + "    LEFT JOIN Confirmation c ON c.order_detail_id = od.order_detail_id "
+            + "    WHERE od.serial_id = vs.serial_id "
+            + "    ORDER BY CASE WHEN o.customer_id > 0 THEN 0 "
+            + "                  WHEN c.agreement IS NOT NULL AND c.agreement <> 'Agree' THEN 1 "
+            + "                  ELSE 2 END, o.order_id DESC"
+            + ") x";
+
+    private final InventoryDAO inventoryDAO = ServiceRegistry.get(InventoryDAO.class);
+
     private VehicleSerialDTO mapToVehicleSerial(ResultSet rs) throws SQLException {
         return new model.dto.VehicleSerialDTO(
                 rs.getString("serial_id"),
@@ -58,53 +102,46 @@ public class VehicleSerialDAO {
         return uuid;
     }
 
-    public int create(Connection conn, VehicleSerialDTO serial) throws SQLException {
-        try ( PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
-            ps.setString(1, serial.getSerialId());
-            ps.setInt(2, serial.getVariantId());
-            return ps.executeUpdate();
-        }
-    }
-
     public VehicleSerialDTO getSerialBySerialId(String serialId) {
         List<VehicleSerialDTO> lists = retrieve("serial_id = ?", serialId);
         return lists.get(0);
     }
 
+    public Map<String, VehicleSerialDTO> getSerialsByIds(Collection<String> serialIds) {
+        try {
+            return BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE serial_id", null,
+                    serialIds, this::mapToVehicleSerial, VehicleSerialDTO::getSerialId);
+        } catch (Exception e) {
+            System.err.println("Error in getSerialsByIds(): " + e.getMessage());
+            e.printStackTrace();
+            return Collections.emptyMap();
+        }
+    }
+
     public int batchCreate(Connection conn, List<VehicleSerialDTO> serials) throws SQLException {
         if (serials == null || serials.isEmpty()) {
             return 0;
         }
-        String sql = "INSERT INTO VehicleSerial (serial_id, variant_id) VALUES (?, ?)";
-        try ( PreparedStatement ps = conn.prepareStatement(sql)) {
+        try ( PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
             for (VehicleSerialDTO s : serials) {
                 ps.setString(1, s.getSerialId());
                 ps.setInt(2, s.getVariantId());
                 ps.addBatch();
             }
             int[] results = ps.executeBatch();
+
+            // New serials start as factory stock
+            Map<List<Integer>, Integer> deltas = new TreeMap<>(BY_VARIANT_THEN_HOLDER);
+            for (VehicleSerialDTO s : serials) {
+                addAvailable(deltas, s.getVariantId(), STATE_FACTORY, 0, 1);
+            }
+            applyInventoryDeltas(conn, deltas);
             return results.length;
         }
     }
 
     public List<VehicleSerialDTO> getAvailableSerialsByVariantId(Connection conn, int variantId) {
-        String sql = "SELECT vs.serial_id, vs.variant_id "
-                + "FROM VehicleSerial vs "
-                + "WHERE vs.variant_id = ? "
-                + "AND vs.serial_id NOT IN ("
-                + "    SELECT od.serial_id "
-                + "    FROM OrderDetail od "
-                + "    INNER JOIN [Order] o ON od.order_id = o.order_id "
-                + "    WHERE od.serial_id IS NOT NULL "
-                + "    AND o.customer_id > 0"
-                + ") "
-                + "AND vs.serial_id NOT IN ("
-                + "    SELECT od2.serial_id "
-                + "    FROM OrderDetail od2 "
-                + "    INNER JOIN Confirmation c ON c.order_detail_id = od2.order_detail_id "
-                + "    WHERE od2.serial_id IS NOT NULL "
-                + "    AND c.agreement != 'Agree'" // Only include approved confirmations
-                + ")";
+        String sql = AVAILABLE_SERIALS_SQL + "AND vs.variant_id = ?";
 
         List<VehicleSerialDTO> list = new ArrayList<>();
         try ( PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -123,35 +160,26 @@ public class VehicleSerialDAO {
         return list;
     }
 
+    /**
+     * Every available serial of every variant, used to fill the serial pool at startup.
+     */
+    public List<VehicleSerialDTO> getAllAvailableSerials() throws SQLException, ClassNotFoundException {
+        List<VehicleSerialDTO> list = new ArrayList<>();
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(AVAILABLE_SERIALS_SQL);  ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                list.add(mapToVehicleSerial(rs));
+            }
+        }
+        return list;
+    }
+
     public List<VehicleSerialDTO> getUnorderedOrDealerOrderedSerialsByVariantIdAndDealer(int variantId, int dealerId) {
-        String sql = "SELECT DISTINCT vs.serial_id, vs.variant_id "
+        // Unordered serials, plus the ones this dealer holds
+        String sql = "SELECT vs.serial_id, vs.variant_id "
                 + "FROM VehicleSerial vs "
                 + "WHERE vs.variant_id = ? "
-                // Exclude serials ordered by actual customers
-                + "AND vs.serial_id NOT IN ("
-                + "    SELECT od.serial_id "
-                + "    FROM OrderDetail od "
-                + "    INNER JOIN [Order] o ON od.order_id = o.order_id "
-                + "    WHERE od.serial_id IS NOT NULL "
-                + "    AND o.customer_id > 0"
-                + ") "
-                // AND (unordered OR ordered by this specific dealer)
-                + "AND ("
-                + "    vs.serial_id NOT IN ("
-                + "        SELECT od2.serial_id "
-                + "        FROM OrderDetail od2 "
-                + "        WHERE od2.serial_id IS NOT NULL"
-                + "    ) "
-                + "    OR vs.serial_id IN ("
-                + "        SELECT od3.serial_id "
-                + "        FROM OrderDetail od3 "
-                + "        INNER JOIN [Order] o3 ON od3.order_id = o3.order_id "
-                + "        INNER JOIN UserAccount ua ON o3.dealer_staff_id = ua.user_id "
-                + "        WHERE od3.serial_id IS NOT NULL "
-                + "        AND o3.customer_id = 0 "
-                + "        AND ua.dealer_id = ?"
-                + "    )"
-                + ")";
+                + "AND (vs.state = '" + STATE_FACTORY + "' "
+                + "     OR (vs.state = '" + STATE_DEALER_HELD + "' AND vs.dealer_id = ?))";
 
         List<VehicleSerialDTO> list = new ArrayList<>();
         try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -172,4 +200,80 @@ public class VehicleSerialDAO {
         }
         return list;
     }
+
+    /**
+     * Move serials to {@code state}. dealer_id is taken from the account of
+     * {@code dealerStaffId}; null clears it (back to the factory). The
+     * inventory counters move in the same transaction.
+     *
+     * @return number of serials updated
+     */
+    public int updateState(Connection conn, List<String> serialIds, String state, Integer dealerStaffId) throws SQLException {
+        // (variantId, holder) -> change in available serials
+        Map<List<Integer>, Integer> deltas = new TreeMap<>(BY_VARIANT_THEN_HOLDER);
+        int updated = 0;
+        for (int from = 0; from < serialIds.size(); from += BatchLoader.MAX_KEYS_PER_QUERY) {
+            List<String> chunk = serialIds.subList(from, Math.min(from + BatchLoader.MAX_KEYS_PER_QUERY, serialIds.size()));
+            StringBuilder sql = new StringBuilder("UPDATE " + TABLE_NAME + " SET state = ?, dealer_id = ")
+                    .append(dealerStaffId != null ? "(SELECT dealer_id FROM UserAccount WHERE user_id = ?)" : "NULL")
+                    .append(" OUTPUT deleted.variant_id, deleted.state AS old_state, deleted.dealer_id AS old_dealer_id, ")
+                    .append("inserted.state AS new_state, inserted.dealer_id AS new_dealer_id")
+                    .append(" WHERE serial_id IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+
+            try ( PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int index = 1;
+                ps.setString(index++, state);
+                if (dealerStaffId != null) {
+                    ps.setInt(index++, dealerStaffId);
+                }
+                for (String serialId : chunk) {
+                    ps.setString(index++, serialId);
+                }
+                try ( ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int variantId = rs.getInt("variant_id");
+                        addAvailable(deltas, variantId, rs.getString("old_state"), rs.getInt("old_dealer_id"), -1);
+                        addAvailable(deltas, variantId, rs.getString("new_state"), rs.getInt("new_dealer_id"), 1);
+                        updated++;
+                    }
+                }
+            }
+        }
+        applyInventoryDeltas(conn, deltas);
+        return updated;
+    }
+
+    /**
+     * Recompute state/dealer_id of every serial from the order tables.
+     *
+     * @return number of serials updated
+     */
+    public int backfillStates(Connection conn) throws SQLException {
+        try ( PreparedStatement ps = conn.prepareStatement(BACKFILL_STATES_SQL)) {
+            return ps.executeUpdate();
+        }
+    }
+
+    // Only FACTORY and DEALER_HELD serials count as inventory; factory stock is holder 0
+    private static void addAvailable(Map<List<Integer>, Integer> deltas, int variantId, String state, int dealerId, int delta) {
+        int holder;
+        if (STATE_FACTORY.equals(state)) {
+            holder = 0;
+        } else if (STATE_DEALER_HELD.equals(state)) {
+            holder = dealerId;
+        } else {
+            return;
+        }
+        deltas.merge(Arrays.asList(variantId, holder), delta, Integer::sum);
+    }
+
+    private void applyInventoryDeltas(Connection conn, Map<List<Integer>, Integer> deltas) throws SQLException {
+        for (Map.Entry<List<Integer>, Integer> entry : deltas.entrySet()) {
+            inventoryDAO.applyDelta(conn, entry.getKey().get(0), entry.getKey().get(1), entry.getValue());
+        }
+    }
 }
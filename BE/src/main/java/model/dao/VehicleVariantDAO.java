@@ -12,7 +12,12 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import model.dto.VehicleVariantDTO;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import utils.BatchLoader;
 import utils.DbUtils;
+import utils.ReferenceCache;
 
 /**
  *
@@ -58,6 +63,13 @@ public class VehicleVariantDAO {
         return retrieve("model_id = ? and is_active = 1", model_id);
     }
 
+    /**
+     * Active variants of every model, for building the catalog snapshot in one query.
+     */
+    public List<VehicleVariantDTO> viewAllActiveVariants() {
+        return retrieve("is_active = 1");
+    }
+
     public List<VehicleVariantDTO> viewVehicleVariant(int model_id) {
         return retrieve("model_id = ?", model_id);
     }
@@ -98,6 +110,8 @@ public class VehicleVariantDAO {
             ps.setInt(3, variantId);
 
             int updated = ps.executeUpdate();
+            ReferenceCache.VARIANTS.invalidate(variantId);
+            ReferenceCache.catalogChanged();
             return updated > 0; // returns true if at least one row was updated
         } catch (Exception e) {
             e.printStackTrace();
@@ -117,6 +131,7 @@ public class VehicleVariantDAO {
             ps.setDouble(5, price);
 
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.catalogChanged();
             if (affectedRows > 0) {
                 ResultSet generatedKeys = ps.getGeneratedKeys();
                 if (generatedKeys.next()) {
@@ -143,6 +158,8 @@ public class VehicleVariantDAO {
             ps.setInt(6, variantId);
 
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.VARIANTS.invalidate(variantId);
+            ReferenceCache.catalogChanged();
             return affectedRows > 0;
         } catch (Exception e) {
             System.err.println("Error in updateVariant(): " + e.getMessage());
@@ -157,6 +174,8 @@ public class VehicleVariantDAO {
             ps.setInt(1, variantId);
 
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.VARIANTS.invalidate(variantId);
+            ReferenceCache.catalogChanged();
             return affectedRows > 0;
         } catch (Exception e) {
             System.err.println("Error in disableVariant(): " + e.getMessage());
@@ -171,6 +190,8 @@ public class VehicleVariantDAO {
             ps.setInt(1, variantId);
 
             int affectedRows = ps.executeUpdate();
+            ReferenceCache.VARIANTS.invalidate(variantId);
+            ReferenceCache.catalogChanged();
             return affectedRows > 0;
         } catch (Exception e) {
             System.err.println("Error in enableVariant(): " + e.getMessage());
@@ -179,12 +200,26 @@ public class VehicleVariantDAO {
         return false;
     }
 
+    /**
+     * Served from {@link ReferenceCache#VARIANTS}.
+     */
     public VehicleVariantDTO getVariantById(int variantId) {
-        List<VehicleVariantDTO> list = retrieve("variant_id = ?", variantId);
-        if (list != null && !list.isEmpty()) {
-            return list.get(0);
+        return ReferenceCache.VARIANTS.get(variantId, () -> {
+            List<VehicleVariantDTO> list = retrieve("variant_id = ?", variantId);
+            return list != null && !list.isEmpty() ? list.get(0) : null;
+        });
+    }
+
+    public Map<Integer, VehicleVariantDTO> getVariantsByIds(Collection<Integer> variantIds) {
+        try {
+            return ReferenceCache.VARIANTS.getAll(variantIds, missing
+                    -> BatchLoader.load("SELECT * FROM " + TABLE_NAME + " WHERE variant_id", null,
+                            missing, this::mapToVehicleVariant, VehicleVariantDTO::getVariantId));
+        } catch (Exception e) {
+            System.err.println("Error in getVariantsByIds(): " + e.getMessage());
+            e.printStackTrace();
+            return Collections.emptyMap();
         }
-        return null;
     }
     
 }
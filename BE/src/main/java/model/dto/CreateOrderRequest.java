@@ -0,0 +1,89 @@
+package model.dto;
+
+import java.util.Map;
+import utils.ValidatedRequest;
+
+/**
+ * Body of /api/staff/createOrder. The dealer staff comes from the token.
+ */
+public class CreateOrderRequest implements ValidatedRequest {
+
+    private Integer customerId;
+    private Integer modelId;
+    private Integer quantity;
+    private Integer variantId;
+    private String status;
+    private Boolean isCustom;
+
+    public CreateOrderRequest() {
+    }
+
+    @Override
+    public void validate(Map<String, String> errors) {
+        if (customerId == null) {
+            errors.put("customerId", "is required");
+        }
+        if (modelId == null) {
+            errors.put("modelId", "is required");
+        }
+        if (quantity == null) {
+            errors.put("quantity", "is required");
+        } else if (quantity <= 0) {
+            errors.put("quantity", "must be greater than 0");
+        }
+    }
+
+    public Integer getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Integer customerId) {
+        this.customerId = customerId;
+    }
+
+    public Integer getModelId() {
+        return modelId;
+    }
+
+    public void setModelId(Integer modelId) {
+        this.modelId = modelId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Null or 0 for a custom order without a variant yet.
+     */
+    public Integer getVariantId() {
+        return variantId;
+    }
+
+    public void setVariantId(Integer variantId) {
+        this.variantId = variantId;
+    }
+
+    /**
+     * "Pending" when not given.
+     */
+    public String getStatus() {
+        return status != null && !status.trim().isEmpty() ? status : "Pending";
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Boolean getIsCustom() {
+        return isCustom != null && isCustom;
+    }
+
+    public void setIsCustom(Boolean isCustom) {
+        this.isCustom = isCustom;
+    }
+}
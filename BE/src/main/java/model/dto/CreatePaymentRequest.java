@@ -0,0 +1,110 @@
+package model.dto;
+
+import java.util.Map;
+import utils.ValidatedRequest;
+
+/**
+ * Body of /api/staff/createPayment. The installment fields are only read
+ * when the method is not TT (cash).
+ */
+public class CreatePaymentRequest implements ValidatedRequest {
+
+    private Integer orderId;
+    private String method;
+    private Integer promoId;
+    private String interestRate;
+    private String termMonth;
+    private String monthlyPay;
+    private String status;
+
+    public CreatePaymentRequest() {
+    }
+
+    @Override
+    public void validate(Map<String, String> errors) {
+        if (orderId == null) {
+            errors.put("orderId", "is required");
+        }
+        if (method == null || method.trim().isEmpty()) {
+            errors.put("method", "is required");
+        }
+    }
+
+    /**
+     * The installment plan to create with the payment, null for TT (cash).
+     */
+    public InstallmentPlanDTO toInstallmentPlan() {
+        if ("TT".equalsIgnoreCase(method)) {
+            return null;
+        }
+        InstallmentPlanDTO plan = new InstallmentPlanDTO();
+        plan.setInterestRate(interestRate != null ? interestRate : "0");
+        plan.setTermMonth(termMonth != null ? termMonth : "12");
+        plan.setMonthlyPay(monthlyPay != null ? monthlyPay : "0");
+
+        String planStatus = (status != null ? status : "Active").toUpperCase();
+        if (!planStatus.equalsIgnoreCase("Active")
+                && !planStatus.equalsIgnoreCase("Paid")
+                && !planStatus.equalsIgnoreCase("Overdue")) {
+            planStatus = "Active";
+        }
+        plan.setStatus(planStatus);
+        return plan;
+    }
+
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Integer orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public Integer getPromoId() {
+        return promoId;
+    }
+
+    public void setPromoId(Integer promoId) {
+        this.promoId = promoId;
+    }
+
+    public String getInterestRate() {
+        return interestRate;
+    }
+
+    public void setInterestRate(String interestRate) {
+        this.interestRate = interestRate;
+    }
+
+    public String getTermMonth() {
+        return termMonth;
+    }
+
+    public void setTermMonth(String termMonth) {
+        this.termMonth = termMonth;
+    }
+
+    public String getMonthlyPay() {
+        return monthlyPay;
+    }
+
+    public void setMonthlyPay(String monthlyPay) {
+        this.monthlyPay = monthlyPay;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,90 @@
+package model.dto;
+
+import java.math.BigDecimal;
+
+public class CustomerDebtLedgerDTO {
+
+    private int dealerId;
+    private int customerId;
+    private String name;
+    private String email;
+    private String phoneNumber;
+    private BigDecimal totalOutstandingDebt = BigDecimal.ZERO;
+    private BigDecimal totalPaidAmount = BigDecimal.ZERO;
+    private int totalPlans;
+
+    public CustomerDebtLedgerDTO() {
+    }
+
+    public CustomerDebtLedgerDTO(int dealerId, int customerId, BigDecimal totalOutstandingDebt, BigDecimal totalPaidAmount, int totalPlans) {
+        this.dealerId = dealerId;
+        this.customerId = customerId;
+        this.totalOutstandingDebt = totalOutstandingDebt;
+        this.totalPaidAmount = totalPaidAmount;
+        this.totalPlans = totalPlans;
+    }
+
+    public int getDealerId() {
+        return dealerId;
+    }
+
+    public void setDealerId(int dealerId) {
+        this.dealerId = dealerId;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(int customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+
+    public BigDecimal getTotalOutstandingDebt() {
+        return totalOutstandingDebt;
+    }
+
+    public void setTotalOutstandingDebt(BigDecimal totalOutstandingDebt) {
+        this.totalOutstandingDebt = totalOutstandingDebt;
+    }
+
+    public BigDecimal getTotalPaidAmount() {
+        return totalPaidAmount;
+    }
+
+    public void setTotalPaidAmount(BigDecimal totalPaidAmount) {
+        this.totalPaidAmount = totalPaidAmount;
+    }
+
+    public int getTotalPlans() {
+        return totalPlans;
+    }
+
+    public void setTotalPlans(int totalPlans) {
+        this.totalPlans = totalPlans;
+    }
+}
@@ -0,0 +1,54 @@
+package model.dto;
+
+/**
+ * Available serials of one variant held by one dealer (dealerId 0 = factory stock).
+ */
+public class InventoryBreakdownDTO {
+
+    private int modelId;
+    private int variantId;
+    private int dealerId;
+    private int quantity;
+
+    public InventoryBreakdownDTO() {
+    }
+
+    public InventoryBreakdownDTO(int modelId, int variantId, int dealerId, int quantity) {
+        this.modelId = modelId;
+        this.variantId = variantId;
+        this.dealerId = dealerId;
+        this.quantity = quantity;
+    }
+
+    public int getModelId() {
+        return modelId;
+    }
+
+    public void setModelId(int modelId) {
+        this.modelId = modelId;
+    }
+
+    public int getVariantId() {
+        return variantId;
+    }
+
+    public void setVariantId(int variantId) {
+        this.variantId = variantId;
+    }
+
+    public int getDealerId() {
+        return dealerId;
+    }
+
+    public void setDealerId(int dealerId) {
+        this.dealerId = dealerId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,61 @@
+package model.dto;
+
+/**
+ * Everything a payment needs to know about its order, read in one round
+ * trip by {@code PaymentDAO.loadCheckout}.
+ */
+public class PaymentCheckoutDTO {
+
+    // With its details set
+    private OrderDTO order;
+    private boolean staffFound;
+    // Dealer of the staff account that created the order
+    private int staffDealerId;
+    // 0 when the staff's dealer is missing
+    private int dealerId;
+    // 0 when the order has no payment yet
+    private int existingPaymentId;
+
+    public PaymentCheckoutDTO() {
+    }
+
+    public OrderDTO getOrder() {
+        return order;
+    }
+
+    public void setOrder(OrderDTO order) {
+        this.order = order;
+    }
+
+    public boolean isStaffFound() {
+        return staffFound;
+    }
+
+    public void setStaffFound(boolean staffFound) {
+        this.staffFound = staffFound;
+    }
+
+    public int getStaffDealerId() {
+        return staffDealerId;
+    }
+
+    public void setStaffDealerId(int staffDealerId) {
+        this.staffDealerId = staffDealerId;
+    }
+
+    public int getDealerId() {
+        return dealerId;
+    }
+
+    public void setDealerId(int dealerId) {
+        this.dealerId = dealerId;
+    }
+
+    public int getExistingPaymentId() {
+        return existingPaymentId;
+    }
+
+    public void setExistingPaymentId(int existingPaymentId) {
+        this.existingPaymentId = existingPaymentId;
+    }
+}
@@ -0,0 +1,145 @@
+package model.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import model.dao.VehicleModelDAO;
+import model.dao.VehicleVariantDAO;
+import model.dto.VehicleModelDTO;
+import model.dto.VehicleVariantDTO;
+import utils.CachedJson;
+import utils.ReferenceCache;
+import utils.ResponseUtils;
+import utils.ServiceRegistry;
+
+/**
+ * The vehicle catalog (models with their active variants) as ready-to-send
+ * responses for viewVehicle, viewVehicleForEVM and compareVehicle. It is
+ * built with two queries and replaced as a whole, so a reader always sees
+ * one consistent version of the catalog.
+ * <p>
+ * The DAOs bump {@link ReferenceCache#catalogVersion()} on every model or
+ * variant write; the next read after that rebuilds the snapshot. Rows changed
+ * directly in the database are picked up after
+ * {@code /api/admin/invalidateReferenceCache}.
+ */
+public final class CatalogSnapshot {
+
+    private static final CatalogSnapshot INSTANCE = new CatalogSnapshot();
+
+    private final VehicleModelDAO modelDAO = ServiceRegistry.get(VehicleModelDAO.class);
+    private final VehicleVariantDAO variantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
+    private volatile Snapshot current;
+
+    private CatalogSnapshot() {
+    }
+
+    public static CatalogSnapshot getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Snapshot {
+
+        final long version;
+        final CachedJson activeModels;
+        final CachedJson allModels;
+        final Map<String, CachedJson> byModelName;
+
+        Snapshot(long version, CachedJson activeModels, CachedJson allModels, Map<String, CachedJson> byModelName) {
+            this.version = version;
+            this.activeModels = activeModels;
+            this.allModels = allModels;
+            this.byModelName = byModelName;
+        }
+    }
+
+    /**
+     * Active models with their active variants, as {@link VehicleService#HandlingViewAllVehicle}.
+     */
+    public CachedJson activeModels() throws IOException {
+        return snapshot().activeModels;
+    }
+
+    /**
+     * All models with their active variants, as {@link VehicleService#HandlingViewVehicle}.
+     */
+    public CachedJson allModels() throws IOException {
+        return snapshot().allModels;
+    }
+
+    /**
+     * Models with this name and their active variants, as
+     * {@link CompareModelService#HandlingSearchVehicleByVehicleName}; null when
+     * there is none.
+     */
+    public CachedJson modelsNamed(String modelName) throws IOException {
+        return snapshot().byModelName.get(nameKey(modelName));
+    }
+
+    private Snapshot snapshot() throws IOException {
+        long version = ReferenceCache.catalogVersion();
+        Snapshot snapshot = current;
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot;
+        }
+        synchronized (this) {
+            // Another request may have rebuilt it while we waited
+            snapshot = current;
+            if (snapshot == null || snapshot.version != version) {
+                // Built for the version read before the queries, so a write
+                // that lands during the build triggers another one
+                snapshot = build(version);
+                current = snapshot;
+            }
+            return snapshot;
+        }
+    }
+
+    private Snapshot build(long version) throws IOException {
+        List<VehicleModelDTO> models = modelDAO.viewAllVehicleModel();
+        List<VehicleVariantDTO> variants = variantDAO.viewAllActiveVariants();
+        if (models == null || variants == null) {
+            throw new IOException("Could not load the vehicle catalog");
+        }
+
+        Map<Integer, List<VehicleVariantDTO>> variantsByModel = new HashMap<>();
+        for (VehicleVariantDTO variant : variants) {
+            variantsByModel.computeIfAbsent(variant.getModelId(), k -> new ArrayList<>()).add(variant);
+        }
+
+        List<VehicleModelDTO> activeModels = new ArrayList<>();
+        Map<String, List<VehicleModelDTO>> modelsByName = new HashMap<>();
+        for (VehicleModelDTO model : models) {
+            List<VehicleVariantDTO> modelVariants = variantsByModel.get(model.getModelId());
+            model.setLists(modelVariants != null ? modelVariants : new ArrayList<>());
+            if (model.isIsActive()) {
+                activeModels.add(model);
+            }
+            if (model.getModelName() != null) {
+                modelsByName.computeIfAbsent(nameKey(model.getModelName()), k -> new ArrayList<>()).add(model);
+            }
+        }
+
+        Map<String, CachedJson> byModelName = new HashMap<>();
+        for (Map.Entry<String, List<VehicleModelDTO>> entry : modelsByName.entrySet()) {
+            byModelName.put(entry.getKey(), ResponseUtils.prepare("success", entry.getValue()));
+        }
+        return new Snapshot(version,
+                ResponseUtils.prepare("success", activeModels),
+                ResponseUtils.prepare("success", models),
+                Collections.unmodifiableMap(byModelName));
+    }
+
+    // model_name = ? in the default collation ignores case and trailing spaces
+    private static String nameKey(String modelName) {
+        int end = modelName.length();
+        while (end > 0 && modelName.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return modelName.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+}
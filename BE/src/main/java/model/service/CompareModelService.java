@@ -9,14 +9,15 @@ import model.dao.VehicleModelDAO;
 import model.dao.VehicleVariantDAO;
 import model.dto.VehicleModelDTO;
 import model.dto.VehicleVariantDTO;
+import utils.ServiceRegistry;
 
 /**
  *
  * @author ACER
  */
 public class CompareModelService {
-     private VehicleModelDAO modelDAO = new VehicleModelDAO();
-     private VehicleVariantDAO variantDAO = new VehicleVariantDAO();
+     private VehicleModelDAO modelDAO = ServiceRegistry.get(VehicleModelDAO.class);
+     private VehicleVariantDAO variantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
     public List<VehicleModelDTO> HandlingSearchVehicleByVehicleName(String VehicleName){
         List<VehicleModelDTO> models=modelDAO.SearchVehicleModel(VehicleName);
      if (models != null) {
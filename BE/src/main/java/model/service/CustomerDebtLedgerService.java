@@ -0,0 +1,227 @@
+package model.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import model.dao.CustomerDebtLedgerDAO;
+import model.dao.InstallmentPlanDAO;
+import model.dto.CustomerDebtLedgerDTO;
+import model.dto.InstallmentPlanDTO;
+import utils.DbUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Keeps CustomerDebtLedger in step with the installment plans and reconciles it
+ * against the raw Payment / InstallmentPlan tables.
+ */
+public class CustomerDebtLedgerService {
+
+    private static final Logger LOG = Logger.getLogger(CustomerDebtLedgerService.class.getName());
+
+    private final CustomerDebtLedgerDAO ledgerDAO = ServiceRegistry.get(CustomerDebtLedgerDAO.class);
+    private final InstallmentPlanDAO installDAO = ServiceRegistry.get(InstallmentPlanDAO.class);
+
+    /**
+     * Outstanding and paid amount a plan adds to its customer's debt, {outstanding, paid}.
+     * Only ACTIVE and OVERDUE plans count.
+     */
+    public static BigDecimal[] planContribution(InstallmentPlanDTO plan, double paymentAmount) {
+        if (plan == null || !isOpen(plan.getStatus())) {
+            return new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO};
+        }
+
+        BigDecimal monthlyPay;
+        try {
+            monthlyPay = new BigDecimal(plan.getMonthlyPay() == null ? "0" : plan.getMonthlyPay().trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid monthlyPay for plan " + plan.getPlanId());
+            monthlyPay = BigDecimal.ZERO;
+        }
+        int remainingTerm = parseIntSafe(plan.getTermMonth());
+        BigDecimal principal = BigDecimal.valueOf(paymentAmount);
+
+        // Compute original term
+        int originalTerm = (monthlyPay.compareTo(BigDecimal.ZERO) > 0)
+                ? principal.divide(monthlyPay, 0, RoundingMode.HALF_UP).intValue()
+                : remainingTerm;
+        if (originalTerm < remainingTerm) {
+            originalTerm = remainingTerm;
+        }
+
+        BigDecimal totalAmount = monthlyPay.multiply(BigDecimal.valueOf(originalTerm));
+        int paidMonths = Math.max(0, originalTerm - remainingTerm);
+        BigDecimal paidAmount = monthlyPay.multiply(BigDecimal.valueOf(paidMonths));
+        BigDecimal outstanding = monthlyPay.multiply(BigDecimal.valueOf(remainingTerm));
+
+        if (remainingTerm <= 0) {
+            outstanding = BigDecimal.ZERO;
+            paidAmount = totalAmount;
+        }
+
+        // Round per plan, the ledger stores DECIMAL(19,2)
+        return new BigDecimal[]{
+            outstanding.setScale(2, RoundingMode.HALF_UP),
+            paidAmount.setScale(2, RoundingMode.HALF_UP)
+        };
+    }
+
+    /**
+     * Apply the difference between the old and new state of one plan to the ledger,
+     * inside the caller's transaction. {@code before} is null for a new plan.
+     */
+    public void applyPlanChange(Connection conn, int dealerId, int customerId,
+            InstallmentPlanDTO before, InstallmentPlanDTO after, double paymentAmount) throws SQLException {
+        BigDecimal[] oldValue = planContribution(before, paymentAmount);
+        BigDecimal[] newValue = planContribution(after, paymentAmount);
+
+        BigDecimal outstandingDelta = newValue[0].subtract(oldValue[0]);
+        BigDecimal paidDelta = newValue[1].subtract(oldValue[1]);
+        int planDelta = (after != null && isOpen(after.getStatus()) ? 1 : 0)
+                - (before != null && isOpen(before.getStatus()) ? 1 : 0);
+
+        if (outstandingDelta.signum() == 0 && paidDelta.signum() == 0 && planDelta == 0) {
+            return;
+        }
+        ledgerDAO.applyDelta(conn, dealerId, customerId, outstandingDelta, paidDelta, planDelta);
+    }
+
+    public List<CustomerDebtLedgerDTO> getLedgerByDealer(int dealerId) throws SQLException, ClassNotFoundException {
+        return ledgerDAO.getByDealerId(dealerId);
+    }
+
+    /**
+     * Compare the ledger with totals recomputed from the raw tables.
+     *
+     * @return one entry per (dealer, customer) that differs
+     */
+    public List<Map<String, Object>> verify() throws SQLException, ClassNotFoundException {
+        Map<String, CustomerDebtLedgerDTO> expected;
+        try ( Connection conn = DbUtils.getConnection()) {
+            expected = computeExpected(conn);
+        }
+        List<Map<String, Object>> drift = findDrift(expected, ledgerDAO.getAll());
+        if (!drift.isEmpty()) {
+            LOG.log(Level.WARNING, "Customer debt ledger drift on {0} rows: {1}", new Object[]{drift.size(), drift});
+        }
+        return drift;
+    }
+
+    /**
+     * Rebuild the ledger from the raw tables in one transaction.
+     *
+     * @return the drift that was corrected
+     */
+    public List<Map<String, Object>> rebuild() throws SQLException, ClassNotFoundException {
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
+
+            // Block ledger updates from payments while the table is recomputed
+            ledgerDAO.lockTable(conn);
+            Map<String, CustomerDebtLedgerDTO> expected = computeExpected(conn);
+            List<Map<String, Object>> drift = findDrift(expected, ledgerDAO.getAll(conn));
+            ledgerDAO.replaceAll(conn, expected.values());
+
+            conn.commit();
+            LOG.log(Level.INFO, "Customer debt ledger rebuilt: {0} rows, {1} corrected",
+                    new Object[]{expected.size(), drift.size()});
+            return drift;
+        } catch (SQLException e) {
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private Map<String, CustomerDebtLedgerDTO> computeExpected(Connection conn) throws SQLException {
+        Map<String, CustomerDebtLedgerDTO> expected = new TreeMap<>();
+        installDAO.forEachPlanDebtSource(conn, null, (plan, paymentAmount, dealerId, customerId) -> {
+            BigDecimal[] value = planContribution(plan, paymentAmount);
+            CustomerDebtLedgerDTO row = expected.computeIfAbsent(key(dealerId, customerId),
+                    k -> new CustomerDebtLedgerDTO(dealerId, customerId, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+            row.setTotalOutstandingDebt(row.getTotalOutstandingDebt().add(value[0]));
+            row.setTotalPaidAmount(row.getTotalPaidAmount().add(value[1]));
+            row.setTotalPlans(row.getTotalPlans() + 1);
+        });
+        return expected;
+    }
+
+    private List<Map<String, Object>> findDrift(Map<String, CustomerDebtLedgerDTO> expected, List<CustomerDebtLedgerDTO> actualRows) {
+        Map<String, CustomerDebtLedgerDTO> actual = new TreeMap<>();
+        for (CustomerDebtLedgerDTO row : actualRows) {
+            actual.put(key(row.getDealerId(), row.getCustomerId()), row);
+        }
+
+        List<Map<String, Object>> drift = new ArrayList<>();
+        Map<String, CustomerDebtLedgerDTO> all = new TreeMap<>(actual);
+        all.putAll(expected);
+        for (Map.Entry<String, CustomerDebtLedgerDTO> entry : all.entrySet()) {
+            CustomerDebtLedgerDTO want = expected.get(entry.getKey());
+            CustomerDebtLedgerDTO have = actual.get(entry.getKey());
+            if (sameTotals(want, have)) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("dealerId", entry.getValue().getDealerId());
+            row.put("customerId", entry.getValue().getCustomerId());
+            row.put("ledgerOutstandingDebt", have != null ? have.getTotalOutstandingDebt().toPlainString() : null);
+            row.put("expectedOutstandingDebt", want != null ? want.getTotalOutstandingDebt().toPlainString() : "0.00");
+            row.put("ledgerPaidAmount", have != null ? have.getTotalPaidAmount().toPlainString() : null);
+            row.put("expectedPaidAmount", want != null ? want.getTotalPaidAmount().toPlainString() : "0.00");
+            row.put("ledgerPlans", have != null ? have.getTotalPlans() : null);
+            row.put("expectedPlans", want != null ? want.getTotalPlans() : 0);
+            drift.add(row);
+        }
+        return drift;
+    }
+
+    private boolean sameTotals(CustomerDebtLedgerDTO want, CustomerDebtLedgerDTO have) {
+        if (want == null) {
+            // A ledger row without open plans is fine as long as it is all zero
+            return have.getTotalPlans() == 0
+                    && have.getTotalOutstandingDebt().signum() == 0
+                    && have.getTotalPaidAmount().signum() == 0;
+        }
+        if (have == null) {
+            return false;
+        }
+        return want.getTotalPlans() == have.getTotalPlans()
+                && want.getTotalOutstandingDebt().compareTo(have.getTotalOutstandingDebt()) == 0
+                && want.getTotalPaidAmount().compareTo(have.getTotalPaidAmount()) == 0;
+    }
+
+    private static String key(int dealerId, int customerId) {
+        return String.format("%010d:%010d", dealerId, customerId);
+    }
+
+    private static boolean isOpen(String status) {
+        return "ACTIVE".equalsIgnoreCase(status) || "OVERDUE".equalsIgnoreCase(status);
+    }
+
+    private static int parseIntSafe(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -10,6 +10,11 @@ import java.util.List;
 import model.dao.CustomerDAO;
 import model.dto.CustomerDTO;
 import utils.DbUtils;
+import utils.Page;
+import utils.PageRequest;
+import utils.RowCursor;
+import utils.SearchIndexes;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -17,7 +22,7 @@ import utils.DbUtils;
  */
 public class CustomerService {
 
-    private CustomerDAO customerDAO = new CustomerDAO();
+    private CustomerDAO customerDAO = ServiceRegistry.get(CustomerDAO.class);
 
     public int HandlingCreateCustomer(String name, String address, String email, String phoneNumber) {
         Connection conn = null;
@@ -45,6 +50,7 @@ public class CustomerService {
             }
 
             conn.commit();
+            SearchIndexes.CUSTOMERS.put(customerId, name, 0);
             return customerId;
 
         } catch (Exception e) {
@@ -69,8 +75,12 @@ public class CustomerService {
         }
     }
 
-    public List<CustomerDTO> getAll() {
-        return customerDAO.getAllCustomer();
+    public Page<CustomerDTO> getPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return customerDAO.getCustomersPage(page);
+    }
+
+    public RowCursor<CustomerDTO> openAll(PageRequest page) throws SQLException, ClassNotFoundException {
+        return customerDAO.openAllCustomers(page);
     }
 
     // In CustomerService.java
@@ -8,10 +8,10 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import model.dao.CustomerDAO;
 import model.dao.FeedbackDAO;
 import model.dto.CustomerDTO;
 import model.dto.FeedbackDTO;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -19,8 +19,8 @@ import model.dto.FeedbackDTO;
  */
 public class FeedBackService {
 
-    private final FeedbackDAO FDAO = new FeedbackDAO();
-    private final CustomerDAO CDAO = new CustomerDAO();
+    private final FeedbackDAO FDAO = ServiceRegistry.get(FeedbackDAO.class);
+    private final SearchService searchService = ServiceRegistry.get(SearchService.class);
 
     public FeedbackDTO handlingCreateFeedBack(int customer_id, int order_id, String type, String content, String status) {
         if (!status.equalsIgnoreCase("RESOLVED")) {
@@ -36,7 +36,7 @@ public class FeedBackService {
     }
 
     public List<CustomerDTO> getAllFeedBackFromCustomerName(String name) {
-        List<CustomerDTO> customer = CDAO.findByName(name);
+        List<CustomerDTO> customer = searchService.searchCustomers(name);
         if (customer == null || customer.isEmpty()) {
             return new ArrayList<>();
         }
@@ -0,0 +1,151 @@
+package model.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import model.dao.InventoryDAO;
+import model.dto.InventoryBreakdownDTO;
+import utils.DbUtils;
+import utils.ServiceRegistry;
+
+/**
+ * Reconciles the inventory counters (InventoryBreakdown and Inventory.quantity)
+ * against the serial states in VehicleSerial.
+ */
+public class InventoryCounterService {
+
+    private static final Logger LOG = Logger.getLogger(InventoryCounterService.class.getName());
+
+    private final InventoryDAO inventoryDAO = ServiceRegistry.get(InventoryDAO.class);
+
+    /**
+     * Compare the counters with the counts recomputed from VehicleSerial.
+     *
+     * @return one entry per breakdown row or model that differs
+     */
+    public List<Map<String, Object>> verify() throws SQLException, ClassNotFoundException {
+        List<Map<String, Object>> drift;
+        try ( Connection conn = DbUtils.getConnection()) {
+            drift = findDrift(conn);
+        }
+        if (!drift.isEmpty()) {
+            LOG.log(Level.WARNING, "Inventory counter drift on {0} rows: {1}", new Object[]{drift.size(), drift});
+        }
+        return drift;
+    }
+
+    /**
+     * Rebuild the counters from VehicleSerial in one transaction.
+     *
+     * @return the drift that was corrected
+     */
+    public List<Map<String, Object>> rebuild() throws SQLException, ClassNotFoundException {
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
+
+            // Block counter updates from orders while the counters are recomputed
+            inventoryDAO.lockCounters(conn);
+            List<Map<String, Object>> drift = findDrift(conn);
+            List<InventoryBreakdownDTO> expected = inventoryDAO.computeBreakdown(conn);
+            inventoryDAO.replaceAll(conn, expected);
+
+            conn.commit();
+            LOG.log(Level.INFO, "Inventory counters rebuilt: {0} rows, {1} corrected",
+                    new Object[]{expected.size(), drift.size()});
+            return drift;
+        } catch (SQLException e) {
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Periodic check: rebuild only when drift is found.
+     */
+    public void checkAndRepair() {
+        try {
+            if (!verify().isEmpty()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Inventory counter check failed", e);
+        }
+    }
+
+    private List<Map<String, Object>> findDrift(Connection conn) throws SQLException {
+        Map<String, InventoryBreakdownDTO> expected = byKey(inventoryDAO.computeBreakdown(conn));
+        Map<String, InventoryBreakdownDTO> actual = byKey(inventoryDAO.getBreakdown(conn));
+
+        List<Map<String, Object>> drift = new ArrayList<>();
+        Map<Integer, Integer> expectedByModel = new HashMap<>();
+        for (InventoryBreakdownDTO row : expected.values()) {
+            expectedByModel.merge(row.getModelId(), row.getQuantity(), Integer::sum);
+        }
+
+        TreeSet<String> keys = new TreeSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (String key : keys) {
+            InventoryBreakdownDTO want = expected.get(key);
+            InventoryBreakdownDTO have = actual.get(key);
+            int wantQuantity = want != null ? want.getQuantity() : 0;
+            int haveQuantity = have != null ? have.getQuantity() : 0;
+            if (wantQuantity == haveQuantity) {
+                continue;
+            }
+            InventoryBreakdownDTO any = want != null ? want : have;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("modelId", any.getModelId());
+            row.put("variantId", any.getVariantId());
+            row.put("dealerId", any.getDealerId());
+            row.put("counterQuantity", haveQuantity);
+            row.put("expectedQuantity", wantQuantity);
+            drift.add(row);
+        }
+
+        Map<Integer, Integer> actualByModel = inventoryDAO.getModelQuantities(conn);
+        TreeSet<Integer> models = new TreeSet<>(expectedByModel.keySet());
+        models.addAll(actualByModel.keySet());
+        for (Integer modelId : models) {
+            int wantQuantity = expectedByModel.getOrDefault(modelId, 0);
+            Integer haveQuantity = actualByModel.get(modelId);
+            if (haveQuantity != null ? haveQuantity == wantQuantity : wantQuantity == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("modelId", modelId);
+            row.put("inventoryQuantity", haveQuantity);
+            row.put("expectedQuantity", wantQuantity);
+            drift.add(row);
+        }
+        return drift;
+    }
+
+    private static Map<String, InventoryBreakdownDTO> byKey(List<InventoryBreakdownDTO> rows) {
+        Map<String, InventoryBreakdownDTO> map = new TreeMap<>();
+        for (InventoryBreakdownDTO row : rows) {
+            map.put(row.getVariantId() + ":" + row.getDealerId(), row);
+        }
+        return map;
+    }
+}
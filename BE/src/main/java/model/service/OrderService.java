@@ -2,6 +2,7 @@ package model.service;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -11,6 +12,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import model.dao.ConfirmationDAO;
+import model.dao.DailySalesRollupDAO;
 import model.dao.OrderDAO;
 import model.dao.OrderDetailDAO;
 import model.dao.UserAccountDAO;
@@ -25,16 +27,23 @@ import model.dto.VehicleModelDTO;
 import model.dto.VehicleSerialDTO;
 import model.dto.VehicleVariantDTO;
 import utils.DbUtils;
+import utils.Page;
+import utils.PageRequest;
+import utils.ReferenceCache;
+import utils.RowCursor;
+import utils.ServiceRegistry;
 
 public class OrderService {
 
-    private final ConfirmationDAO confirmationDAO = new ConfirmationDAO();
-    private final OrderDAO orderDAO = new OrderDAO();
-    private final VehicleVariantDAO variantDAO = new VehicleVariantDAO();
-    private final VehicleModelDAO modelDAO = new VehicleModelDAO();
-    private final VehicleSerialDAO vehicleSerialDAO = new VehicleSerialDAO();
-    private final OrderDetailDAO orderDetailDAO = new OrderDetailDAO();
-    private final UserAccountDAO userDAO = new UserAccountDAO();
+    private final ConfirmationDAO confirmationDAO = ServiceRegistry.get(ConfirmationDAO.class);
+    private final OrderDAO orderDAO = ServiceRegistry.get(OrderDAO.class);
+    private final VehicleVariantDAO variantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
+    private final VehicleModelDAO modelDAO = ServiceRegistry.get(VehicleModelDAO.class);
+    private final VehicleSerialDAO vehicleSerialDAO = ServiceRegistry.get(VehicleSerialDAO.class);
+    private final OrderDetailDAO orderDetailDAO = ServiceRegistry.get(OrderDetailDAO.class);
+    private final UserAccountDAO userDAO = ServiceRegistry.get(UserAccountDAO.class);
+    private final DailySalesRollupDAO rollupDAO = ServiceRegistry.get(DailySalesRollupDAO.class);
+    private final SerialPool serialPool = SerialPool.getInstance();
 
     public int HandlingCreateOrder(
             int customerId,
@@ -47,6 +56,7 @@ public class OrderService {
             boolean isCustom) {
 
         Connection conn = null;
+        SerialPool.Reservation reservation = null;
 
         try {
             conn = DbUtils.getConnection();
@@ -86,21 +96,9 @@ public class OrderService {
                 finalUnitPrice = variant.getPrice();
             }
 
-            // Fetch available serials (not assigned to any customer) for this variant
-            List<VehicleSerialDTO> availableSerials = new ArrayList<>();
+            // Take serials from the in-memory pool; they go back to it if this transaction fails
             if (!isCustom) {
-                // Get serials that are not assigned to customers (customer_id = 0 or not in order_detail)
-                availableSerials = vehicleSerialDAO.getAvailableSerialsByVariantId(conn, finalVariantId);
-
-                // **CHECK: If not enough available serials, throw exception**
-                if (availableSerials == null || availableSerials.size() < quantity) {
-                    int availableCount = (availableSerials != null) ? availableSerials.size() : 0;
-                    throw new IllegalStateException(
-                            "Not enough vehicles available for variant ID " + finalVariantId
-                            + ". Requested: " + quantity + ", Available: " + availableCount
-                            + ". This variant is sold out!"
-                    );
-                }
+                reservation = serialPool.reserve(finalVariantId, quantity);
             }
 
             // Prepare batch lists
@@ -112,17 +110,14 @@ public class OrderService {
             for (int i = 0; i < quantity; i++) {
                 String currentSerialId;
 
-                if (!isCustom && i < availableSerials.size()) {
+                if (!isCustom) {
                     // Reuse available serial (not assigned to any customer)
-                    currentSerialId = availableSerials.get(i).getSerialId();
-                } else if (isCustom) {
+                    currentSerialId = reservation.getSerialIds().get(i);
+                } else {
                     // Generate new serial for custom orders
                     currentSerialId = vehicleSerialDAO.generateSerialId();
                     VehicleSerialDTO serial = new VehicleSerialDTO(currentSerialId, finalVariantId);
                     batchSerials.add(serial);
-                } else {
-                    // This should never happen due to the check above, but just in case
-                    throw new IllegalStateException("Insufficient serials available");
                 }
 
                 // Add OrderDetail
@@ -148,6 +143,15 @@ public class OrderService {
                 throw new SQLException("Failed to batch insert order details");
             }
 
+            // Serial lifecycle: customer orders sell, dealer orders hand over, custom orders wait for approval
+            List<String> orderedSerialIds = new ArrayList<>(batchDetails.size());
+            for (OrderDetailDTO detail : batchDetails) {
+                orderedSerialIds.add(detail.getSerialId());
+            }
+            String serialState = isCustom ? VehicleSerialDAO.STATE_RESERVED
+                    : customerId > 0 ? VehicleSerialDAO.STATE_SOLD : VehicleSerialDAO.STATE_DEALER_HELD;
+            vehicleSerialDAO.updateState(conn, orderedSerialIds, serialState, dealerstaffId);
+
             // Insert confirmations for custom orders
             if (isCustom) {
                 for (int i = 0; i < orderDetailIds.length; i++) {
@@ -169,6 +173,13 @@ public class OrderService {
 
             // Commit transaction
             conn.commit();
+            if (variantId == null || variantId <= 0) {
+                // The auto-generated variant is visible in the catalog only now
+                ReferenceCache.catalogChanged();
+            }
+            if (reservation != null) {
+                reservation.commit(customerId > 0);
+            }
             return orderId;
 
         } catch (IllegalStateException e) {
@@ -179,6 +190,9 @@ public class OrderService {
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
+            if (reservation != null) {
+                reservation.rollback();
+            }
             throw e; // Rethrow to be handled by controller
         } catch (Exception e) {
             e.printStackTrace();
@@ -187,6 +201,9 @@ public class OrderService {
             } catch (SQLException ex) {
                 ex.printStackTrace();
             }
+            if (reservation != null) {
+                reservation.rollback();
+            }
             return -1;
         } finally {
             if (conn != null) try {
@@ -213,6 +230,13 @@ public class OrderService {
 
             System.out.println("INFO: Processing " + orderDetails.size() + " order details for order_id = " + orderId);
 
+            OrderDTO order = orderDAO.getById(orderId);
+            if (order == null) {
+                throw new SQLException("Order not found with ID: " + orderId);
+            }
+            // serials touched by this decision, applied to the serial pool after commit
+            Map<Integer, List<String>> serialsByVariant = new HashMap<>();
+
             // Process each order detail
             for (OrderDetailDTO detail : orderDetails) {
                 int orderDetailId = detail.getOrderDetailId();
@@ -224,7 +248,7 @@ public class OrderService {
                 }
 
                 // Update unit price for this order detail
-                boolean updatedPrice = orderDetailDAO.updateUnitPrice(orderDetailId, unitPrice);
+                boolean updatedPrice = orderDetailDAO.updateUnitPrice(conn, orderDetailId, unitPrice);
                 if (!updatedPrice) {
                     throw new SQLException("Failed to update unit_price for order_detail_id = " + orderDetailId);
                 }
@@ -235,16 +259,18 @@ public class OrderService {
                     throw new SQLException("No variant found for serial_id = " + serialId);
                 }
                 int variantId = serial.getVariantId();
+                serialsByVariant.computeIfAbsent(variantId, k -> new ArrayList<>()).add(serialId);
 
                 // Get confirmation for this order detail
-                ConfirmationDTO confirmation = confirmationDAO.getConfirmationByOrderDetailId(orderDetailId);
+                ConfirmationDTO confirmation = confirmationDAO.getConfirmationByOrderDetailId(conn, orderDetailId);
                 if (confirmation == null) {
                     System.err.println("WARNING: No confirmation found for order_detail_id = " + orderDetailId);
                     continue;
                 }
 
                 // Update confirmation with decision & staff_admin_id
-                ConfirmationDTO updatedConfirmation = confirmationDAO.updateStatus(
+                // (same transaction, so the sales rollup moves with it)
+                ConfirmationDTO updatedConfirmation = confirmationDAO.updateStatus(conn,
                         confirmation.getConfirmationId(),
                         decision,
                         staffAdminId
@@ -265,20 +291,46 @@ public class OrderService {
                 }
             }
 
+            List<String> serialIds = new ArrayList<>();
+            for (List<String> ids : serialsByVariant.values()) {
+                serialIds.addAll(ids);
+            }
+
             // Handle "Disagree" - delete the entire order after processing all details
             if (decision.equalsIgnoreCase("Disagree")) {
                 boolean orderDeleted = orderDAO.deleteById(conn, orderId);
                 if (!orderDeleted) {
                     throw new SQLException("Failed to delete order_id = " + orderId);
                 }
+                // The serials go back to the factory
+                vehicleSerialDAO.updateState(conn, serialIds, VehicleSerialDAO.STATE_FACTORY, null);
                 System.out.println("INFO: Custom order rejected. Deleted order_id = " + orderId + " with all its details");
             } else if (decision.equalsIgnoreCase("Agree")) {
+                vehicleSerialDAO.updateState(conn, serialIds,
+                        order.getCustomerId() > 0 ? VehicleSerialDAO.STATE_SOLD : VehicleSerialDAO.STATE_DEALER_HELD,
+                        order.getDealerStaffId());
                 System.out.println("INFO: Custom order approved for order_id = " + orderId + " with " + orderDetails.size() + " items");
             } else {
+                vehicleSerialDAO.updateState(conn, serialIds, VehicleSerialDAO.STATE_RESERVED, order.getDealerStaffId());
                 System.out.println("INFO: Custom order decision is pending for order_id = " + orderId + ". No action taken.");
             }
 
             conn.commit();
+
+            // Rejected orders are deleted and approved dealer orders stay unsold, both free their serials
+            boolean freed = decision.equalsIgnoreCase("Disagree")
+                    || (decision.equalsIgnoreCase("Agree") && order.getCustomerId() <= 0);
+            try {
+                for (Map.Entry<Integer, List<String>> entry : serialsByVariant.entrySet()) {
+                    if (freed) {
+                        serialPool.release(entry.getKey(), entry.getValue());
+                    } else {
+                        serialPool.remove(entry.getKey(), entry.getValue());
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to update serial pool for order_id = " + orderId + ": " + e.getMessage());
+            }
             return true;
 
         } catch (Exception e) {
@@ -299,36 +351,70 @@ public class OrderService {
         }
     }
 
-    public List<Map<String, Object>> GetListOrderByDealerStaffId(int userId, int roleId, int dealerId) {
+    /**
+     * One page of the orders a manager (whole dealer) or staff member (own
+     * orders) can see.
+     *
+     * @throws IllegalArgumentException for an unknown sort key or a bad cursor
+     */
+    public Page<Map<String, Object>> GetListOrderByDealerStaffId(int userId, int roleId, int dealerId, PageRequest page) {
         List<Map<String, Object>> enrichedOrderList = new ArrayList<>();
         try {
-            List<OrderDTO> orderList;
+            Page<OrderDTO> orderPage;
             if (roleId == 2) {
-                orderList = orderDAO.getAllByDealerId(dealerId);
+                orderPage = orderDAO.getAllByDealerId(dealerId, page);
             } else {
                 // If staff, get only their orders
-                orderList = orderDAO.getByStaffId(userId);
+                orderPage = orderDAO.getByStaffId(userId, page);
             }
 
-            if (orderList == null || orderList.isEmpty()) {
-                return Collections.emptyList();
+            List<OrderDTO> orderList = orderPage.getItems();
+            if (orderList.isEmpty()) {
+                return new Page<>(Collections.<Map<String, Object>>emptyList(), null);
+            }
+
+            // Load related rows for all orders at once (one IN query per table)
+            List<Integer> orderIds = new ArrayList<>();
+            List<Integer> staffIds = new ArrayList<>();
+            List<Integer> modelIds = new ArrayList<>();
+            for (OrderDTO order : orderList) {
+                orderIds.add(order.getOrderId());
+                staffIds.add(order.getDealerStaffId());
+                modelIds.add(order.getModelId());
+            }
+
+            Map<Integer, OrderDetailDTO> detailByOrder = orderDetailDAO.getFirstOrderDetailByOrderIds(orderIds);
+            Map<Integer, UserAccountDTO> staffById = userDAO.getUsersByIds(staffIds);
+            Map<Integer, VehicleModelDTO> modelById = modelDAO.getModelsByIds(modelIds);
+
+            List<String> serialIds = new ArrayList<>();
+            for (OrderDetailDTO detail : detailByOrder.values()) {
+                if (detail.getSerialId() != null && !detail.getSerialId().trim().isEmpty()) {
+                    serialIds.add(detail.getSerialId());
+                }
+            }
+            Map<String, VehicleSerialDTO> serialById = vehicleSerialDAO.getSerialsByIds(serialIds);
+
+            List<Integer> variantIds = new ArrayList<>();
+            for (VehicleSerialDTO serial : serialById.values()) {
+                if (serial.getVariantId() > 0) {
+                    variantIds.add(serial.getVariantId());
+                }
             }
+            Map<Integer, VehicleVariantDTO> variantById = variantDAO.getVariantsByIds(variantIds);
 
             for (OrderDTO order : orderList) {
                 // Get order detail
-                OrderDetailDTO detail = orderDetailDAO.getOrderDetailByOrderId(order.getOrderId());
+                OrderDetailDTO detail = detailByOrder.get(order.getOrderId());
                 order.setDetail(detail);
 
                 // Get dealer staff name
-                UserAccountDTO dealerStaff = userDAO.getUserById(order.getDealerStaffId());
+                UserAccountDTO dealerStaff = staffById.get(order.getDealerStaffId());
                 String staffName = (dealerStaff != null) ? dealerStaff.getUsername() : "Unknown";
 
                 // Get model name
-                String modelName = "Unknown";
-                List<VehicleModelDTO> modelList = modelDAO.viewVehicleModelById(order.getModelId());
-                if (modelList != null && !modelList.isEmpty()) {
-                    modelName = modelList.get(0).getModelName();
-                }
+                VehicleModelDTO model = modelById.get(order.getModelId());
+                String modelName = (model != null) ? model.getModelName() : "Unknown";
 
                 // Get variant name and serial_id from order detail
                 String variantName = null;
@@ -339,9 +425,9 @@ public class OrderService {
 
                     // Get variant info from serial_id
                     if (serialId != null && !serialId.trim().isEmpty()) {
-                        VehicleSerialDTO vehicleSerial = vehicleSerialDAO.getSerialBySerialId(serialId);
+                        VehicleSerialDTO vehicleSerial = serialById.get(serialId);
                         if (vehicleSerial != null && vehicleSerial.getVariantId() > 0) {
-                            VehicleVariantDTO variant = variantDAO.getVariantById(vehicleSerial.getVariantId());
+                            VehicleVariantDTO variant = variantById.get(vehicleSerial.getVariantId());
                             if (variant != null) {
                                 variantName = variant.getVersionName();
                             }
@@ -366,10 +452,12 @@ public class OrderService {
                 enrichedOrderList.add(orderMap);
             }
 
-            return enrichedOrderList;
+            return new Page<>(enrichedOrderList, orderPage.getNextCursor());
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
-            return Collections.emptyList();
+            return new Page<>(Collections.<Map<String, Object>>emptyList(), null);
         }
     }
 
@@ -432,13 +520,17 @@ public class OrderService {
         }
     }
 
-    public List<Map<String, Object>> retrieveOrdersWithConfirmedDetails()
+    public RowCursor<Map<String, Object>> openOrdersWithConfirmedDetails()
             throws SQLException, ClassNotFoundException {
-        return orderDAO.retrieveOrdersWithConfirmedDetails();
+        return orderDAO.openOrdersWithConfirmedDetails();
     }
 
-    public List<ConfirmationDTO> getAllConfirmation() throws SQLException, ClassNotFoundException {
-        return confirmationDAO.viewConfirmations();
+    public Page<ConfirmationDTO> getConfirmationsPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return confirmationDAO.getConfirmationsPage(page);
+    }
+
+    public RowCursor<ConfirmationDTO> openAllConfirmations(PageRequest page) throws SQLException, ClassNotFoundException {
+        return confirmationDAO.openConfirmations(page);
     }
 
     public List<ConfirmationDTO> getConfirmationByOrderDetailId(int orderDetailId)
@@ -512,7 +604,12 @@ public class OrderService {
 
     public Map<String, Object> getCompanyYearlySalesTarget(Integer year) {
         try {
-            return orderDAO.calculateCompanyYearlySalesTarget(year);
+            if (year == null) {
+                year = java.time.Year.now().getValue(); // Current year
+            }
+            Map<String, Object> result = rollupDAO.getTotals(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+            result.put("year", year);
+            return result;
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             Map<String, Object> errorResult = new HashMap<>();
@@ -528,7 +625,10 @@ public class OrderService {
 
     public List<Map<String, Object>> getCompanyMonthlyBreakdown(Integer year) {
         try {
-            return orderDAO.calculateCompanyMonthlyBreakdown(year);
+            if (year == null) {
+                year = java.time.Year.now().getValue();
+            }
+            return rollupDAO.getMonthlyTotals(year);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return new ArrayList<>();
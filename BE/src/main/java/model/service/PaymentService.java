@@ -1,213 +1,201 @@
 package model.service;
 
-import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.logging.Logger;
 import model.dao.*;
 import model.dto.*;
+import utils.DbUtils;
+import utils.ServiceRegistry;
 
 public class PaymentService {
 
-    private final PaymentDAO paymentDAO = new PaymentDAO();
-    private final InstallmentPlanDAO installDAO = new InstallmentPlanDAO();
-    private final OrderDAO orderDAO = new OrderDAO();
-    private final OrderDetailDAO orderDetailDAO = new OrderDetailDAO();
-    private final UserAccountDAO userAccountDAO = new UserAccountDAO();
-    private final DealerDAO dealerDAO = new DealerDAO();
-    private final DealerPromotionDAO dealerPromoDAO = new DealerPromotionDAO();
-    private final CustomerDAO customerDAO = new CustomerDAO();
-    private final VehicleModelDAO modelDAO = new VehicleModelDAO();
-    private final VehicleVariantDAO variantDAO = new VehicleVariantDAO();
-    private final VehicleSerialDAO serialDAO = new VehicleSerialDAO();
+    private final PaymentDAO paymentDAO = ServiceRegistry.get(PaymentDAO.class);
+    private final InstallmentPlanDAO installDAO = ServiceRegistry.get(InstallmentPlanDAO.class);
+    private final CustomerDebtLedgerService ledgerService = ServiceRegistry.get(CustomerDebtLedgerService.class);
+    private final PromotionEngine promotionEngine = ServiceRegistry.get(PromotionEngine.class);
 
-    public PaymentDTO processPayment(int orderId, String method, InstallmentPlanDTO plan, Integer promoId) throws ClassNotFoundException, SQLException {
-        System.out.println("DEBUG: Starting payment processing for order_id = " + orderId);
+    private static final Logger LOG = Logger.getLogger(PaymentService.class.getName());
 
-        OrderDTO order = orderDAO.getById(orderId);
-        if (order == null) {
-            System.err.println("ERROR: Order not found for order_id = " + orderId);
-            throw new IllegalArgumentException("Order not found for order_id = " + orderId);
-        }
-        System.out.println("DEBUG: Order found - customer_id = " + order.getCustomerId());
+    /**
+     * Create the payment of an order, with its installment plan unless the
+     * method is TT. The order, its details, its dealer and any existing
+     * payment are read in one batch inside the same transaction as the
+     * inserts (see {@link PaymentDAO#loadCheckout}); the promotion comes from
+     * {@link PromotionEngine}.
+     */
+    public PaymentDTO processPayment(int orderId, String method, InstallmentPlanDTO plan, Integer promoId) throws ClassNotFoundException, SQLException {
+        LOG.fine(() -> "Processing payment for order " + orderId);
 
-        // Check if customer ID is valid (not 0)
-        if (order.getCustomerId() <= 0) {
-            System.err.println("ERROR: Invalid customer ID (" + order.getCustomerId() + ") for order: " + orderId);
-            throw new IllegalArgumentException("Invalid customer ID for order: " + orderId);
-        }
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
 
-        // Check if payment already exists
-        System.out.println("DEBUG: Checking for existing payment...");
-        PaymentDTO existingPayment = paymentDAO.findPaymentByOrderId(orderId);
-        if (existingPayment != null) {
-            System.err.println("ERROR: Payment already exists for Order ID: " + orderId + ", Payment ID: " + existingPayment.getPaymentId());
-            throw new IllegalStateException("Payment already exists for Order ID: " + orderId);
-        }
-        System.out.println("DEBUG: No existing payment found");
+            PaymentCheckoutDTO checkout = paymentDAO.loadCheckout(conn, orderId);
+            if (checkout == null) {
+                throw new IllegalArgumentException("Order not found for order_id = " + orderId);
+            }
+            OrderDTO order = checkout.getOrder();
+            if (order.getCustomerId() <= 0) {
+                throw new IllegalArgumentException("Invalid customer ID for order: " + orderId);
+            }
+            if (checkout.getExistingPaymentId() > 0) {
+                LOG.fine(() -> "Order " + orderId + " already has payment " + checkout.getExistingPaymentId());
+                throw new IllegalStateException("Payment already exists for Order ID: " + orderId);
+            }
 
-        List<OrderDetailDTO> detail = orderDetailDAO.getOrderDetailListByOrderId(orderId);
-        if (detail == null) {
-            return null;
-        }
-        order.setDetails(detail);
-
-        double totalAmount = 0.0;
-        for (OrderDetailDTO d : detail) {
-            try {
-                int quantity = Integer.parseInt(d.getQuantity());
-                double unitPrice = d.getUnitPrice();
-                totalAmount += quantity * unitPrice;
-            } catch (NumberFormatException e) {
-                e.printStackTrace();
-                return null;
+            double totalAmount = 0.0;
+            for (OrderDetailDTO d : order.getDetails()) {
+                try {
+                    int quantity = Integer.parseInt(d.getQuantity());
+                    totalAmount += quantity * d.getUnitPrice();
+                } catch (NumberFormatException e) {
+                    e.printStackTrace();
+                    conn.rollback();
+                    return null;
+                }
             }
-        }
 
-        // Apply promotion if promoId is provided
-        if (promoId != null && promoId > 0) {
-            System.out.println("DEBUG: Promotion ID provided: " + promoId);
-
-            // Get dealer information from order
-            UserAccountDTO staff = userAccountDAO.getUserById(order.getDealerStaffId());
-            if (staff != null) {
-                DealerDTO dealer = dealerDAO.GetDealerById(staff.getDealerId());
-                if (dealer != null) {
-                    System.out.println("DEBUG: Dealer found - dealer_id = " + dealer.getDealerId());
-
-                    // Get all promotions for this dealer
-                    List<PromotionDTO> dealerPromotions = dealerPromoDAO.getPromotionsByDealerId(dealer.getDealerId());
-
-                    // Find the specific promotion and validate it belongs to this dealer
-                    PromotionDTO selectedPromo = null;
-                    for (PromotionDTO promo : dealerPromotions) {
-                        if (promo.getPromoId() == promoId) {
-                            selectedPromo = promo;
-                            break;
-                        }
-                    }
+            if (promoId != null && promoId > 0) {
+                totalAmount = applyPromotion(checkout, promoId, totalAmount);
+            } else {
+                LOG.fine("No promotion applied");
+            }
 
-                    if (selectedPromo == null) {
-                        System.err.println("ERROR: Promotion ID " + promoId + " not found for dealer " + dealer.getDealerId());
-                        throw new IllegalArgumentException("Invalid promotion: Promotion does not belong to this dealer");
-                    }
+            PaymentDTO payment = new PaymentDTO();
+            payment.setOrderId(orderId);
+            payment.setAmount(totalAmount);
+            payment.setPaymentDate(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            payment.setMethod(method != null ? method : "TT");
 
-                    System.out.println("DEBUG: Valid promotion found for dealer");
+            boolean paymentCreated = paymentDAO.create(conn, payment);
+            if (!paymentCreated) {
+                conn.rollback();
+                return null;
+            }
 
-                    // Check if promotion is currently active
-                    LocalDate now = LocalDate.now();
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+            if (!"TT".equalsIgnoreCase(method)) {
+                if (plan == null) {
+                    plan = new InstallmentPlanDTO();
+                    plan.setInterestRate("0");
+                    plan.setTermMonth("12");
+                    plan.setStatus("Active");
+                }
 
+                if (plan.getMonthlyPay() == null || "0".equals(plan.getMonthlyPay()) || "".equals(plan.getMonthlyPay())) {
                     try {
-                        if (selectedPromo.getStartDate() == null || selectedPromo.getEndDate() == null) {
-                            System.err.println("ERROR: Promotion has invalid dates");
-                            throw new IllegalArgumentException("Promotion has invalid date range");
-                        }
-
-                        LocalDate start = LocalDate.parse(selectedPromo.getStartDate(), formatter);
-                        LocalDate end = LocalDate.parse(selectedPromo.getEndDate(), formatter);
-
-                        if (!((now.isEqual(start) || now.isAfter(start)) && (now.isEqual(end) || now.isBefore(end)))) {
-                            System.err.println("ERROR: Promotion is not active during current date");
-                            throw new IllegalArgumentException("Promotion is not currently active");
+                        int termMonths = 12;
+                        if (plan.getTermMonth() != null) {
+                            termMonths = Integer.parseInt(plan.getTermMonth());
                         }
-
-                        // Apply discount
-                        String discountStr = selectedPromo.getDiscountRate();
-                        if (discountStr != null && !discountStr.trim().isEmpty()) {
-                            discountStr = discountStr.replace("%", "").trim();
-                            double discount = Double.parseDouble(discountStr);
-
-                            // Normalize discount to percentage (0-100)
-                            if (discount > 0 && discount < 1) {
-                                discount = discount * 100;
-                            }
-
-                            double discountAmount = totalAmount * (discount / 100.0);
-                            totalAmount = totalAmount - discountAmount;
-
-                            System.out.println("DEBUG: Discount applied - " + discount + "%, Amount saved: " + discountAmount);
-                            System.out.println("DEBUG: New total amount: " + totalAmount);
+                        if (termMonths <= 0) {
+                            termMonths = 1;
                         }
-
-                    } catch (DateTimeParseException ex) {
-                        System.err.println("ERROR: Failed to parse promotion dates");
-                        throw new IllegalArgumentException("Invalid promotion date format");
-                    } catch (NumberFormatException ex) {
-                        System.err.println("ERROR: Failed to parse discount rate");
-                        throw new IllegalArgumentException("Invalid discount rate format");
+                        double monthlyPayment = totalAmount / termMonths;
+                        plan.setMonthlyPay(String.valueOf(monthlyPayment));
+                    } catch (NumberFormatException e) {
+                        plan.setMonthlyPay(String.valueOf(totalAmount));
                     }
-
-                } else {
-                    System.err.println("ERROR: Dealer not found for staff");
-                    throw new IllegalArgumentException("Dealer information not found");
                 }
-            } else {
-                System.err.println("ERROR: Staff not found for order");
-                throw new IllegalArgumentException("Staff information not found");
-            }
-        } else {
-            System.out.println("DEBUG: No promotion applied");
-        }
 
-        PaymentDTO payment = new PaymentDTO();
-        payment.setOrderId(orderId);
-        payment.setAmount(totalAmount);
-        payment.setPaymentDate(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        payment.setMethod(method != null ? method : "TT");
+                plan.setPaymentId(payment.getPaymentId());
+                InstallmentPlanDTO createdPlan = installDAO.create(conn, plan);
+                payment.setInstallmentPlan(createdPlan);
 
-        boolean paymentCreated = paymentDAO.create(payment);
-        if (!paymentCreated) {
-            return null;
-        }
-
-        if (!"TT".equalsIgnoreCase(method)) {
-            if (plan == null) {
-                plan = new InstallmentPlanDTO();
-                plan.setInterestRate("0");
-                plan.setTermMonth("12");
-                plan.setStatus("Active");
-            }
-
-            if (plan.getMonthlyPay() == null || "0".equals(plan.getMonthlyPay()) || "".equals(plan.getMonthlyPay())) {
-                try {
-                    int termMonths = 12;
-                    if (plan.getTermMonth() != null) {
-                        termMonths = Integer.parseInt(plan.getTermMonth());
-                    }
-                    if (termMonths <= 0) {
-                        termMonths = 1;
-                    }
-                    double monthlyPayment = totalAmount / termMonths;
-                    plan.setMonthlyPay(String.valueOf(monthlyPayment));
-                } catch (NumberFormatException e) {
-                    plan.setMonthlyPay(String.valueOf(totalAmount));
+                // Owning dealer of the order, for the debt ledger
+                if (checkout.isStaffFound()) {
+                    ledgerService.applyPlanChange(conn, checkout.getStaffDealerId(), order.getCustomerId(),
+                            null, createdPlan, payment.getAmount());
                 }
             }
 
-            plan.setPaymentId(payment.getPaymentId());
-            InstallmentPlanDTO createdPlan = installDAO.create(plan);
-            payment.setInstallmentPlan(createdPlan);
+            conn.commit();
+            LOG.fine(() -> "Payment " + payment.getPaymentId() + " created for order " + orderId);
+            return payment;
+        } catch (SQLException | RuntimeException e) {
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
         }
+    }
 
-        return payment;
+    // The total after the promotion, which must belong to the order's dealer and be running today
+    private double applyPromotion(PaymentCheckoutDTO checkout, int promoId, double totalAmount)
+            throws SQLException, ClassNotFoundException {
+        if (!checkout.isStaffFound()) {
+            throw new IllegalArgumentException("Staff information not found");
+        }
+        if (checkout.getDealerId() <= 0) {
+            throw new IllegalArgumentException("Dealer information not found");
+        }
+        double discounted = promotionEngine.apply(checkout.getDealerId(), promoId, LocalDate.now(), totalAmount);
+        LOG.fine(() -> "Promotion " + promoId + " applied, total " + totalAmount + " -> " + discounted);
+        return discounted;
     }
 
     public InstallmentPlanDTO updateInstallmentPlanStatus(InstallmentPlanDTO plan) {
+        Connection conn = null;
         try {
-            boolean updated = installDAO.updateStatus(plan); // updates status and term_month
-            if (updated) {
-                // Reload the full updated record from DB
-                return installDAO.findById(plan.getPlanId());
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
+
+            // Lock the plan and read its current state, the ledger is moved by the difference
+            final InstallmentPlanDTO[] before = {null};
+            final double[] paymentAmount = {0};
+            final int[] owner = {0, 0}; // dealerId, customerId
+            installDAO.forEachPlanDebtSource(conn, plan.getPlanId(), (current, amount, dealerId, customerId) -> {
+                before[0] = current;
+                paymentAmount[0] = amount;
+                owner[0] = dealerId;
+                owner[1] = customerId;
+            });
+
+            boolean updated = installDAO.updateStatus(conn, plan); // updates status and term_month
+            if (!updated) {
+                conn.rollback();
+                return null;
             }
-            return null;
-        } catch (ClassNotFoundException e) {
+
+            if (before[0] != null && owner[1] > 0) {
+                InstallmentPlanDTO after = installDAO.findById(conn, plan.getPlanId());
+                ledgerService.applyPlanChange(conn, owner[0], owner[1], before[0], after, paymentAmount[0]);
+            }
+
+            // Reload the full updated record from DB
+            InstallmentPlanDTO result = installDAO.findById(conn, plan.getPlanId());
+            conn.commit();
+            return result;
+        } catch (Exception e) {
             e.printStackTrace();
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
             return null;
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
         }
     }
 
@@ -215,7 +203,7 @@ public class PaymentService {
         try {
             return paymentDAO.findPaymentById(orderId);
         } catch (IndexOutOfBoundsException e) {
-            System.out.println("No payment found for Order ID " + orderId);
+            LOG.fine(() -> "No payment found for Order ID " + orderId);
             return null;
         } catch (Exception e) {
             e.printStackTrace();
@@ -226,167 +214,10 @@ public class PaymentService {
     public List<Map<String, Object>> getCustomersWithActiveInstallmentsByDealer(int dealerId) {
         List<Map<String, Object>> responseList = new ArrayList<>();
         try {
-            List<InstallmentPlanDTO> plans = installDAO.getActiveOrOverduePlans();
-            if (plans == null || plans.isEmpty()) {
-                return responseList;
-            }
-
-            for (InstallmentPlanDTO plan : plans) {
-                PaymentDTO payment = paymentDAO.findPaymentById(plan.getPaymentId());
-                if (payment == null) {
-                    continue;
-                }
-
-                OrderDTO order = orderDAO.getById(payment.getOrderId());
-                if (order == null) {
-                    continue;
-                }
-
-                // Check if order belongs to the dealer
-                UserAccountDTO dealerStaff = userAccountDAO.getUserById(order.getDealerStaffId());
-                if (dealerStaff == null || dealerStaff.getDealerId() != dealerId) {
-                    continue;
-                }
-
-                // Get dealer name
-                String dealerName = "Unknown";
-                DealerDTO dealer = dealerDAO.GetDealerById(dealerId);
-                if (dealer != null) {
-                    dealerName = dealer.getDealerName();
-                }
-
-                int customerId = order.getCustomerId();
-                if (customerId <= 0) {
-                    continue;
-                }
-
-                List<CustomerDTO> customerList = customerDAO.findById(customerId);
-                if (customerList == null || customerList.isEmpty()) {
-                    continue;
-                }
-                CustomerDTO customer = customerList.get(0);
-
-                // Get model information
-                int modelId = order.getModelId();
-                String modelName = "Unknown";
-                List<VehicleModelDTO> modelList = modelDAO.viewVehicleModelById(modelId);
-                if (modelList != null && !modelList.isEmpty()) {
-                    modelName = modelList.get(0).getModelName();
-                }
-
-                // Get order detail for serial_id
-                OrderDetailDTO detail = orderDetailDAO.getOrderDetailByOrderId(order.getOrderId());
-                String serialId = null;
-                Integer variantId = null;
-                String variantName = null;
-
-                if (detail != null) {
-                    serialId = detail.getSerialId();
-
-                    if (serialId != null && !serialId.trim().isEmpty()) {
-                        VehicleSerialDTO vehicleSerial = serialDAO.getSerialBySerialId(serialId);
-                        if (vehicleSerial != null && vehicleSerial.getVariantId() > 0) {
-                            variantId = vehicleSerial.getVariantId();
-                            VehicleVariantDTO variant = variantDAO.getVariantById(variantId);
-                            if (variant != null) {
-                                variantName = variant.getVersionName();
-                            }
-                        }
-                    }
-                }
-
-                // Parse values
-                double monthlyPay = 0.0;
-                int remainingTermMonth = 0;
-
-                try {
-                    monthlyPay = Double.parseDouble(plan.getMonthlyPay());
-                } catch (NumberFormatException e) {
-                    System.err.println("Invalid monthlyPay for plan " + plan.getPlanId());
-                }
-
-                try {
-                    remainingTermMonth = Integer.parseInt(plan.getTermMonth());
-                } catch (NumberFormatException e) {
-                    System.err.println("Invalid termMonth for plan " + plan.getPlanId());
-                }
-
-                // ===== CORRECTED CALCULATION LOGIC =====
-                // Calculate original term from payment.getAmount() (total with interest)
-                // payment.getAmount() should contain the full installment amount
-                int originalTermMonth = 0;
-                if (monthlyPay > 0) {
-                    originalTermMonth = (int) Math.round(payment.getAmount() / monthlyPay);
-                }
-
-                // Fallback: if calculation gives unreasonable result, use remaining term
-                if (originalTermMonth <= 0 || originalTermMonth < remainingTermMonth) {
-                    originalTermMonth = remainingTermMonth;
-                }
-
-                // Calculate amounts based on monthly payment schedule
-                double totalAmountWithInterest = monthlyPay * originalTermMonth;
-                double outstanding = monthlyPay * remainingTermMonth;
-                int paidMonths = originalTermMonth - remainingTermMonth;
-                double paidAmount = monthlyPay * paidMonths;
-
-                // Ensure non-negative values
-                outstanding = Math.max(0, outstanding);
-                paidAmount = Math.max(0, paidAmount);
-
-                // If remaining term is 0, plan is fully paid
-                if (remainingTermMonth <= 0) {
-                    outstanding = 0.0;
-                    paidAmount = totalAmountWithInterest;
-                }
-
-                // Format numbers to avoid scientific notation
-                DecimalFormat df = new DecimalFormat("0.00");
-                df.setMaximumFractionDigits(2);
-                df.setMinimumFractionDigits(0);
-                df.setGroupingUsed(false);
-
-                Map<String, Object> map = new LinkedHashMap<>();
-
-                // Customer info
-                map.put("customerId", customer.getCustomerId());
-                map.put("name", customer.getName());
-                map.put("address", customer.getAddress());
-                map.put("email", customer.getEmail());
-                map.put("phoneNumber", customer.getPhoneNumber());
-
-                // Vehicle info
-                map.put("modelId", modelId);
-                map.put("modelName", modelName);
-                map.put("variantId", variantId);
-                map.put("variantName", variantName);
-                map.put("serialId", serialId);
-
-                // Dealer info
-                map.put("dealerId", dealerId);
-                map.put("dealerName", dealerName);
-
-                // Installment plan info
-                map.put("planId", plan.getPlanId());
-                map.put("interestRate", plan.getInterestRate());
-                map.put("originalTermMonth", originalTermMonth);  // Add this
-                map.put("remainingTermMonth", remainingTermMonth); // Rename for clarity
-                map.put("paidMonths", paidMonths);                // Add this
-                map.put("monthlyPay", Double.parseDouble(df.format(monthlyPay)));
-                map.put("status", plan.getStatus());
-
-                // Payment info - format to avoid scientific notation
-                map.put("paymentId", payment.getPaymentId());
-                map.put("orderId", payment.getOrderId());
-                map.put("totalAmount", Double.parseDouble(df.format(totalAmountWithInterest)));
-                map.put("paymentDate", payment.getPaymentDate());
-                map.put("method", payment.getMethod());
-                map.put("outstandingAmount", Double.parseDouble(df.format(outstanding)));
-                map.put("paidAmount", Double.parseDouble(df.format(paidAmount)));
-
-                responseList.add(map);
-            }
-
+            installDAO.forEachActivePlanByDealer(dealerId,
+                    (plan, payment, order, customer, dealerName, modelName, serialId, variantId, variantName)
+                    -> responseList.add(buildInstallmentRow(dealerId, plan, payment, order, customer,
+                            dealerName, modelName, serialId, variantId, variantName)));
         } catch (Exception e) {
             System.err.println("ERROR in getCustomersWithActiveInstallmentsByDealer: " + e.getMessage());
             e.printStackTrace();
@@ -394,127 +225,154 @@ public class PaymentService {
         return responseList;
     }
 
-    public List<Map<String, Object>> getCustomersWithTTStatusByDealer(int dealerId) {
-        List<Map<String, Object>> responseList = new ArrayList<>();
-        try {
-            List<PaymentDTO> allPayments = paymentDAO.getAllPayment();
-            if (allPayments == null || allPayments.isEmpty()) {
-                return responseList;
-            }
-
-            // Get dealer name once (optimization)
-            String dealerName = "Unknown";
-            DealerDTO dealer = dealerDAO.GetDealerById(dealerId);
-            if (dealer != null) {
-                dealerName = dealer.getDealerName();
-            }
+    private Map<String, Object> buildInstallmentRow(int dealerId, InstallmentPlanDTO plan, PaymentDTO payment,
+            OrderDTO order, CustomerDTO customer, String dealerName, String modelName,
+            String serialId, Integer variantId, String variantName) {
+        int modelId = order.getModelId();
+        if (dealerName == null) {
+            dealerName = "Unknown";
+        }
+        if (modelName == null) {
+            modelName = "Unknown";
+        }
 
-            for (PaymentDTO payment : allPayments) {
-                if (!"TT".equalsIgnoreCase(payment.getMethod())) {
-                    continue;
-                }
+        // Parse values
+        double monthlyPay = 0.0;
+        int remainingTermMonth = 0;
 
-                OrderDTO order = orderDAO.getById(payment.getOrderId());
-                if (order == null) {
-                    continue;
-                }
+        try {
+            monthlyPay = Double.parseDouble(plan.getMonthlyPay());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid monthlyPay for plan " + plan.getPlanId());
+        }
 
-                // 🔍 Check dealer ownership (same logic as installment)
-                UserAccountDTO dealerStaff = userAccountDAO.getUserById(order.getDealerStaffId());
-                if (dealerStaff == null || dealerStaff.getDealerId() != dealerId) {
-                    continue; // skip if not from this dealer
-                }
+        try {
+            remainingTermMonth = Integer.parseInt(plan.getTermMonth());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid termMonth for plan " + plan.getPlanId());
+        }
 
-                int customerId = order.getCustomerId();
-                if (customerId <= 0) {
-                    continue;
-                }
+        // ===== CORRECTED CALCULATION LOGIC =====
+        // Calculate original term from payment.getAmount() (total with interest)
+        // payment.getAmount() should contain the full installment amount
+        int originalTermMonth = 0;
+        if (monthlyPay > 0) {
+            originalTermMonth = (int) Math.round(payment.getAmount() / monthlyPay);
+        }
 
-                List<CustomerDTO> customerList = customerDAO.findById(customerId);
-                if (customerList == null || customerList.isEmpty()) {
-                    continue;
-                }
+        // Fallback: if calculation gives unreasonable result, use remaining term
+        if (originalTermMonth <= 0 || originalTermMonth < remainingTermMonth) {
+            originalTermMonth = remainingTermMonth;
+        }
 
-                CustomerDTO customer = customerList.get(0);
+        // Calculate amounts based on monthly payment schedule
+        double totalAmountWithInterest = monthlyPay * originalTermMonth;
+        double outstanding = monthlyPay * remainingTermMonth;
+        int paidMonths = originalTermMonth - remainingTermMonth;
+        double paidAmount = monthlyPay * paidMonths;
 
-                // Get model information
-                int modelId = order.getModelId();
-                String modelName = "Unknown";
-                List<VehicleModelDTO> modelList = modelDAO.viewVehicleModelById(modelId);
-                if (modelList != null && !modelList.isEmpty()) {
-                    modelName = modelList.get(0).getModelName();
-                }
+        // Ensure non-negative values
+        outstanding = Math.max(0, outstanding);
+        paidAmount = Math.max(0, paidAmount);
 
-                // Get order detail for serial_id and variant info
-                OrderDetailDTO detail = orderDetailDAO.getOrderDetailByOrderId(order.getOrderId());
-                String serialId = null;
-                Integer variantId = null;
-                String variantName = null;
-
-                if (detail != null) {
-                    serialId = detail.getSerialId();
-
-                    // Get variant info from serial_id
-                    if (serialId != null && !serialId.trim().isEmpty()) {
-                        VehicleSerialDTO vehicleSerial = serialDAO.getSerialBySerialId(serialId);
-                        if (vehicleSerial != null && vehicleSerial.getVariantId() > 0) {
-                            variantId = vehicleSerial.getVariantId();
-                            VehicleVariantDTO variant = variantDAO.getVariantById(variantId);
-                            if (variant != null) {
-                                variantName = variant.getVersionName();
-                            }
-                        }
-                    }
-                }
+        // If remaining term is 0, plan is fully paid
+        if (remainingTermMonth <= 0) {
+            outstanding = 0.0;
+            paidAmount = totalAmountWithInterest;
+        }
 
-                // Get order details for calculated total
-                List<OrderDetailDTO> orderDetails = orderDetailDAO.getOrderDetailListByOrderId(payment.getOrderId());
-                double calculatedTotal = 0.0;
-                if (orderDetails != null && !orderDetails.isEmpty()) {
-                    for (OrderDetailDTO od : orderDetails) {
-                        try {
-                            int quantity = Integer.parseInt(od.getQuantity());
-                            double unitPrice = od.getUnitPrice();
-                            calculatedTotal += quantity * unitPrice;
-                        } catch (NumberFormatException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                }
+        // Format numbers to avoid scientific notation
+        DecimalFormat df = new DecimalFormat("0.00");
+        df.setMaximumFractionDigits(2);
+        df.setMinimumFractionDigits(0);
+        df.setGroupingUsed(false);
+
+        Map<String, Object> map = new LinkedHashMap<>();
+
+        // Customer info
+        map.put("customerId", customer.getCustomerId());
+        map.put("name", customer.getName());
+        map.put("address", customer.getAddress());
+        map.put("email", customer.getEmail());
+        map.put("phoneNumber", customer.getPhoneNumber());
+
+        // Vehicle info
+        map.put("modelId", modelId);
+        map.put("modelName", modelName);
+        map.put("variantId", variantId);
+        map.put("variantName", variantName);
+        map.put("serialId", serialId);
+
+        // Dealer info
+        map.put("dealerId", dealerId);
+        map.put("dealerName", dealerName);
+
+        // Installment plan info
+        map.put("planId", plan.getPlanId());
+        map.put("interestRate", plan.getInterestRate());
+        map.put("originalTermMonth", originalTermMonth);  // Add this
+        map.put("remainingTermMonth", remainingTermMonth); // Rename for clarity
+        map.put("paidMonths", paidMonths);                // Add this
+        map.put("monthlyPay", Double.parseDouble(df.format(monthlyPay)));
+        map.put("status", plan.getStatus());
+
+        // Payment info - format to avoid scientific notation
+        map.put("paymentId", payment.getPaymentId());
+        map.put("orderId", payment.getOrderId());
+        map.put("totalAmount", Double.parseDouble(df.format(totalAmountWithInterest)));
+        map.put("paymentDate", payment.getPaymentDate());
+        map.put("method", payment.getMethod());
+        map.put("outstandingAmount", Double.parseDouble(df.format(outstanding)));
+        map.put("paidAmount", Double.parseDouble(df.format(paidAmount)));
+
+        return map;
+    }
 
-                double totalAmount = payment.getAmount();
-
-                Map<String, Object> map = new LinkedHashMap<>();
-                // Customer info
-                map.put("customerId", customer.getCustomerId());
-                map.put("name", customer.getName());
-                map.put("address", customer.getAddress());
-                map.put("email", customer.getEmail());
-                map.put("phoneNumber", customer.getPhoneNumber());
-
-                // Vehicle info
-                map.put("modelId", modelId);
-                map.put("modelName", modelName);
-                map.put("variantId", variantId);
-                map.put("variantName", variantName);
-                map.put("serialId", serialId);
-
-                // Dealer info
-                map.put("dealerId", dealerId);
-                map.put("dealerName", dealerName);
-
-                // Payment info
-                map.put("paymentId", payment.getPaymentId());
-                map.put("orderId", payment.getOrderId());
-                map.put("totalAmount", totalAmount);
-                map.put("calculatedTotal", calculatedTotal);
-                map.put("paymentDate", payment.getPaymentDate());
-                map.put("method", payment.getMethod());
-                map.put("paidAmount", totalAmount);
-
-                responseList.add(map);
-            }
+    public List<Map<String, Object>> getCustomersWithTTStatusByDealer(int dealerId) {
+        return getCustomersWithTTStatusByDealer(dealerId, 0, 0);
+    }
 
+    /**
+     * One page of the dealer's TT payments, ordered by paymentId. Pass the last
+     * paymentId of the previous page as {@code afterPaymentId}; limit 0 returns all.
+     */
+    public List<Map<String, Object>> getCustomersWithTTStatusByDealer(int dealerId, int afterPaymentId, int limit) {
+        List<Map<String, Object>> responseList = new ArrayList<>();
+        try {
+            paymentDAO.forEachPaymentByDealerAndMethod(dealerId, "TT", afterPaymentId, limit,
+                    (payment, order, customer, dealerName, modelName, serialId, variantId, variantName, calculatedTotal) -> {
+                        double totalAmount = payment.getAmount();
+
+                        Map<String, Object> map = new LinkedHashMap<>();
+                        // Customer info
+                        map.put("customerId", customer.getCustomerId());
+                        map.put("name", customer.getName());
+                        map.put("address", customer.getAddress());
+                        map.put("email", customer.getEmail());
+                        map.put("phoneNumber", customer.getPhoneNumber());
+
+                        // Vehicle info
+                        map.put("modelId", order.getModelId());
+                        map.put("modelName", modelName != null ? modelName : "Unknown");
+                        map.put("variantId", variantId);
+                        map.put("variantName", variantName);
+                        map.put("serialId", serialId);
+
+                        // Dealer info
+                        map.put("dealerId", dealerId);
+                        map.put("dealerName", dealerName != null ? dealerName : "Unknown");
+
+                        // Payment info
+                        map.put("paymentId", payment.getPaymentId());
+                        map.put("orderId", payment.getOrderId());
+                        map.put("totalAmount", totalAmount);
+                        map.put("calculatedTotal", calculatedTotal);
+                        map.put("paymentDate", payment.getPaymentDate());
+                        map.put("method", payment.getMethod());
+                        map.put("paidAmount", totalAmount);
+
+                        responseList.add(map);
+                    });
         } catch (Exception e) {
             System.err.println("ERROR in getCustomersWithTTStatusByDealer: " + e.getMessage());
             e.printStackTrace();
@@ -522,104 +380,28 @@ public class PaymentService {
         return responseList;
     }
 
+    /**
+     * Per-customer installment debt of a dealer, read from CustomerDebtLedger.
+     */
     public List<Map<String, Object>> getCustomerDebtSummaryByDealer(int dealerId) {
         List<Map<String, Object>> responseList = new ArrayList<>();
 
         try {
-            Map<Integer, Map<String, Object>> customerDebtMap = new LinkedHashMap<>();
-
-            List<InstallmentPlanDTO> plans = installDAO.getActiveOrOverduePlans();
-            if (plans == null || plans.isEmpty()) {
-                return responseList;
+            for (CustomerDebtLedgerDTO row : ledgerService.getLedgerByDealer(dealerId)) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("customerId", row.getCustomerId());
+                summary.put("name", row.getName());
+                summary.put("email", row.getEmail());
+                summary.put("phoneNumber", row.getPhoneNumber());
+                summary.put("dealerId", dealerId);
+
+                summary.put("totalOutstandingDebt", row.getTotalOutstandingDebt().toPlainString());
+                summary.put("totalPaidAmount", row.getTotalPaidAmount().toPlainString());
+                summary.put("totalPlans", row.getTotalPlans());
+
+                responseList.add(summary);
             }
 
-            for (InstallmentPlanDTO plan : plans) {
-
-                PaymentDTO payment = paymentDAO.findPaymentById(plan.getPaymentId());
-                if (payment == null) {
-                    continue;
-                }
-
-                OrderDTO order = orderDAO.getById(payment.getOrderId());
-                if (order == null) {
-                    continue;
-                }
-
-                // Check dealer ownership
-                UserAccountDTO dealerStaff = userAccountDAO.getUserById(order.getDealerStaffId());
-                if (dealerStaff == null || dealerStaff.getDealerId() != dealerId) {
-                    continue;
-                }
-
-                int customerId = order.getCustomerId();
-                if (customerId <= 0) {
-                    continue;
-                }
-
-                List<CustomerDTO> customerList = customerDAO.findById(customerId);
-                if (customerList == null || customerList.isEmpty()) {
-                    continue;
-                }
-
-                CustomerDTO customer = customerList.get(0);
-
-                // Safe parsing
-                BigDecimal monthlyPay = new BigDecimal(plan.getMonthlyPay() == null ? "0" : plan.getMonthlyPay());
-                int remainingTerm = parseIntSafe(plan.getTermMonth());
-                BigDecimal principal = BigDecimal.valueOf(payment.getAmount());
-
-                // Compute original term
-                int originalTerm = (monthlyPay.compareTo(BigDecimal.ZERO) > 0)
-                        ? principal.divide(monthlyPay, 0, BigDecimal.ROUND_HALF_UP).intValue()
-                        : remainingTerm;
-
-                if (originalTerm < remainingTerm) {
-                    originalTerm = remainingTerm;
-                }
-
-                // Compute totals
-                BigDecimal totalAmount = monthlyPay.multiply(BigDecimal.valueOf(originalTerm));
-                int paidMonths = Math.max(0, originalTerm - remainingTerm);
-                BigDecimal paidAmount = monthlyPay.multiply(BigDecimal.valueOf(paidMonths));
-                BigDecimal outstanding = monthlyPay.multiply(BigDecimal.valueOf(remainingTerm));
-
-                if (remainingTerm <= 0) {
-                    outstanding = BigDecimal.ZERO;
-                    paidAmount = totalAmount;
-                }
-
-                // Add or accumulate per customer
-                Map<String, Object> summary = customerDebtMap.get(customerId);
-                if (summary == null) {
-                    summary = new LinkedHashMap<>();
-                    summary.put("customerId", customer.getCustomerId());
-                    summary.put("name", customer.getName());
-                    summary.put("email", customer.getEmail());
-                    summary.put("phoneNumber", customer.getPhoneNumber());
-                    summary.put("dealerId", dealerId);
-
-                    summary.put("totalOutstandingDebt", outstanding.toPlainString());
-                    summary.put("totalPaidAmount", paidAmount.toPlainString());
-                    summary.put("totalPlans", 1);
-
-                    customerDebtMap.put(customerId, summary);
-
-                } else {
-                    BigDecimal currentDebt = new BigDecimal(summary.get("totalOutstandingDebt").toString());
-                    BigDecimal currentPaid = new BigDecimal(summary.get("totalPaidAmount").toString());
-                    int plansCount = (int) summary.get("totalPlans");
-
-                    BigDecimal updatedDebt = currentDebt.add(outstanding);
-                    BigDecimal updatedPaid = currentPaid.add(paidAmount);
-
-                    summary.put("totalOutstandingDebt", updatedDebt.toPlainString());
-                    summary.put("totalPaidAmount", updatedPaid.toPlainString());
-                    summary.put("totalPlans", plansCount + 1);
-                }
-            }
-
-            responseList.addAll(customerDebtMap.values());
-
         } catch (Exception e) {
             System.err.println("ERROR in getCustomerDebtSummaryByDealer: " + e.getMessage());
             e.printStackTrace();
@@ -628,12 +410,4 @@ public class PaymentService {
         return responseList;
     }
 
-    private int parseIntSafe(String value) {
-        try {
-            return Integer.parseInt(value);
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-
 }
@@ -0,0 +1,44 @@
+package model.service;
+
+import java.sql.SQLException;
+import model.dao.UserAccountDAO;
+import model.dto.UserAccountDTO;
+import utils.AuthException;
+import utils.JwtPrincipal;
+import utils.JwtUtil;
+import utils.UserAttributeCache;
+import utils.ServiceRegistry;
+
+/**
+ * Turns a bearer token into the request principal: verifies the token, then
+ * checks the account is still active and takes its current dealer and role
+ * from {@link UserAttributeCache}, so controllers do not look the user up.
+ */
+public class PrincipalResolver {
+
+    private final UserAccountDAO userDAO = ServiceRegistry.get(UserAccountDAO.class);
+
+    public JwtPrincipal resolve(String token) {
+        JwtPrincipal principal = JwtUtil.authenticate(token);
+        int userId = principal.getUserId();
+
+        UserAccountDTO account = UserAttributeCache.get(userId);
+        if (account == null) {
+            try {
+                account = userDAO.getUserAttributes(userId);
+            } catch (SQLException | ClassNotFoundException e) {
+                e.printStackTrace();
+                throw new AuthException("Unable to verify account");
+            }
+            if (account == null) {
+                throw new AuthException("Account not found");
+            }
+            UserAttributeCache.put(account);
+        }
+
+        if (!account.isIsActive()) {
+            throw new AuthException("Account is disabled");
+        }
+        return principal.withAccount(account.getDealerId(), account.getRoleId());
+    }
+}
@@ -0,0 +1,236 @@
+package model.service;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import model.dao.DealerPromotionDAO;
+import model.dto.PromotionDTO;
+import utils.ReferenceCache;
+import utils.ServiceRegistry;
+
+/**
+ * Dealer promotions compiled for checkout. Each promotion is parsed once into
+ * a {@link Rule} (dates as epoch days, a rate in parts per million or a fixed
+ * amount in cents) and indexed per dealer, so applying promotion P or listing
+ * the promotions running on day T is a binary search.
+ * <p>
+ * The whole index is rebuilt with one query on the first use after
+ * {@link ReferenceCache#promotionVersion()} changes, which the promotion DAOs
+ * bump on every create, delete and dealer assignment.
+ */
+public class PromotionEngine {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final long PPM = 1_000_000;
+    private static final PromotionDTO[] NONE = new PromotionDTO[0];
+
+    private final DealerPromotionDAO dealerPromotionDAO = ServiceRegistry.get(DealerPromotionDAO.class);
+    private volatile Index current;
+
+    /**
+     * One promotion, parsed. A promotion with unreadable dates or rate keeps
+     * the error, reported when someone tries to apply it.
+     */
+    private static final class Rule {
+
+        final PromotionDTO promotion;
+        // Inclusive
+        final long startDay;
+        final long endDay;
+        final boolean fixed;
+        // Parts per million of the total for a percentage, cents for a fixed amount
+        final long value;
+        final String error;
+
+        Rule(PromotionDTO promotion, long startDay, long endDay, boolean fixed, long value, String error) {
+            this.promotion = promotion;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.fixed = fixed;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    private static final class DealerRules {
+
+        // Sorted by promo id
+        final int[] promoIds;
+        final Rule[] rules;
+        // Days on which the set of running promotions changes, ascending;
+        // running[i] holds from boundaries[i] up to the next boundary
+        final long[] boundaries;
+        final PromotionDTO[][] running;
+
+        DealerRules(int[] promoIds, Rule[] rules, long[] boundaries, PromotionDTO[][] running) {
+            this.promoIds = promoIds;
+            this.rules = rules;
+            this.boundaries = boundaries;
+            this.running = running;
+        }
+    }
+
+    private static final class Index {
+
+        final long version;
+        final Map<Integer, DealerRules> byDealer;
+
+        Index(long version, Map<Integer, DealerRules> byDealer) {
+            this.version = version;
+            this.byDealer = byDealer;
+        }
+    }
+
+    /**
+     * Promotions of the dealer running on the day. The DTOs are shared, do
+     * not modify them.
+     */
+    public List<PromotionDTO> applicable(int dealerId, LocalDate day) throws SQLException, ClassNotFoundException {
+        DealerRules dealer = index().byDealer.get(dealerId);
+        if (dealer == null) {
+            return Collections.emptyList();
+        }
+        int segment = segmentOf(dealer.boundaries, day.toEpochDay());
+        return segment < 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(dealer.running[segment]));
+    }
+
+    /**
+     * The total after promotion {@code promoId} of the dealer, on the day.
+     *
+     * @throws IllegalArgumentException when the promotion is not the dealer's,
+     * not running that day or cannot be read
+     */
+    public double apply(int dealerId, int promoId, LocalDate day, double totalAmount) throws SQLException, ClassNotFoundException {
+        DealerRules dealer = index().byDealer.get(dealerId);
+        int i = dealer == null ? -1 : Arrays.binarySearch(dealer.promoIds, promoId);
+        if (i < 0) {
+            throw new IllegalArgumentException("Invalid promotion: Promotion does not belong to this dealer");
+        }
+        Rule rule = dealer.rules[i];
+        if (rule.error != null) {
+            throw new IllegalArgumentException(rule.error);
+        }
+        long epochDay = day.toEpochDay();
+        if (epochDay < rule.startDay || epochDay > rule.endDay) {
+            throw new IllegalArgumentException("Promotion is not currently active");
+        }
+
+        long totalCents = Math.round(totalAmount * 100);
+        long discountCents;
+        if (rule.fixed) {
+            discountCents = Math.min(rule.value, totalCents);
+        } else {
+            // Split so totalCents * value cannot overflow
+            discountCents = totalCents / PPM * rule.value + ((totalCents % PPM) * rule.value + PPM / 2) / PPM;
+        }
+        return (totalCents - discountCents) / 100.0;
+    }
+
+    private Index index() throws SQLException, ClassNotFoundException {
+        long version = ReferenceCache.promotionVersion();
+        Index index = current;
+        if (index != null && index.version == version) {
+            return index;
+        }
+        synchronized (this) {
+            index = current;
+            if (index == null || index.version != version) {
+                index = build(version);
+                current = index;
+            }
+            return index;
+        }
+    }
+
+    private Index build(long version) throws SQLException, ClassNotFoundException {
+        Map<Integer, DealerRules> byDealer = new HashMap<>();
+        for (Map.Entry<Integer, List<PromotionDTO>> entry : dealerPromotionDAO.getAllDealerPromotions().entrySet()) {
+            byDealer.put(entry.getKey(), compileDealer(entry.getValue()));
+        }
+        return new Index(version, byDealer);
+    }
+
+    private static DealerRules compileDealer(List<PromotionDTO> promotions) {
+        Rule[] rules = new Rule[promotions.size()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = compile(promotions.get(i));
+        }
+        Arrays.sort(rules, (a, b) -> Integer.compare(a.promotion.getPromoId(), b.promotion.getPromoId()));
+        int[] promoIds = new int[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            promoIds[i] = rules[i].promotion.getPromoId();
+        }
+
+        TreeSet<Long> days = new TreeSet<>();
+        for (Rule rule : rules) {
+            if (rule.error == null && rule.startDay <= rule.endDay) {
+                days.add(rule.startDay);
+                days.add(rule.endDay + 1);
+            }
+        }
+        long[] boundaries = new long[days.size()];
+        PromotionDTO[][] running = new PromotionDTO[days.size()][];
+        int segment = 0;
+        for (long day : days) {
+            List<PromotionDTO> active = new ArrayList<>();
+            for (Rule rule : rules) {
+                if (rule.error == null && rule.startDay <= day && day <= rule.endDay) {
+                    active.add(rule.promotion);
+                }
+            }
+            boundaries[segment] = day;
+            running[segment] = active.isEmpty() ? NONE : active.toArray(NONE);
+            segment++;
+        }
+        return new DealerRules(promoIds, rules, boundaries, running);
+    }
+
+    // Same reading of the stored strings as checkout always had, once per promotion
+    private static Rule compile(PromotionDTO promotion) {
+        if (promotion.getStartDate() == null || promotion.getEndDate() == null) {
+            return new Rule(promotion, 0, -1, false, 0, "Promotion has invalid date range");
+        }
+        long startDay;
+        long endDay;
+        try {
+            startDay = LocalDate.parse(promotion.getStartDate().trim(), DATE_FORMAT).toEpochDay();
+            endDay = LocalDate.parse(promotion.getEndDate().trim(), DATE_FORMAT).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return new Rule(promotion, 0, -1, false, 0, "Invalid promotion date format");
+        }
+
+        boolean fixed = "FIXED".equalsIgnoreCase(promotion.getType());
+        String rate = promotion.getDiscountRate();
+        if (rate == null || rate.trim().isEmpty()) {
+            // No rate, nothing off
+            return new Rule(promotion, startDay, endDay, fixed, 0, null);
+        }
+        double discount;
+        try {
+            discount = Double.parseDouble(rate.replace("%", "").trim());
+        } catch (NumberFormatException e) {
+            return new Rule(promotion, startDay, endDay, fixed, 0, "Invalid discount rate format");
+        }
+        if (fixed) {
+            return new Rule(promotion, startDay, endDay, true, Math.max(0, Math.round(discount * 100)), null);
+        }
+        // A rate below 1 is a fraction (0.15), otherwise a percentage (15)
+        double percent = discount > 0 && discount < 1 ? discount * 100 : discount;
+        long ppm = Math.max(0, Math.min(PPM, Math.round(percent * 10_000)));
+        return new Rule(promotion, startDay, endDay, false, ppm, null);
+    }
+
+    // Index of the last boundary <= day, -1 before the first one
+    private static int segmentOf(long[] boundaries, long day) {
+        int i = Arrays.binarySearch(boundaries, day);
+        return i >= 0 ? i : -i - 2;
+    }
+}
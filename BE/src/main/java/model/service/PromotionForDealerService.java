@@ -15,6 +15,9 @@ import model.dao.DealerPromotionDAO;
 import model.dao.PromotionDAO;
 import model.dto.DealerDTO;
 import model.dto.PromotionDTO;
+import utils.Page;
+import utils.PageRequest;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,15 +25,18 @@ import model.dto.PromotionDTO;
  */
 public class PromotionForDealerService {
 
-    private DealerDAO dealerDAO = new DealerDAO();
-    private DealerPromotionDAO dealerPromotionDAO = new DealerPromotionDAO();
-    private PromotionDAO promotionDAO = new PromotionDAO();
+    private DealerDAO dealerDAO = ServiceRegistry.get(DealerDAO.class);
+    private DealerPromotionDAO dealerPromotionDAO = ServiceRegistry.get(DealerPromotionDAO.class);
+    private PromotionDAO promotionDAO = ServiceRegistry.get(PromotionDAO.class);
 
     public DealerDTO HandlingViewPromotionForDealer(int dealerId) {
-        DealerDTO dealer = dealerDAO.GetDealerById(dealerId);
-        if (dealer == null) {
+        DealerDTO cached = dealerDAO.GetDealerById(dealerId);
+        if (cached == null) {
             return null;
         }
+        // The cached dealer is shared, attach the promotions to a copy
+        DealerDTO dealer = new DealerDTO(cached.getDealerId(), cached.getDealerName(),
+                cached.getAddress(), cached.getPhoneNumber());
 
         try {
             List<PromotionDTO> promotions = dealerPromotionDAO.getPromotionsByDealerId(dealerId);
@@ -64,6 +70,10 @@ public class PromotionForDealerService {
         return dealerDAO.getAllDealers();
     }
 
+    public Page<DealerDTO> getDealersPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return dealerDAO.getDealersPage(page);
+    }
+
     public PromotionDTO createPromotion(PromotionDTO promotion) throws SQLException, ClassNotFoundException {
         // Validate dữ liệu
         String validationError = validatePromotion(promotion);
@@ -104,6 +114,10 @@ public class PromotionForDealerService {
         return promotionDAO.GetAllPromotion();
     }
 
+    public Page<PromotionDTO> getPromotionsPage(PageRequest page) throws SQLException, ClassNotFoundException {
+        return promotionDAO.getPromotionsPage(page);
+    }
+
     private String validatePromotion(PromotionDTO promotion) {
         if (promotion == null) {
             return "Promotion cannot be null";
@@ -2,105 +2,64 @@ package model.service;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
-import model.dao.DealerDAO;
 import model.dao.OrderDAO;
 import model.dao.OrderDetailDAO;
 import model.dao.SaleRecordDAO;
 import model.dao.UserAccountDAO;
-import model.dto.DealerDTO;
 import model.dto.OrderDTO;
 import model.dto.OrderDetailDTO;
 import model.dto.SaleRecordDTO;
 import model.dto.UserAccountDTO;
+import utils.ServiceRegistry;
 
 public class SaleRecordService {
 
-    private final DealerDAO dealerDAO = new DealerDAO();
-    private final OrderDAO orderDAO = new OrderDAO();
-    private final OrderDetailDAO orderDetailDAO = new OrderDetailDAO();
-    private final UserAccountDAO userDAO = new UserAccountDAO();
-    private final SaleRecordDAO saleDAO = new SaleRecordDAO();
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final OrderDAO orderDAO = ServiceRegistry.get(OrderDAO.class);
+    private final OrderDetailDAO orderDetailDAO = ServiceRegistry.get(OrderDetailDAO.class);
+    private final UserAccountDAO userDAO = ServiceRegistry.get(UserAccountDAO.class);
+    private final SaleRecordDAO saleDAO = ServiceRegistry.get(SaleRecordDAO.class);
 
     // ------------------ Dealer Sales Summary ------------------
     public List<Map<String, Object>> getDealerSalesSummary(String startDate, String endDate) throws ClassNotFoundException, SQLException {
-        List<DealerDTO> dealerList = dealerDAO.retrieve("1=1"); // Get all dealers
-        List<Map<String, Object>> responseList = new ArrayList<>();
-        Set<Integer> addedDealerIds = new HashSet<>();
+        if (startDate == null || endDate == null) {
+            return saleDAO.getDealerSalesSummary(null, null);
+        }
+        return saleDAO.getDealerSalesSummary(toRangeStart(startDate), toRangeEndExclusive(endDate));
+    }
 
-        for (DealerDTO dealer : dealerList) {
-            if (addedDealerIds.contains(dealer.getDealerId())) {
-                continue;
+    // ------------------ Helper: Date Range Bounds ------------------
+    // "yyyy-MM-dd" covers the whole day, "yyyy-MM-dd HH:mm:ss" is an exact instant
+    private Timestamp toRangeStart(String date) {
+        String value = date.trim();
+        try {
+            if (value.length() > 10) {
+                return Timestamp.valueOf(LocalDateTime.parse(value, DATE_TIME_FORMAT));
             }
+            return Timestamp.valueOf(LocalDate.parse(value).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+    }
 
-            BigDecimal totalSales = BigDecimal.ZERO;
-            int totalOrders = 0;
-
-            // Get all staff for this dealer
-            List<Integer> staffIds = userDAO.getStaffIdsByDealer(dealer.getDealerId());
-            if (staffIds != null && !staffIds.isEmpty()) {
-
-                // Process orders for each staff member
-                for (Integer staffId : staffIds) {
-                    try {
-                        List<OrderDTO> allOrders = orderDAO.getByStaffId(staffId);
-                        if (allOrders == null || allOrders.isEmpty()) {
-                            continue;
-                        }
-
-                        for (OrderDTO order : allOrders) {
-                            // Filter by date range if provided
-                            if (startDate != null && endDate != null) {
-                                if (!isOrderInRange(order, startDate, endDate)) {
-                                    continue;
-                                }
-                            }
-
-                            try {
-                                OrderDetailDTO detail = orderDetailDAO.getOrderDetailByOrderId(order.getOrderId());
-                                if (detail == null) {
-                                    continue;
-                                }
-
-                                String quantityStr = detail.getQuantity();
-                                if (quantityStr == null || quantityStr.trim().isEmpty()) {
-                                    continue;
-                                }
-
-                                int quantity = Integer.parseInt(quantityStr.trim());
-                                BigDecimal saleAmount = BigDecimal.valueOf(detail.getUnitPrice())
-                                        .multiply(BigDecimal.valueOf(quantity));
-
-                                totalSales = totalSales.add(saleAmount);
-                                totalOrders++;
-
-                            } catch (NumberFormatException e) {
-                                System.err.println("Invalid quantity format for order ID " + order.getOrderId());
-                            } catch (Exception e) {
-                                System.err.println("Error processing order ID " + order.getOrderId() + ": " + e.getMessage());
-                            }
-                        }
-
-                    } catch (Exception e) {
-                        System.err.println("Error processing staff ID " + staffId + ": " + e.getMessage());
-                    }
-                }
+    private Timestamp toRangeEndExclusive(String date) {
+        String value = date.trim();
+        try {
+            if (value.length() > 10) {
+                return Timestamp.valueOf(LocalDateTime.parse(value, DATE_TIME_FORMAT).plusSeconds(1));
             }
-
-            Map<String, Object> map = new LinkedHashMap<>();
-            map.put("dealerId", dealer.getDealerId());
-            map.put("dealerName", dealer.getDealerName());
-            map.put("address", dealer.getAddress());
-            map.put("phoneNumber", dealer.getPhoneNumber());
-            map.put("totalSales", totalSales); // BigDecimal preserves full precision
-            map.put("totalOrders", totalOrders);
-
-            responseList.add(map);
-            addedDealerIds.add(dealer.getDealerId());
+            return Timestamp.valueOf(LocalDate.parse(value).plusDays(1).atStartOfDay());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date);
         }
-
-        return responseList;
     }
 
     // ------------------ Orders by Dealer ------------------
@@ -0,0 +1,42 @@
+package model.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import model.dao.DailySalesRollupDAO;
+import utils.DbUtils;
+import utils.ServiceRegistry;
+
+public class SalesRollupService {
+
+    private final DailySalesRollupDAO rollupDAO = ServiceRegistry.get(DailySalesRollupDAO.class);
+
+    /**
+     * Recompute DailySalesRollup from the confirmations in one transaction.
+     *
+     * @return number of rollup rows written
+     */
+    public int rebuild() throws SQLException, ClassNotFoundException {
+        Connection conn = null;
+        try {
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
+            int rows = rollupDAO.rebuild(conn);
+            conn.commit();
+            return rows;
+        } catch (SQLException e) {
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+}
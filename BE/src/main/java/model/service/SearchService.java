@@ -0,0 +1,93 @@
+package model.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import model.dao.CustomerDAO;
+import model.dao.DealerDAO;
+import model.dao.UserAccountDAO;
+import model.dao.VehicleModelDAO;
+import model.dto.CustomerDTO;
+import model.dto.DealerDTO;
+import model.dto.UserAccountDTO;
+import model.dto.VehicleModelDTO;
+import utils.SearchIndexes;
+import utils.TrigramIndex;
+import utils.ServiceRegistry;
+
+/**
+ * Name search for the search endpoints. Matching and ranking happen in
+ * {@link SearchIndexes}; only the rows of the best {@link #MAX_RESULTS} ids
+ * are read, with one query (or the reference cache).
+ */
+public class SearchService {
+
+    public static final int MAX_RESULTS = 50;
+
+    private final VehicleModelDAO modelDAO = ServiceRegistry.get(VehicleModelDAO.class);
+    private final CustomerDAO customerDAO = ServiceRegistry.get(CustomerDAO.class);
+    private final DealerDAO dealerDAO = ServiceRegistry.get(DealerDAO.class);
+    private final UserAccountDAO userDAO = ServiceRegistry.get(UserAccountDAO.class);
+
+    /**
+     * Fill all indexes from the database. Called at startup.
+     *
+     * @return number of rows indexed
+     */
+    public int loadAll() throws Exception {
+        return load(SearchIndexes.MODELS, modelDAO::indexNames)
+                + load(SearchIndexes.DEALERS, dealerDAO::indexNames)
+                + load(SearchIndexes.DEALER_STAFF, userDAO::indexNames)
+                + load(SearchIndexes.CUSTOMERS, customerDAO::indexNames);
+    }
+
+    public List<VehicleModelDTO> searchModels(String name) {
+        return inOrder(SearchIndexes.MODELS.search(name, 0, MAX_RESULTS), modelDAO::getModelsByIds);
+    }
+
+    public List<DealerDTO> searchDealers(String name) {
+        return inOrder(SearchIndexes.DEALERS.search(name, 0, MAX_RESULTS), dealerDAO::getDealersByIds);
+    }
+
+    public List<CustomerDTO> searchCustomers(String name) {
+        return inOrder(SearchIndexes.CUSTOMERS.search(name, 0, MAX_RESULTS), customerDAO::getCustomersByIds);
+    }
+
+    /**
+     * @param dealerId only staff of this dealer, 0 for all dealers
+     */
+    public List<UserAccountDTO> searchDealerStaff(String username, int dealerId) {
+        return inOrder(SearchIndexes.DEALER_STAFF.search(username, dealerId, MAX_RESULTS), userDAO::getUsersByIds);
+    }
+
+    private interface Loader {
+
+        int load(TrigramIndex index) throws Exception;
+    }
+
+    private interface RowsByIds<T> {
+
+        Map<Integer, T> load(List<Integer> ids);
+    }
+
+    private static int load(TrigramIndex index, Loader loader) throws Exception {
+        index.clear();
+        return loader.load(index);
+    }
+
+    // Rows deleted since they were indexed are skipped
+    private static <T> List<T> inOrder(List<Integer> ids, RowsByIds<T> rowsByIds) {
+        List<T> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Map<Integer, T> rows = rowsByIds.load(ids);
+        for (Integer id : ids) {
+            T row = rows.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,254 @@
+package model.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.dao.VehicleSerialDAO;
+import model.dto.VehicleSerialDTO;
+import utils.DbUtils;
+import utils.ServiceRegistry;
+
+/**
+ * In-memory pool of the free serial IDs of each variant, so creating an order
+ * does not have to scan VehicleSerial/OrderDetail/Confirmation for stock.
+ * <p>
+ * "Free" has the same meaning as
+ * {@link VehicleSerialDAO#getAvailableSerialsByVariantId}: state FACTORY or
+ * DEALER_HELD, i.e. not sold and not waiting for a custom order approval. The pool
+ * is filled at startup, a variant that was not known then is loaded on first
+ * use, and {@link OrderService} keeps it current after each commit.
+ */
+public final class SerialPool {
+
+    private static final SerialPool INSTANCE = new SerialPool();
+
+    private final VehicleSerialDAO serialDAO = ServiceRegistry.get(VehicleSerialDAO.class);
+    private final ConcurrentHashMap<Integer, VariantStock> stocks = new ConcurrentHashMap<>();
+
+    private SerialPool() {
+    }
+
+    public static SerialPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Free serials of one variant. {@code available} never exceeds the size
+     * of {@code free}: it is decremented before a serial is taken and
+     * incremented after one is put back, so a successful CAS on it guarantees
+     * the following polls find a serial.
+     */
+    private static final class VariantStock {
+
+        final ConcurrentLinkedDeque<String> free = new ConcurrentLinkedDeque<>();
+        final Set<String> members = ConcurrentHashMap.newKeySet();
+        final AtomicInteger available = new AtomicInteger();
+
+        void add(String serialId) {
+            if (members.add(serialId)) {
+                free.offerLast(serialId);
+                available.incrementAndGet();
+            }
+        }
+
+        boolean tryAcquire(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        String take() {
+            String serialId = free.pollFirst();
+            if (serialId != null) {
+                members.remove(serialId);
+            }
+            return serialId;
+        }
+
+        void remove(String serialId) {
+            // Serials never pooled (e.g. generated for custom orders) must not hold a permit
+            if (!members.contains(serialId)) {
+                return;
+            }
+            if (!tryAcquire(1)) {
+                return;
+            }
+            if (members.remove(serialId) && free.remove(serialId)) {
+                return;
+            }
+            // Someone else took it first, give the permit back
+            available.incrementAndGet();
+        }
+    }
+
+    /**
+     * Serials held for an order that has not committed yet. Exactly one of
+     * {@link #commit} or {@link #rollback} takes effect.
+     */
+    public final class Reservation {
+
+        private final int variantId;
+        private final List<String> serialIds;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Reservation(int variantId, List<String> serialIds) {
+            this.variantId = variantId;
+            this.serialIds = Collections.unmodifiableList(serialIds);
+        }
+
+        public int getVariantId() {
+            return variantId;
+        }
+
+        public List<String> getSerialIds() {
+            return serialIds;
+        }
+
+        /**
+         * Call after the order transaction committed. Serials ordered for a
+         * customer leave the pool for good, dealer orders leave them free.
+         */
+        public void commit(boolean consumed) {
+            if (done.compareAndSet(false, true) && !consumed) {
+                giveBack(variantId, serialIds);
+            }
+        }
+
+        /**
+         * Call when the order transaction rolled back.
+         */
+        public void rollback() {
+            if (done.compareAndSet(false, true)) {
+                giveBack(variantId, serialIds);
+            }
+        }
+    }
+
+    /**
+     * Replace the pool with the free serials currently in the database.
+     *
+     * @return number of serials loaded
+     */
+    public int loadAll() throws SQLException, ClassNotFoundException {
+        List<VehicleSerialDTO> serials = serialDAO.getAllAvailableSerials();
+        Map<Integer, VariantStock> loaded = new HashMap<>();
+        for (VehicleSerialDTO serial : serials) {
+            loaded.computeIfAbsent(serial.getVariantId(), k -> new VariantStock()).add(serial.getSerialId());
+        }
+        stocks.clear();
+        stocks.putAll(loaded);
+        return serials.size();
+    }
+
+    /**
+     * Take {@code quantity} free serials of the variant.
+     *
+     * @throws IllegalStateException when the variant does not have enough
+     * free serials; nothing is reserved in that case
+     */
+    public Reservation reserve(int variantId, int quantity) throws SQLException, ClassNotFoundException {
+        VariantStock stock = stockOf(variantId);
+        if (!stock.tryAcquire(quantity)) {
+            throw new IllegalStateException(
+                    "Not enough vehicles available for variant ID " + variantId
+                    + ". Requested: " + quantity + ", Available: " + Math.max(stock.available.get(), 0)
+                    + ". This variant is sold out!"
+            );
+        }
+        List<String> taken = new ArrayList<>(quantity);
+        for (int i = 0; i < quantity; i++) {
+            taken.add(stock.take());
+        }
+        return new Reservation(variantId, taken);
+    }
+
+    /**
+     * Serials that became free after a commit (custom order approved for a
+     * dealer, or rejected and deleted).
+     */
+    public void release(int variantId, Collection<String> serialIds) throws SQLException, ClassNotFoundException {
+        VariantStock stock = stockOf(variantId);
+        for (String serialId : serialIds) {
+            stock.add(serialId);
+        }
+    }
+
+    /**
+     * Serials that are no longer free after a commit.
+     */
+    public void remove(int variantId, Collection<String> serialIds) throws SQLException, ClassNotFoundException {
+        VariantStock stock = stockOf(variantId);
+        for (String serialId : serialIds) {
+            stock.remove(serialId);
+        }
+    }
+
+    public int available(int variantId) {
+        VariantStock stock = stocks.get(variantId);
+        return stock == null ? 0 : stock.available.get();
+    }
+
+    private void giveBack(int variantId, List<String> serialIds) {
+        try {
+            release(variantId, serialIds);
+        } catch (Exception e) {
+            // The variant is reloaded from the database next time it is used
+            stocks.remove(variantId);
+            e.printStackTrace();
+        }
+    }
+
+    private VariantStock stockOf(int variantId) throws SQLException, ClassNotFoundException {
+        VariantStock stock = stocks.get(variantId);
+        if (stock != null) {
+            return stock;
+        }
+        try {
+            return stocks.computeIfAbsent(variantId, id -> {
+                try {
+                    return loadVariant(id);
+                } catch (SQLException | ClassNotFoundException e) {
+                    throw new LoadFailure(e);
+                }
+            });
+        } catch (LoadFailure e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw (ClassNotFoundException) e.getCause();
+        }
+    }
+
+    private static final class LoadFailure extends RuntimeException {
+
+        LoadFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private VariantStock loadVariant(int variantId) throws SQLException, ClassNotFoundException {
+        VariantStock stock = new VariantStock();
+        try ( Connection conn = DbUtils.getConnection()) {
+            for (VehicleSerialDTO serial : serialDAO.getAvailableSerialsByVariantId(conn, variantId)) {
+                stock.add(serial.getSerialId());
+            }
+        }
+        return stock;
+    }
+}
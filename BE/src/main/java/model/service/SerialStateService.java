@@ -0,0 +1,48 @@
+package model.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import model.dao.VehicleSerialDAO;
+import utils.DbUtils;
+import utils.ServiceRegistry;
+
+public class SerialStateService {
+
+    private final VehicleSerialDAO serialDAO = ServiceRegistry.get(VehicleSerialDAO.class);
+    private final InventoryCounterService inventoryCounterService = ServiceRegistry.get(InventoryCounterService.class);
+
+    /**
+     * Fill VehicleSerial.state/dealer_id from the order tables in one
+     * transaction, then rebuild the inventory counters and reload the serial
+     * pool from the new states.
+     *
+     * @return number of serials updated
+     */
+    public int backfill() throws SQLException, ClassNotFoundException {
+        Connection conn = null;
+        int rows;
+        try {
+            conn = DbUtils.getConnection();
+            conn.setAutoCommit(false);
+            rows = serialDAO.backfillStates(conn);
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            throw e;
+        } finally {
+            if (conn != null) try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+        }
+        inventoryCounterService.rebuild();
+        SerialPool.getInstance().loadAll();
+        return rows;
+    }
+}
@@ -7,11 +7,12 @@ import model.dao.CustomerDAO;
 import model.dao.TestDriveScheduleDAO;
 import model.dto.CustomerDTO;
 import model.dto.TestDriveScheduleDTO;
+import utils.ServiceRegistry;
 
 public class TestDriveScheduleService {
 
-    private final TestDriveScheduleDAO testDriveScheduleDAO = new TestDriveScheduleDAO();
-    private final CustomerDAO customerDAO = new CustomerDAO();
+    private final TestDriveScheduleDAO testDriveScheduleDAO = ServiceRegistry.get(TestDriveScheduleDAO.class);
+    private final CustomerDAO customerDAO = ServiceRegistry.get(CustomerDAO.class);
 
     public TestDriveScheduleDTO createTestDriveSchedule(int customerId, String serialId, String date, String encodedStatus) throws ClassNotFoundException {
         if (customerId <= 0 || serialId == null || serialId.trim().isEmpty()
@@ -4,8 +4,10 @@
  */
 package model.service;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +17,9 @@ import model.dao.UserAccountDAO;
 import model.dto.DealerDTO;
 import model.dto.RoleDTO;
 import model.dto.UserAccountDTO;
+import utils.Page;
+import utils.PageRequest;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -22,8 +27,8 @@ import model.dto.UserAccountDTO;
  */
 public class UserAccountService {
 
-    private final UserAccountDAO UDao = new UserAccountDAO();
-    private final DealerDAO dealerDAO = new DealerDAO();
+    private final UserAccountDAO UDao = ServiceRegistry.get(UserAccountDAO.class);
+    private final DealerDAO dealerDAO = ServiceRegistry.get(DealerDAO.class);
 
     public UserAccountDTO HandlingLogin(String email, String password) {
         UserAccountDTO user = UDao.login(email, password);
@@ -152,23 +157,17 @@ public class UserAccountService {
         }
     }
 
-    public List<Map<String, Object>> getAllDealerAccounts() {
-        List<UserAccountDTO> accounts = UDao.getAllDealerAccounts();
+    public Page<Map<String, Object>> getAllDealerAccounts(PageRequest page) throws SQLException, ClassNotFoundException {
+        Page<UserAccountDTO> accounts = UDao.getDealerAccountsPage(page);
         List<Map<String, Object>> enrichedList = new ArrayList<>();
 
-        if (accounts == null || accounts.isEmpty()) {
-            return enrichedList;
-        }
-
-        for (UserAccountDTO account : accounts) {
-            String dealerName = "Unknown";
-
-            if (account.getDealerId() > 0) {
-                DealerDTO dealer = dealerDAO.GetDealerById(account.getDealerId());
-                if (dealer != null) {
-                    dealerName = dealer.getDealerName();
-                }
-            }
+        // Accounts of the same dealer share one lookup
+        Map<Integer, String> dealerNames = new HashMap<>();
+        for (UserAccountDTO account : accounts.getItems()) {
+            String dealerName = dealerNames.computeIfAbsent(account.getDealerId(), id -> {
+                DealerDTO dealer = dealerDAO.GetDealerById(id);
+                return dealer != null ? dealer.getDealerName() : "Unknown";
+            });
 
             Map<String, Object> map = new LinkedHashMap<>();
             map.put("userId", account.getUserId());
@@ -183,7 +182,7 @@ public class UserAccountService {
             enrichedList.add(map);
         }
 
-        return enrichedList;
+        return new Page<>(enrichedList, accounts.getNextCursor());
     }
 
     public List<UserAccountDTO> getDealerStaffByName(String name) {
@@ -7,13 +7,14 @@ package model.service;
 import java.util.List;
 import model.dao.VehicleModelDAO;
 import model.dto.VehicleModelDTO;
+import utils.ServiceRegistry;
 
 /**
  *
  * @author Admin
  */
 public class VehicleModelService {
-    private final VehicleModelDAO vehicleModelDAO = new VehicleModelDAO();
+    private final VehicleModelDAO vehicleModelDAO = ServiceRegistry.get(VehicleModelDAO.class);
 
     public VehicleModelDTO createVehicleModel(String modelName, String description) {
         // Validate input
@@ -12,6 +12,7 @@ import model.dao.VehicleVariantDAO;
 import model.dto.VehicleModelDTO;
 import model.dto.VehicleSerialDTO;
 import model.dto.VehicleVariantDTO;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -19,9 +20,9 @@ import model.dto.VehicleVariantDTO;
  */
 public class VehicleService {
 
-    private VehicleModelDAO modelDAO = new VehicleModelDAO();
-    private VehicleVariantDAO variantDAO = new VehicleVariantDAO();
-    private VehicleSerialDAO serialDAO = new VehicleSerialDAO();
+    private VehicleModelDAO modelDAO = ServiceRegistry.get(VehicleModelDAO.class);
+    private VehicleVariantDAO variantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
+    private VehicleSerialDAO serialDAO = ServiceRegistry.get(VehicleSerialDAO.class);
 
     public List<VehicleModelDTO> HandlingViewAllVehicle() {
         List<VehicleModelDTO> models = modelDAO.viewVehicleModelIsActive();
@@ -9,14 +9,15 @@ import model.dao.VehicleModelDAO;
 import model.dao.VehicleVariantDAO;
 import model.dto.VehicleModelDTO;
 import model.dto.VehicleVariantDTO;
+import utils.ServiceRegistry;
 
 /**
  *
  * @author Admin
  */
 public class VehicleVariantService {
-    private final VehicleVariantDAO vehicleVariantDAO = new VehicleVariantDAO();
-    private final VehicleModelDAO vehicleModelDAO = new VehicleModelDAO();
+    private final VehicleVariantDAO vehicleVariantDAO = ServiceRegistry.get(VehicleVariantDAO.class);
+    private final VehicleModelDAO vehicleModelDAO = ServiceRegistry.get(VehicleModelDAO.class);
     
     public VehicleVariantDTO createVehicleVariant(int modelId, String versionName, String color, String image, double price) {
         // Validate input
@@ -5,15 +5,14 @@
 package model.service;
 
 import java.sql.SQLException;
-import java.time.YearMonth;
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import model.dao.OrderDAO;
-import model.dao.OrderDetailDAO;
-import model.dao.VehicleModelDAO;
-import model.dto.OrderDTO;
-import model.dto.OrderDetailDTO;
-import model.dto.VehicleModelDTO;
+import utils.TtlCache;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -21,42 +20,26 @@ import model.dto.VehicleModelDTO;
  */
 public class ViewConsumptionRateService {
 
-    private VehicleModelDAO modelDAO = new VehicleModelDAO();
-    private OrderDAO orderDAO = new OrderDAO();
-    private OrderDetailDAO orderDetailDAO = new OrderDetailDAO();
-
-    public double handleCalculateConsumptionRate(int modelId) throws SQLException, ClassNotFoundException {
-        double totalQuantity = 0;
-
-        List<OrderDTO> orders = orderDAO.retrieve("model_id = ?", modelId);
-        if (orders == null || orders.isEmpty()) {
-            return 0;
-        }
-
-        for (OrderDTO order : orders) {
-            List<OrderDetailDTO> details = orderDetailDAO.getOrderDetailListByOrderId(order.getOrderId());
-            for (OrderDetailDTO detail : details) {
-                try {
-                    totalQuantity += Integer.parseInt(detail.getQuantity());
-                } catch (NumberFormatException e) {
-                }
-            }
+    // Rolling windows (days, today included) reported for every model
+    public static final int[] WINDOWS = {7, 30, 90};
+
+    // Rates only move when orders are placed, a short TTL is enough for the EVM screen
+    private static final long CACHE_TTL_MS = 60_000;
+    private static final TtlCache<String, List<Map<String, Object>>> CACHE = new TtlCache<>(CACHE_TTL_MS, 1);
+
+    private OrderDAO orderDAO = ServiceRegistry.get(OrderDAO.class);
+
+    /**
+     * Units ordered and units per day over the last 7/30/90 days for every active model,
+     * computed in one grouped query.
+     */
+    public List<Map<String, Object>> viewModelConsumptionRate() throws SQLException, ClassNotFoundException {
+        List<Map<String, Object>> rates = CACHE.get("all");
+        if (rates == null) {
+            LocalDateTime until = LocalDate.now().plusDays(1).atStartOfDay();
+            rates = Collections.unmodifiableList(orderDAO.getModelConsumption(until, WINDOWS));
+            CACHE.put("all", rates);
         }
-
-        int daysInMonth = YearMonth.now().lengthOfMonth();
-
-        return totalQuantity / daysInMonth;
-    }
-
-    public List<String> viewModelConsumptionRate() throws SQLException, ClassNotFoundException {
-        List<String> result = new ArrayList<>();
-
-        List<VehicleModelDTO> models = modelDAO.viewVehicleModelIsActive();
-        for (VehicleModelDTO model : models) {
-            double rate = handleCalculateConsumptionRate(model.getModelId());
-            result.add(model.getModelName() + " Consumption Rate: " + String.format("%.2f", rate));
-        }
-
-        return result;
+        return rates;
     }
 }
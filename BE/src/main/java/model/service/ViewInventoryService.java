@@ -4,12 +4,14 @@
  */
 package model.service;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import model.dao.InventoryDAO;
 import model.dao.VehicleModelDAO;
 import model.dto.InventoryDTO;
 import model.dto.VehicleModelDTO;
+import utils.ServiceRegistry;
 
 /**
  *
@@ -17,32 +19,12 @@ import model.dto.VehicleModelDTO;
  */
 public class ViewInventoryService {
 
-    private VehicleModelDAO modelDAO = new VehicleModelDAO();
-    private InventoryDAO inventoryDAO = new InventoryDAO();
+    private VehicleModelDAO modelDAO = ServiceRegistry.get(VehicleModelDAO.class);
+    private InventoryDAO inventoryDAO = ServiceRegistry.get(InventoryDAO.class);
 
-    public List<InventoryDTO> handleViewActiveInventory() {
-        List<InventoryDTO> inventories = inventoryDAO.viewAllInventory();
-        List<InventoryDTO> activeInventories = new ArrayList<>();
-
-        if (inventories != null) {
-            for (InventoryDTO inventory : inventories) {
-                List<VehicleModelDTO> modelList = modelDAO.viewVehicleModelById(inventory.getModelId());
-
-                if (modelList != null && !modelList.isEmpty()) {
-                    VehicleModelDTO model = modelList.get(0);
-
-                    if (model.isIsActive()) {
-                        int availableCount = inventoryDAO.getAvailableSerialCountByModelId(inventory.getModelId());
-                        inventory.setQuantity(String.valueOf(availableCount));
-
-                        inventory.setList(modelList);
-                        activeInventories.add(inventory);
-                    }
-                }
-            }
-        }
-
-        return activeInventories;
+    public List<InventoryDTO> handleViewActiveInventory() throws SQLException, ClassNotFoundException {
+        // quantity is kept up to date by the inventory counters, no per-row recount needed
+        return inventoryDAO.getActiveInventory();
     }
 
     public List<VehicleModelDTO> getInventoryByModelName(String name) {
@@ -0,0 +1,174 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Endpoints that do not hold a container thread while they wait on the
+ * database. The dispatcher starts an async request for the paths listed in
+ * {@value #CONFIG_FILE} and runs the controller here, on a virtual thread.
+ * At most {@code async.maxConcurrent} of them run at once, so slow reports
+ * queue among themselves instead of taking the threads and connections
+ * that login and order creation need.
+ * <p>
+ * Also counts container threads busy in the dispatcher, for {@link #stats()}.
+ */
+public final class AsyncEndpoints {
+
+    private static final String CONFIG_FILE = "/async-endpoints.properties";
+    private static final String MAX_CONCURRENT = "async.maxConcurrent";
+    private static final int DEFAULT_MAX_CONCURRENT = 6;
+
+    private static final Map<String, Long> TIMEOUTS = new HashMap<>();
+    private static final int maxConcurrent;
+    private static final Semaphore permits;
+    private static final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("async-endpoint-", 0).factory());
+
+    private static final AtomicInteger running = new AtomicInteger();
+    private static final AtomicInteger waiting = new AtomicInteger();
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder timedOut = new LongAdder();
+    private static final AtomicInteger containerBusy = new AtomicInteger();
+    private static final LongAccumulator containerPeak = new LongAccumulator(Long::max, 0);
+
+    static {
+        Properties props = new Properties();
+        try (InputStream in = AsyncEndpoints.class.getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(AsyncEndpoints.class.getName()).log(Level.WARNING, "Cannot read " + CONFIG_FILE + ", no async endpoints", ex);
+        }
+        int max = DEFAULT_MAX_CONCURRENT;
+        for (String key : props.stringPropertyNames()) {
+            String value = props.getProperty(key).trim();
+            try {
+                if (key.equals(MAX_CONCURRENT)) {
+                    max = Math.max(1, Integer.parseInt(value));
+                } else if (key.startsWith("/")) {
+                    TIMEOUTS.put(key, Long.parseLong(value));
+                }
+            } catch (NumberFormatException ex) {
+                Logger.getLogger(AsyncEndpoints.class.getName()).log(Level.WARNING, "Ignoring {0}={1} in {2}",
+                        new Object[]{key, value, CONFIG_FILE});
+            }
+        }
+        maxConcurrent = max;
+        permits = new Semaphore(max, true);
+    }
+
+    private AsyncEndpoints() {
+    }
+
+    /**
+     * Timeout of the path in ms, 0 when it runs on the container thread.
+     */
+    public static long timeoutMillis(String path) {
+        Long timeout = TIMEOUTS.get(path);
+        return timeout != null && timeout > 0 ? timeout : 0;
+    }
+
+    /**
+     * Run the task on a virtual thread once one of the
+     * {@code async.maxConcurrent} slots is free.
+     */
+    public static void submit(Runnable task) {
+        executor.execute(() -> {
+            waiting.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                waiting.decrementAndGet();
+            }
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+                completed.increment();
+                permits.release();
+            }
+        });
+    }
+
+    public static void timedOut() {
+        timedOut.increment();
+    }
+
+    public static void containerEnter() {
+        containerPeak.accumulate(containerBusy.incrementAndGet());
+    }
+
+    public static void containerExit() {
+        containerBusy.decrementAndGet();
+    }
+
+    public static Map<String, Object> stats() {
+        Map<String, Object> async = new LinkedHashMap<>();
+        async.put("endpoints", TIMEOUTS);
+        async.put("maxConcurrent", maxConcurrent);
+        async.put("running", running.get());
+        async.put("waiting", waiting.get());
+        async.put("completed", completed.sum());
+        async.put("timedOut", timedOut.sum());
+
+        Map<String, Object> container = new LinkedHashMap<>();
+        container.put("busyInDispatcher", containerBusy.get());
+        container.put("peakBusyInDispatcher", containerPeak.get());
+        container.put("pools", containerPools());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("async", async);
+        stats.put("container", container);
+        return stats;
+    }
+
+    // Tomcat's connector pools (Catalina:type=ThreadPool,name=...), empty on other containers
+    private static Map<String, Object> containerPools() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName("*:type=ThreadPool,*"), null)) {
+                Map<String, Object> pool = new LinkedHashMap<>();
+                pool.put("busy", server.getAttribute(name, "currentThreadsBusy"));
+                pool.put("current", server.getAttribute(name, "currentThreadCount"));
+                pool.put("max", server.getAttribute(name, "maxThreads"));
+                String poolName = name.getKeyProperty("name");
+                pools.put(poolName.startsWith("\"") ? ObjectName.unquote(poolName) : poolName, pool);
+            }
+        } catch (Exception e) {
+            // Not Tomcat, or attributes named differently
+        }
+        return pools;
+    }
+
+    public static void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,37 +1,162 @@
 package utils;
 
-import java.util.Arrays;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Path access rules, compiled once from {@value #CONFIG_FILE} into a trie of
+ * path segments. Each role gets one bit, so checking a request is a single
+ * walk down the trie plus an AND with the principal's role mask.
+ */
 public class AuthRules {
-    //Public endPoint
-    private static final List<String> PUBLIC_PATHS = Arrays.asList(
-            "/api/login",
-            "/api/public"
-    );
-    //Private endPoint (rememeber to map this)
-    private static final Map<String, List<String>> ROLE_PATHS;
 
-    static {
-        Map<String, List<String>> map = new HashMap<>();
+    private static final String CONFIG_FILE = "/auth-rules.properties";
+    private static final String PUBLIC = "PUBLIC";
+    private static final int MAX_ROLES = 31;
+    private static final int PUBLIC_RULE = -1;
+
+    // Role name -> bit, assigned as the rules are read
+    private static final Map<String, Integer> ROLE_BITS = new HashMap<>();
+    private static final Node ROOT = new Node();
+
+    /**
+     * One path segment. {@code rule} is null when no rule ends here, otherwise
+     * the allowed role mask (or {@link #PUBLIC_RULE}).
+     */
+    private static final class Node {
+
+        final Map<String, Node> children = new HashMap<>();
+        Integer rule;
+    }
 
-        map.put("/api/manager", Arrays.asList("MANAGER")); 
-        map.put("/api/staff", Arrays.asList("MANAGER", "STAFF")); 
-        map.put("/api/admin", Arrays.asList("ADMIN"));     
-        map.put("/api/EVM", Arrays.asList("EVM","ADMIN"));
-        ROLE_PATHS = Collections.unmodifiableMap(map);
+    static {
+        for (Map.Entry<String, String> entry : loadRules().entrySet()) {
+            addRule(entry.getKey(), entry.getValue());
+        }
     }
 
     public static boolean isPublicPath(String path) {
-        return PUBLIC_PATHS.stream().anyMatch(path::startsWith);
+        Integer rule = match(path);
+        return rule != null && rule == PUBLIC_RULE;
+    }
+
+    /**
+     * @param roleMask mask of the caller's roles, see {@link #roleMask}
+     */
+    public static boolean hasRequiredRole(String path, int roleMask) {
+        Integer rule = match(path);
+        return rule != null && rule != PUBLIC_RULE && (rule & roleMask) != 0;
+    }
+
+    public static boolean hasRequiredRole(String path, Collection<String> roles) {
+        return hasRequiredRole(path, roleMask(roles));
+    }
+
+    /**
+     * Bits of the given role names. Roles no rule mentions have no bit.
+     */
+    public static int roleMask(Collection<String> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (String role : roles) {
+                Integer bit = ROLE_BITS.get(role);
+                if (bit != null) {
+                    mask |= bit;
+                }
+            }
+        }
+        return mask;
+    }
+
+    // Rule of the longest prefix of path made of whole segments, null if none
+    private static Integer match(String path) {
+        if (path == null) {
+            return null;
+        }
+        Node node = ROOT;
+        Integer rule = ROOT.rule;
+        int start = 0;
+        int length = path.length();
+        while (start < length) {
+            if (path.charAt(start) == '/') {
+                start++;
+                continue;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.rule != null) {
+                rule = node.rule;
+            }
+            start = end;
+        }
+        return rule;
+    }
+
+    private static void addRule(String prefix, String roles) {
+        Node node = ROOT;
+        for (String segment : prefix.trim().split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+        }
+        if (PUBLIC.equalsIgnoreCase(roles.trim())) {
+            node.rule = PUBLIC_RULE;
+            return;
+        }
+        int mask = 0;
+        for (String role : roles.split(",")) {
+            role = role.trim();
+            if (role.isEmpty()) {
+                continue;
+            }
+            Integer bit = ROLE_BITS.get(role);
+            if (bit == null) {
+                if (ROLE_BITS.size() >= MAX_ROLES) {
+                    throw new IllegalStateException("Too many roles in " + CONFIG_FILE + ", at most " + MAX_ROLES);
+                }
+                bit = 1 << ROLE_BITS.size();
+                ROLE_BITS.put(role, bit);
+            }
+            mask |= bit;
+        }
+        node.rule = mask;
     }
 
-    public static boolean hasRequiredRole(String path, List<String> roles) {
-       return ROLE_PATHS.entrySet().stream()
-        .filter(entry -> path.startsWith(entry.getKey()))
-        .anyMatch(entry -> roles.stream().anyMatch(entry.getValue()::contains));
+    private static Map<String, String> loadRules() {
+        Map<String, String> rules = new LinkedHashMap<>();
+        Properties props = new Properties();
+        try (InputStream in = AuthRules.class.getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(AuthRules.class.getName()).log(Level.WARNING, "Cannot read " + CONFIG_FILE + ", using defaults", ex);
+        }
+        if (props.isEmpty()) {
+            rules.put("/api/login", PUBLIC);
+            rules.put("/api/public", PUBLIC);
+            rules.put("/api/manager", "MANAGER");
+            rules.put("/api/staff", "MANAGER,STAFF");
+            rules.put("/api/admin", "ADMIN");
+            rules.put("/api/EVM", "EVM,ADMIN");
+            return rules;
+        }
+        for (String key : props.stringPropertyNames()) {
+            rules.put(key, props.getProperty(key));
+        }
+        return rules;
     }
 }
@@ -0,0 +1,89 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Loads rows for many keys with {@code WHERE col IN (...)} instead of one query per key.
+ * Keys are de-duplicated and split into chunks so the statement stays under
+ * SQL Server's 2100 parameter limit.
+ */
+public class BatchLoader {
+
+    public static final int MAX_KEYS_PER_QUERY = 1000;
+
+    public interface RowMapper<T> {
+
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Run {@code selectSql + " IN (?, ...)" + orderBy} for every chunk of keys on one
+     * connection and index the rows by key. When several rows share a key the first
+     * one returned wins, so {@code orderBy} decides which row is kept.
+     *
+     * @param selectSql query up to the key column, e.g. "SELECT * FROM VehicleModel WHERE model_id"
+     * @param orderBy optional trailing clause, e.g. "ORDER BY order_detail_id", may be null
+     */
+    public static <K, V> Map<K, V> load(String selectSql, String orderBy, Collection<K> keys,
+            RowMapper<V> mapper, Function<V, K> keyOf) throws SQLException, ClassNotFoundException {
+
+        List<K> distinct = distinctKeys(keys);
+        if (distinct.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<K, V> result = new HashMap<>();
+        try ( Connection conn = DbUtils.getConnection()) {
+            for (int from = 0; from < distinct.size(); from += MAX_KEYS_PER_QUERY) {
+                List<K> chunk = distinct.subList(from, Math.min(from + MAX_KEYS_PER_QUERY, distinct.size()));
+                String sql = selectSql + " IN (" + placeholders(chunk.size()) + ")"
+                        + (orderBy != null ? " " + orderBy : "");
+
+                try ( PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ps.setObject(i + 1, chunk.get(i));
+                    }
+                    try ( ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            V value = mapper.map(rs);
+                            result.putIfAbsent(keyOf.apply(value), value);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <K> List<K> distinctKeys(Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LinkedHashSet<K> set = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (key != null) {
+                set.add(key);
+            }
+        }
+        return new ArrayList<>(set);
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A request body that could not be bound: too large, not valid JSON, or with
+ * fields of the wrong type or failing validation. The field errors go back
+ * to the client as the data of the error response.
+ */
+public class BindException extends Exception {
+
+    private final Map<String, String> fieldErrors;
+
+    public BindException(String message) {
+        this(message, Collections.emptyMap());
+    }
+
+    public BindException(String message, Map<String, String> fieldErrors) {
+        super(message);
+        this.fieldErrors = Collections.unmodifiableMap(new LinkedHashMap<>(fieldErrors));
+    }
+
+    /**
+     * Error message by field name, empty when the body as a whole is wrong.
+     */
+    public Map<String, String> getFieldErrors() {
+        return fieldErrors;
+    }
+}
@@ -0,0 +1,331 @@
+package utils;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A response kept in memory: status, headers, cookies and body are recorded
+ * and only reach the real response through {@link #sendTo}. Lets a
+ * controller that runs on another thread write at any time while only the
+ * one that completes the request touches the container's response. Until
+ * {@link #detach()} the few calls not recorded here (URL encoding, locale)
+ * go to the original.
+ */
+public final class BufferedResponse extends HttpServletResponseWrapper {
+
+    private static final HttpServletResponse DETACHED = (HttpServletResponse) Proxy.newProxyInstance(
+            BufferedResponse.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+            (proxy, method, args) -> {
+                throw new IllegalStateException("The response is over, " + method.getName() + "() is not available");
+            });
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final List<Cookie> cookies = new ArrayList<>();
+    private int status = SC_OK;
+    private String errorMessage;
+    private boolean error;
+    private String redirect;
+    private String contentType;
+    private String characterEncoding;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public BufferedResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Stop using the original response; called when the request is
+     * completed without this one.
+     */
+    public synchronized void detach() {
+        setResponse(DETACHED);
+    }
+
+    /**
+     * Copy everything recorded to {@code target}.
+     */
+    public synchronized void sendTo(HttpServletResponse target) throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                target.addHeader(header.getKey(), value);
+            }
+        }
+        for (Cookie cookie : cookies) {
+            target.addCookie(cookie);
+        }
+        if (redirect != null) {
+            target.sendRedirect(redirect);
+            return;
+        }
+        if (error) {
+            if (errorMessage != null) {
+                target.sendError(status, errorMessage);
+            } else {
+                target.sendError(status);
+            }
+            return;
+        }
+        target.setStatus(status);
+        if (contentType != null) {
+            target.setContentType(contentType);
+        }
+        if (characterEncoding != null) {
+            target.setCharacterEncoding(characterEncoding);
+        }
+        if (body.size() > 0) {
+            target.setContentLength(body.size());
+            body.writeTo(target.getOutputStream());
+        }
+    }
+
+    @Override
+    public synchronized ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    synchronized (BufferedResponse.this) {
+                        body.write(b);
+                    }
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    synchronized (BufferedResponse.this) {
+                        body.write(b, off, len);
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    throw new IllegalStateException("The response is buffered");
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public synchronized PrintWriter getWriter() {
+        if (outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if (writer == null) {
+            Charset charset = Charset.forName(getCharacterEncoding());
+            // The response keeps the encoding the writer was created with
+            characterEncoding = charset.name();
+            writer = new PrintWriter(new OutputStreamWriter(body, charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public synchronized void setStatus(int sc) {
+        status = sc;
+    }
+
+    @Override
+    public synchronized int getStatus() {
+        return status;
+    }
+
+    @Override
+    public synchronized void sendError(int sc, String msg) {
+        resetBuffer();
+        status = sc;
+        errorMessage = msg;
+        error = true;
+    }
+
+    @Override
+    public synchronized void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public synchronized void sendRedirect(String location) {
+        resetBuffer();
+        redirect = location;
+    }
+
+    @Override
+    public synchronized void setHeader(String name, String value) {
+        if (value == null) {
+            headers.remove(name);
+        } else {
+            List<String> values = new ArrayList<>();
+            values.add(value);
+            headers.put(name, values);
+        }
+    }
+
+    @Override
+    public synchronized void addHeader(String name, String value) {
+        if (value != null) {
+            headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public synchronized boolean containsHeader(String name) {
+        return headers.containsKey(name);
+    }
+
+    @Override
+    public synchronized String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public synchronized Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? Collections.<String>emptyList() : new ArrayList<>(values);
+    }
+
+    @Override
+    public synchronized Collection<String> getHeaderNames() {
+        return new ArrayList<>(headers.keySet());
+    }
+
+    @Override
+    public synchronized void addCookie(Cookie cookie) {
+        cookies.add(cookie);
+    }
+
+    @Override
+    public synchronized void setContentType(String type) {
+        contentType = type;
+        if (type != null && writer == null) {
+            int i = type.toLowerCase().indexOf("charset=");
+            if (i >= 0) {
+                characterEncoding = type.substring(i + "charset=".length()).trim();
+            }
+        }
+    }
+
+    @Override
+    public synchronized String getContentType() {
+        if (contentType == null || characterEncoding == null || contentType.toLowerCase().contains("charset=")) {
+            return contentType;
+        }
+        return contentType + ";charset=" + characterEncoding;
+    }
+
+    @Override
+    public synchronized void setCharacterEncoding(String charset) {
+        if (writer == null) {
+            characterEncoding = charset;
+        }
+    }
+
+    @Override
+    public synchronized String getCharacterEncoding() {
+        return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // Set from the buffer by sendTo
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // Set from the buffer by sendTo
+    }
+
+    @Override
+    public synchronized boolean isCommitted() {
+        return error || redirect != null;
+    }
+
+    @Override
+    public void flushBuffer() {
+        // Nothing leaves before sendTo
+    }
+
+    @Override
+    public synchronized void resetBuffer() {
+        if (writer != null) {
+            writer.flush();
+        }
+        body.reset();
+    }
+
+    @Override
+    public synchronized void reset() {
+        resetBuffer();
+        headers.clear();
+        cookies.clear();
+        status = SC_OK;
+        contentType = null;
+        if (writer == null) {
+            characterEncoding = null;
+        }
+    }
+
+    @Override
+    public int getBufferSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, httpDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, httpDate(date));
+    }
+
+    private static String httpDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+    }
+}
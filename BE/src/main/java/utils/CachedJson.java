@@ -0,0 +1,83 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once and sent many times by
+ * {@link ResponseUtils#cached}. The ETag is a hash of the bytes, so two
+ * bodies with the same content have the same tag whenever they were built.
+ * Bodies above {@link #GZIP_MIN_BYTES} are also kept gzipped, with their own tag.
+ */
+public final class CachedJson {
+
+    // Below this gzip saves less than the header costs
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final byte[] bytes;
+    private final byte[] gzipped;
+    private final String etag;
+    private final String gzipEtag;
+
+    public CachedJson(byte[] bytes) {
+        this.bytes = bytes;
+        String hash = sha256(bytes);
+        this.etag = "\"" + hash + "\"";
+        if (bytes.length >= GZIP_MIN_BYTES) {
+            this.gzipped = gzip(bytes);
+            this.gzipEtag = "\"" + hash + "-gzip\"";
+        } else {
+            this.gzipped = null;
+            this.gzipEtag = null;
+        }
+    }
+
+    /**
+     * UTF-8 JSON. Shared between requests, never modify it.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gzipped bytes, null when the body is too small to be worth it.
+     */
+    public byte[] getGzipped() {
+        return gzipped;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder();
+            // 128 bits are plenty to tell versions apart
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try ( GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
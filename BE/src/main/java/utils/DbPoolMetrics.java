@@ -0,0 +1,92 @@
+package utils;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection pool statistics (active, idle, waiters and a
+ * borrow-time histogram) so the pool can be sized from real traffic.
+ */
+public class DbPoolMetrics implements MetricsTrackerFactory {
+
+    // Upper bounds (ms) of the borrow-time buckets, the last bucket is open ended
+    private static final long[] BUCKET_BOUNDS_MS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTotalNanos = new LongAdder();
+    private final LongAccumulator borrowMaxNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder timeouts = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    public DbPoolMetrics() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordBorrow(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    private void recordBorrow(long nanos) {
+        borrowCount.increment();
+        borrowTotalNanos.add(nanos);
+        borrowMaxNanos.accumulate(nanos);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int i = 0;
+        while (i < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        PoolStats pool = this.poolStats;
+        if (pool != null) {
+            stats.put("active", pool.getActiveConnections());
+            stats.put("idle", pool.getIdleConnections());
+            stats.put("total", pool.getTotalConnections());
+            stats.put("waiters", pool.getPendingThreads());
+            stats.put("maxSize", pool.getMaxConnections());
+            stats.put("minIdle", pool.getMinConnections());
+        }
+
+        long count = borrowCount.sum();
+        stats.put("borrowCount", count);
+        stats.put("borrowTimeouts", timeouts.sum());
+        stats.put("borrowAvgMs", count == 0 ? 0.0 : borrowTotalNanos.sum() / (double) count / 1_000_000);
+        stats.put("borrowMaxMs", borrowMaxNanos.get() / 1_000_000.0);
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long lower = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            histogram.put(lower + "-" + BUCKET_BOUNDS_MS[i] + "ms", buckets[i].sum());
+            lower = BUCKET_BOUNDS_MS[i];
+        }
+        histogram.put(">=" + lower + "ms", buckets[BUCKET_BOUNDS_MS.length].sum());
+        stats.put("borrowTimeHistogram", histogram);
+        return stats;
+    }
+}
@@ -4,27 +4,129 @@
  */
 package utils;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.sql.DataSource;
 
 /**
  *
  * @author Admin
  */
 public class DbUtils {
+    private static final String CONFIG_FILE = "/db.properties";
     private static final String DB_NAME = "SWP391";
     private static final String DB_USER_NAME = "sa";
     private static final String DB_PASSWORD = "12345";
 
+    private static final Object LOCK = new Object();
+    private static volatile HikariDataSource dataSource;
+    private static DbPoolMetrics poolMetrics;
+
+    /**
+     * Borrow a pooled connection. Closing the connection returns it to the pool.
+     * Statements created from it are timed by {@link JdbcInstrumentation}.
+     */
     public static Connection getConnection() throws ClassNotFoundException, SQLException {
-        Connection conn = null;
-        Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-        String url = "jdbc:sqlserver://localhost:1433;databaseName=" + DB_NAME;
-        conn = DriverManager.getConnection(url, DB_USER_NAME, DB_PASSWORD);
-        return conn;
+        return JdbcInstrumentation.wrap(getDataSource().getConnection());
+    }
+
+    public static DataSource getDataSource() throws ClassNotFoundException {
+        HikariDataSource ds = dataSource;
+        if (ds == null) {
+            synchronized (LOCK) {
+                ds = dataSource;
+                if (ds == null) {
+                    Properties props = loadConfig();
+                    JdbcInstrumentation.configure(props);
+                    ds = createDataSource(props);
+                    dataSource = ds;
+                }
+            }
+        }
+        return ds;
+    }
+
+    /**
+     * Current pool statistics, empty if the pool has not been started yet.
+     */
+    public static Map<String, Object> getPoolStats() {
+        DbPoolMetrics metrics = poolMetrics;
+        if (metrics == null) {
+            return Collections.emptyMap();
+        }
+        return metrics.snapshot();
+    }
+
+    public static void shutdown() {
+        synchronized (LOCK) {
+            if (dataSource != null) {
+                dataSource.close();
+                dataSource = null;
+                poolMetrics = null;
+            }
+        }
+    }
+
+    private static HikariDataSource createDataSource(Properties props) throws ClassNotFoundException {
+        Class.forName(props.getProperty("db.driver", "com.microsoft.sqlserver.jdbc.SQLServerDriver"));
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(props.getProperty("pool.name", "SWP391-pool"));
+        config.setJdbcUrl(props.getProperty("db.url", "jdbc:sqlserver://localhost:1433;databaseName=" + DB_NAME));
+        config.setUsername(props.getProperty("db.username", DB_USER_NAME));
+        config.setPassword(props.getProperty("db.password", DB_PASSWORD));
+
+        config.setMinimumIdle(intProp(props, "pool.minIdle", 2));
+        config.setMaximumPoolSize(intProp(props, "pool.maxSize", 20));
+        // Borrowed connections are validated with Connection.isValid() before being handed out
+        config.setValidationTimeout(longProp(props, "pool.validationTimeoutMs", 3000));
+        config.setConnectionTimeout(longProp(props, "pool.borrowTimeoutMs", 10000));
+        config.setIdleTimeout(longProp(props, "pool.idleTimeoutMs", 600000));
+        config.setMaxLifetime(longProp(props, "pool.maxLifetimeMs", 1800000));
+
+        DbPoolMetrics metrics = new DbPoolMetrics();
+        config.setMetricsTrackerFactory(metrics);
+        poolMetrics = metrics;
+
+        return new HikariDataSource(config);
+    }
+
+    private static Properties loadConfig() {
+        Properties props = new Properties();
+        try (InputStream in = DbUtils.class.getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(DbUtils.class.getName()).log(Level.WARNING, "Cannot read " + CONFIG_FILE + ", using defaults", ex);
+        }
+        return props;
+    }
+
+    private static int intProp(Properties props, String key, int defaultValue) {
+        return (int) longProp(props, key, defaultValue);
+    }
+
+    private static long longProp(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            Logger.getLogger(DbUtils.class.getName()).log(Level.WARNING, "Invalid value for {0}: {1}", new Object[]{key, value});
+            return defaultValue;
+        }
     }
 
     public static void main(String[] args) {
@@ -34,6 +136,8 @@ public class DbUtils {
             Logger.getLogger(DbUtils.class.getName()).log(Level.SEVERE, null, ex);
         } catch (SQLException ex) {
             Logger.getLogger(DbUtils.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            shutdown();
         }
     }
 }
@@ -0,0 +1,150 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps pooled JDBC connections so every statement execution is timed,
+ * counted against the current request ({@link QueryStats}) and logged when slow.
+ */
+public class JdbcInstrumentation {
+
+    private static final Logger SLOW_LOG = Logger.getLogger("jdbc.slowquery");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w\\]])-?\\d+(\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static volatile boolean enabled = true;
+    private static volatile long slowQueryNanos = 200_000_000L;
+    private static volatile int nPlusOneThreshold = 5;
+
+    static void configure(Properties props) {
+        enabled = !"false".equalsIgnoreCase(props.getProperty("jdbc.instrumentation.enabled", "true").trim());
+        try {
+            slowQueryNanos = Long.parseLong(props.getProperty("jdbc.slowQueryMs", "200").trim()) * 1_000_000L;
+            nPlusOneThreshold = Integer.parseInt(props.getProperty("jdbc.nPlusOneThreshold", "5").trim());
+        } catch (NumberFormatException e) {
+            Logger.getLogger(JdbcInstrumentation.class.getName()).log(Level.WARNING, "Invalid JDBC instrumentation settings", e);
+        }
+    }
+
+    public static int getNPlusOneThreshold() {
+        return nPlusOneThreshold;
+    }
+
+    public static Connection wrap(Connection conn) {
+        if (!enabled || conn == null) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn));
+    }
+
+    /**
+     * Normalize SQL text so the same statement with different literals or
+     * IN-list sizes is counted as one: literals become ?, (?, ?, ?) becomes (?...).
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "<batch>";
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?...)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static void record(String sql, long nanos) {
+        String normalized = normalize(sql);
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            stats.record(normalized, nanos);
+        }
+        if (nanos >= slowQueryNanos) {
+            SLOW_LOG.log(Level.WARNING, "Slow query ({0} ms) on {1}: {2}", new Object[]{
+                String.format("%.2f", nanos / 1_000_000.0),
+                stats != null ? stats.getRequestPath() : "<no request>",
+                normalized
+            });
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = JdbcInstrumentation.invoke(target, method, args);
+            String name = method.getName();
+
+            if (result instanceof CallableStatement && "prepareCall".equals(name)) {
+                return wrapStatement(result, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement && "prepareStatement".equals(name)) {
+                return wrapStatement(result, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement && "createStatement".equals(name)) {
+                return wrapStatement(result, Statement.class, null);
+            }
+            return result;
+        }
+
+        private Object wrapStatement(Object statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Object target;
+        private final String sql;
+
+        StatementHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return JdbcInstrumentation.invoke(target, method, args);
+            }
+
+            // Plain Statement passes its SQL to execute*(sql)
+            String executedSql = (args != null && args.length > 0 && args[0] instanceof String)
+                    ? (String) args[0] : sql;
+            long start = System.nanoTime();
+            try {
+                return JdbcInstrumentation.invoke(target, method, args);
+            } finally {
+                record(executedSql, System.nanoTime() - start);
+            }
+        }
+    }
+}
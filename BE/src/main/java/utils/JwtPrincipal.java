@@ -0,0 +1,100 @@
+package utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The verified identity of a request, built once from the JWT by
+ * {@link filter.JwtFilter} and stored as the {@value #ATTRIBUTE} request attribute.
+ */
+public final class JwtPrincipal {
+
+    public static final String ATTRIBUTE = "principal";
+
+    private final Integer userId;
+    private final Integer dealerId;
+    private final Integer roleId;
+    private final String username;
+    private final List<String> roles;
+    private final int roleMask;
+    private final long expiresAt;
+
+    public JwtPrincipal(Integer userId, Integer dealerId, Integer roleId, String username, List<String> roles, long expiresAt) {
+        this.userId = userId;
+        this.dealerId = dealerId;
+        this.roleId = roleId;
+        this.username = username;
+        this.roles = roles == null ? Collections.<String>emptyList() : Collections.unmodifiableList(roles);
+        this.roleMask = AuthRules.roleMask(this.roles);
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Principal of the request. Falls back to verifying the Authorization
+     * header when the filter did not run (public paths).
+     */
+    public static JwtPrincipal from(HttpServletRequest req) {
+        Object principal = req.getAttribute(ATTRIBUTE);
+        if (principal instanceof JwtPrincipal) {
+            return (JwtPrincipal) principal;
+        }
+        JwtPrincipal verified = JwtUtil.authenticate(JwtUtil.extractToken(req));
+        req.setAttribute(ATTRIBUTE, verified);
+        return verified;
+    }
+
+    public int getUserId() {
+        if (userId == null) {
+            throw new AuthException("Token does not contain userId");
+        }
+        return userId;
+    }
+
+    /**
+     * Dealer of the account, 0 when it does not belong to a dealer.
+     */
+    public int getDealerId() {
+        return dealerId != null ? dealerId : 0;
+    }
+
+    /**
+     * Primary role of the account, 0 when unknown.
+     */
+    public int getRoleId() {
+        return roleId != null ? roleId : 0;
+    }
+
+    /**
+     * Copy with the dealer and role taken from the current account row.
+     */
+    public JwtPrincipal withAccount(int dealerId, int roleId) {
+        return new JwtPrincipal(userId, dealerId, roleId, username, roles, expiresAt);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * The roles as bits, see {@link AuthRules#roleMask}.
+     */
+    public int getRoleMask() {
+        return roleMask;
+    }
+
+    /**
+     * Token expiry in epoch milliseconds.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+}
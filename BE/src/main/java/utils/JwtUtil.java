@@ -3,7 +3,10 @@ package utils;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -26,6 +29,14 @@ public class JwtUtil {
 
     private static final String CLAIM_USER_ID = "userId";
     private static final String CLAIM_ROLES = "roles";
+    private static final String CLAIM_DEALER_ID = "dealerId";
+    private static final String CLAIM_ROLE_ID = "roleId";
+
+    // JwtParser is immutable and thread-safe, build it once
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // SHA-256 of recently verified tokens -> principal, entries never outlive the token
+    private static final TtlCache<String, JwtPrincipal> VERIFIED_TOKENS = new TtlCache<>(5 * 60 * 1000L, 10000);
 
     /**
      * Generate token directly from UserAccountDTO
@@ -45,6 +56,8 @@ public class JwtUtil {
         return Jwts.builder()
                 .setSubject(user.getUsername())
                 .claim(CLAIM_USER_ID, user.getUserId()) // always include userId
+                .claim(CLAIM_DEALER_ID, user.getDealerId())
+                .claim(CLAIM_ROLE_ID, user.getRoleId())
                 .claim(CLAIM_ROLES, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
@@ -66,6 +79,8 @@ public class JwtUtil {
         return Jwts.builder()
                 .setSubject(username)
                 .claim(CLAIM_USER_ID, user.getUserId())
+                .claim(CLAIM_DEALER_ID, user.getDealerId())
+                .claim(CLAIM_ROLE_ID, user.getRoleId())
                 .claim(CLAIM_ROLES, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
@@ -78,30 +93,64 @@ public class JwtUtil {
      */
     public static Jws<Claims> validateToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-        } catch (JwtException e) {
+            return PARSER.parseClaimsJws(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AuthException("Invalid or expired token");
+        }
+    }
+
+    /**
+     * Verify the token and return its principal. Tokens verified recently are
+     * served from a cache keyed by their SHA-256 hash until they expire.
+     */
+    @SuppressWarnings("unchecked")
+    public static JwtPrincipal authenticate(String token) {
+        if (token == null || token.isEmpty()) {
             throw new AuthException("Invalid or expired token");
         }
+        String cacheKey = sha256(token);
+        JwtPrincipal principal = VERIFIED_TOKENS.get(cacheKey);
+        if (principal != null && !principal.isExpired()) {
+            return principal;
+        }
+
+        Claims claims = validateToken(token).getBody();
+        Date expiration = claims.getExpiration();
+        principal = new JwtPrincipal(
+                claims.get(CLAIM_USER_ID, Integer.class),
+                claims.get(CLAIM_DEALER_ID, Integer.class),
+                claims.get(CLAIM_ROLE_ID, Integer.class),
+                claims.getSubject(),
+                claims.get(CLAIM_ROLES, List.class),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE
+        );
+        VERIFIED_TOKENS.put(cacheKey, principal, principal.getExpiresAt() - System.currentTimeMillis());
+        return principal;
     }
 
     public static String extractUsername(String token) {
-        return validateToken(token).getBody().getSubject();
+        return authenticate(token).getUsername();
     }
 
-    @SuppressWarnings("unchecked")
     public static List<String> extractRoles(String token) {
-        return validateToken(token).getBody().get(CLAIM_ROLES, List.class);
+        return authenticate(token).getRoles();
     }
 
     public static int extractUserId(String token) {
-        Integer userId = validateToken(token).getBody().get(CLAIM_USER_ID, Integer.class);
-        if (userId == null) {
-            throw new AuthException("Token does not contain userId");
+        return authenticate(token).getUserId();
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return userId;
     }
 
     public static String extractToken(jakarta.servlet.http.HttpServletRequest req) {
@@ -0,0 +1,28 @@
+package utils;
+
+import java.util.List;
+
+/**
+ * One page of a list and the cursor of the page after it.
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Cursor for {@link PageRequest#getAfter()}, null on the last page or when unpaged.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,174 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset paging for one list query. A DAO declares the query once with the
+ * keys it can be sorted by, then pushes a {@link PageRequest} into it:
+ * <pre>
+ * new PageQuery("SELECT * FROM Customer", "customer_id").sortable("name", "name")
+ * </pre>
+ * The next page starts after the last row seen ({@code col > ? OR (col = ? AND id > ?)}),
+ * so reading any page costs the same as the first one when the sort column is
+ * indexed. Sort columns must be NOT NULL. The id column breaks ties and is
+ * always available as sort key "id".
+ */
+public final class PageQuery {
+
+    private static final ObjectMapper cursorMapper = new ObjectMapper();
+
+    private final String selectFrom;
+    private final String idColumn;
+    private final Map<String, String> sortColumns = new LinkedHashMap<>();
+
+    /**
+     * @param selectFrom query without WHERE, e.g. "SELECT o.* FROM [Order] o JOIN ..."
+     * @param idColumn unique column of the rows, qualified if the query joins
+     */
+    public PageQuery(String selectFrom, String idColumn) {
+        this.selectFrom = selectFrom;
+        this.idColumn = idColumn;
+        sortColumns.put("id", idColumn);
+    }
+
+    public PageQuery sortable(String key, String column) {
+        sortColumns.put(key, column);
+        return this;
+    }
+
+    /**
+     * Run the query for one page.
+     *
+     * @param condition WHERE clause of the list, as for the DAO's retrieve
+     * @throws IllegalArgumentException for an unknown sort key or a bad cursor
+     */
+    public <T> Page<T> fetch(String condition, PageRequest page, BatchLoader.RowMapper<T> mapper, Object... params)
+            throws SQLException, ClassNotFoundException {
+        String sortColumn = sortColumn(page);
+        List<Object> args = new ArrayList<>();
+        String sql = buildSql(condition, page, sortColumn, params, args);
+
+        List<T> items = new ArrayList<>();
+        String lastSortValue = null;
+        String lastId = null;
+        try ( Connection conn = DbUtils.getConnection();  PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            try ( ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapper.map(rs));
+                    lastSortValue = rs.getString(label(sortColumn));
+                    lastId = rs.getString(label(idColumn));
+                }
+            }
+        }
+
+        // A full page means there may be more
+        String nextCursor = page.isPaged() && items.size() == page.getLimit()
+                ? encodeCursor(sortSpec(page), lastSortValue, lastId)
+                : null;
+        return new Page<>(items, nextCursor);
+    }
+
+    /**
+     * Same query as {@link #fetch}, read lazily; the caller closes the cursor.
+     */
+    public <T> RowCursor<T> open(String condition, PageRequest page, BatchLoader.RowMapper<T> mapper, Object... params)
+            throws SQLException, ClassNotFoundException {
+        List<Object> args = new ArrayList<>();
+        String sql = buildSql(condition, page, sortColumn(page), params, args);
+        return RowCursor.open(sql, mapper, args.toArray());
+    }
+
+    private String buildSql(String condition, PageRequest page, String sortColumn, Object[] params, List<Object> args) {
+        String direction = page.isDescending() ? "DESC" : "ASC";
+        String compare = page.isDescending() ? "<" : ">";
+        boolean byId = sortColumn.equals(idColumn);
+
+        StringBuilder sql = new StringBuilder(selectFrom).append(" WHERE (").append(condition).append(")");
+        args.addAll(Arrays.asList(params));
+
+        if (page.getAfter() != null) {
+            String[] cursor = decodeCursor(page.getAfter());
+            if (!sortSpec(page).equals(cursor[0])) {
+                throw new IllegalArgumentException("Cursor does not belong to sort " + sortSpec(page));
+            }
+            if (byId) {
+                sql.append(" AND ").append(idColumn).append(' ').append(compare).append(" ?");
+                args.add(cursor[2]);
+            } else {
+                sql.append(" AND (").append(sortColumn).append(' ').append(compare).append(" ? OR (")
+                        .append(sortColumn).append(" = ? AND ").append(idColumn).append(' ').append(compare).append(" ?))");
+                args.add(cursor[1]);
+                args.add(cursor[1]);
+                args.add(cursor[2]);
+            }
+        }
+
+        sql.append(" ORDER BY ").append(sortColumn).append(' ').append(direction);
+        if (!byId) {
+            sql.append(", ").append(idColumn).append(' ').append(direction);
+        }
+        if (page.isPaged()) {
+            sql.append(" OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+            args.add(page.getLimit());
+        }
+        return sql.toString();
+    }
+
+    private String sortColumn(PageRequest page) {
+        if (page.getSortKey() == null) {
+            return idColumn;
+        }
+        String column = sortColumns.get(page.getSortKey());
+        if (column == null) {
+            throw new IllegalArgumentException("Cannot sort by " + page.getSortKey()
+                    + ", use one of " + sortColumns.keySet());
+        }
+        return column;
+    }
+
+    private static String sortSpec(PageRequest page) {
+        String key = page.getSortKey() != null ? page.getSortKey() : "id";
+        return page.isDescending() ? "-" + key : key;
+    }
+
+    // "o.order_date" is read back from the result set as "order_date"
+    private static String label(String column) {
+        return column.substring(column.lastIndexOf('.') + 1);
+    }
+
+    // Cursor = [sort spec, sort value, id] as JSON, base64url encoded
+    private static String encodeCursor(String sortSpec, String sortValue, String id) {
+        try {
+            byte[] json = cursorMapper.writeValueAsBytes(new String[]{sortSpec, sortValue, id});
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = cursorMapper.readValue(Base64.getUrlDecoder().decode(cursor), String[].class);
+            if (parts.length != 3 || parts[0] == null || parts[2] == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package utils;
+
+import java.util.Map;
+
+/**
+ * Optional paging and sorting of a list endpoint, read from the "limit",
+ * "sort" and "after" request params.
+ * <ul>
+ * <li>limit: page size, at most {@link #MAX_LIMIT}. Without it the whole list
+ * is returned, as before.</li>
+ * <li>sort: a key the list accepts (see {@link PageQuery}), "-" in front for
+ * descending. Defaults to the id.</li>
+ * <li>after: the X-Next-Cursor header of the previous page.</li>
+ * </ul>
+ */
+public final class PageRequest {
+
+    public static final int MAX_LIMIT = 500;
+    public static final PageRequest UNPAGED = new PageRequest(0, null, false, null);
+
+    private final int limit;
+    private final String sortKey;
+    private final boolean descending;
+    private final String after;
+
+    public PageRequest(int limit, String sortKey, boolean descending, String after) {
+        this.limit = limit;
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.after = after;
+    }
+
+    /**
+     * @throws IllegalArgumentException when limit is not a positive number
+     */
+    public static PageRequest from(Map<String, Object> params) {
+        int limit = 0;
+        Object limitParam = params.get("limit");
+        if (limitParam != null && !limitParam.toString().trim().isEmpty()) {
+            try {
+                limit = Integer.parseInt(limitParam.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid limit: " + limitParam);
+            }
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Invalid limit: " + limitParam);
+            }
+            limit = Math.min(limit, MAX_LIMIT);
+        }
+
+        String sortKey = null;
+        boolean descending = false;
+        Object sortParam = params.get("sort");
+        if (sortParam != null && !sortParam.toString().trim().isEmpty()) {
+            sortKey = sortParam.toString().trim();
+            if (sortKey.startsWith("-")) {
+                descending = true;
+                sortKey = sortKey.substring(1);
+            }
+        }
+
+        Object afterParam = params.get("after");
+        String after = afterParam != null && !afterParam.toString().trim().isEmpty()
+                ? afterParam.toString().trim() : null;
+
+        return new PageRequest(limit, sortKey, descending, after);
+    }
+
+    public boolean isPaged() {
+        return limit > 0;
+    }
+
+    /**
+     * Page size, 0 when unpaged.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Requested sort key, null for the default.
+     */
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+}
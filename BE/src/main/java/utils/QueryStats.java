@@ -0,0 +1,130 @@
+package utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL statistics for the HTTP request being handled on the current thread.
+ * Filled by {@link JdbcInstrumentation}, started/ended by filter.QueryStatsFilter.
+ */
+public class QueryStats {
+
+    public static final String HEADER_COUNT = "X-Query-Count";
+    public static final String HEADER_TIME = "X-Query-Time-Ms";
+    public static final String HEADER_N_PLUS_ONE = "X-Query-NPlusOne";
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletRequest request;
+    private final Map<String, SqlCounter> bySql = new LinkedHashMap<>();
+    private int statementCount;
+    private long totalNanos;
+
+    private QueryStats(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    public static QueryStats begin(HttpServletRequest request) {
+        QueryStats stats = new QueryStats(request);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Carry the statistics of a request over to the thread that continues
+     * it, for requests handed off to {@link AsyncEndpoints}. Pair with {@link #end()}.
+     */
+    public static void resume(QueryStats stats) {
+        if (stats != null) {
+            CURRENT.set(stats);
+        }
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    synchronized void record(String normalizedSql, long nanos) {
+        statementCount++;
+        totalNanos += nanos;
+        SqlCounter counter = bySql.get(normalizedSql);
+        if (counter == null) {
+            counter = new SqlCounter();
+            bySql.put(normalizedSql, counter);
+        }
+        counter.count++;
+        counter.nanos += nanos;
+    }
+
+    public synchronized int getStatementCount() {
+        return statementCount;
+    }
+
+    public synchronized double getTotalMillis() {
+        return totalNanos / 1_000_000.0;
+    }
+
+    public String getRequestPath() {
+        return request != null ? request.getRequestURI() : null;
+    }
+
+    /**
+     * Statements executed at least {@code threshold} times in this request,
+     * typically a DAO lookup issued inside a loop.
+     */
+    public synchronized Map<String, Integer> getNPlusOneSuspects(int threshold) {
+        Map<String, Integer> suspects = new LinkedHashMap<>();
+        for (Map.Entry<String, SqlCounter> entry : bySql.entrySet()) {
+            if (entry.getValue().count >= threshold) {
+                suspects.put(entry.getKey(), entry.getValue().count);
+            }
+        }
+        return suspects;
+    }
+
+    /**
+     * Adds the per-request totals as response headers when the caller is an admin.
+     * Must run before the response body is written.
+     */
+    public static void attachHeaders(HttpServletResponse resp) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null || resp.isCommitted() || !stats.isAdminRequest()) {
+            return;
+        }
+        resp.setHeader(HEADER_COUNT, String.valueOf(stats.getStatementCount()));
+        resp.setHeader(HEADER_TIME, String.format("%.2f", stats.getTotalMillis()));
+        resp.setHeader(HEADER_N_PLUS_ONE,
+                String.valueOf(stats.getNPlusOneSuspects(JdbcInstrumentation.getNPlusOneThreshold()).size()));
+    }
+
+    private boolean isAdminRequest() {
+        if (request == null) {
+            return false;
+        }
+        Object roles = request.getAttribute("roles");
+        return roles instanceof List && ((List<?>) roles).contains("ADMIN");
+    }
+
+    public synchronized List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, SqlCounter> entry : bySql.entrySet()) {
+            lines.add(entry.getValue().count + "x " + String.format("%.2f", entry.getValue().nanos / 1_000_000.0)
+                    + "ms " + entry.getKey());
+        }
+        return lines;
+    }
+
+    private static class SqlCounter {
+
+        private int count;
+        private long nanos;
+    }
+}
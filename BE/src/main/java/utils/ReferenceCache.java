@@ -0,0 +1,115 @@
+package utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import model.dto.DealerDTO;
+import model.dto.RoleDTO;
+import model.dto.VehicleModelDTO;
+import model.dto.VehicleVariantDTO;
+
+/**
+ * Process-wide read-through caches for reference data that changes a few
+ * times a day but is looked up in almost every list: dealers, vehicle models,
+ * variants and the roles of an account, all keyed by id. The DAOs fill them
+ * on a miss and invalidate the entry when they update the row.
+ * <p>
+ * Cached objects are shared between requests, so callers must not modify them.
+ */
+public final class ReferenceCache {
+
+    // Upper bound on staleness for rows changed outside this application
+    private static final long TTL_MS = 10 * 60 * 1000L;
+
+    public static final TtlCache<Integer, DealerDTO> DEALERS = new TtlCache<>(TTL_MS, 1000);
+    public static final TtlCache<Integer, VehicleModelDTO> MODELS = new TtlCache<>(TTL_MS, 1000);
+    public static final TtlCache<Integer, VehicleVariantDTO> VARIANTS = new TtlCache<>(TTL_MS, 5000);
+    public static final TtlCache<Integer, List<RoleDTO>> USER_ROLES = new TtlCache<>(TTL_MS, 5000);
+
+    private static final Map<String, TtlCache<Integer, ?>> CACHES = new LinkedHashMap<>();
+
+    // Bumped on every write to VehicleModel or VehicleVariant
+    private static final AtomicLong CATALOG_VERSION = new AtomicLong();
+    // Bumped on every write to Promotion or DealerPromotion
+    private static final AtomicLong PROMOTION_VERSION = new AtomicLong();
+
+    static {
+        CACHES.put("dealers", DEALERS);
+        CACHES.put("models", MODELS);
+        CACHES.put("variants", VARIANTS);
+        CACHES.put("userRoles", USER_ROLES);
+    }
+
+    private ReferenceCache() {
+    }
+
+    /**
+     * Version of the vehicle catalog; a snapshot built at an older version is stale.
+     */
+    public static long catalogVersion() {
+        return CATALOG_VERSION.get();
+    }
+
+    /**
+     * Called after a model or variant is created or changed.
+     */
+    public static void catalogChanged() {
+        CATALOG_VERSION.incrementAndGet();
+    }
+
+    /**
+     * Version of the promotions and their dealer assignments.
+     */
+    public static long promotionVersion() {
+        return PROMOTION_VERSION.get();
+    }
+
+    /**
+     * Called after a promotion is created or deleted, or assigned to a dealer.
+     */
+    public static void promotionsChanged() {
+        PROMOTION_VERSION.incrementAndGet();
+    }
+
+    /**
+     * Size, hits, misses and evictions of every cache, by cache name.
+     */
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, TtlCache<Integer, ?>> entry : CACHES.entrySet()) {
+            TtlCache<Integer, ?> cache = entry.getValue();
+            Map<String, Object> cacheStats = new LinkedHashMap<>();
+            cacheStats.put("size", cache.size());
+            cacheStats.put("hits", cache.getHits());
+            cacheStats.put("misses", cache.getMisses());
+            cacheStats.put("evictions", cache.getEvictions());
+            stats.put(entry.getKey(), cacheStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Drop every entry of one cache, or of all caches when {@code name} is null.
+     *
+     * @throws IllegalArgumentException for an unknown cache name
+     */
+    public static void invalidateAll(String name) {
+        if (name == null) {
+            for (TtlCache<Integer, ?> cache : CACHES.values()) {
+                cache.invalidateAll();
+            }
+            catalogChanged();
+            promotionsChanged();
+            return;
+        }
+        TtlCache<Integer, ?> cache = CACHES.get(name);
+        if (cache == null) {
+            throw new IllegalArgumentException("Unknown cache " + name + ", use one of " + CACHES.keySet());
+        }
+        cache.invalidateAll();
+        if (cache == MODELS || cache == VARIANTS) {
+            catalogChanged();
+        }
+    }
+}
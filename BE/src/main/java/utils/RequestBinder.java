@@ -0,0 +1,234 @@
+package utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.Part;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads request bodies into typed request objects. JSON is parsed by Jackson
+ * straight from the input stream; form and multipart fields go through the
+ * same reader, so "12" binds to an int field either way. The reader of each
+ * type is built once and reused.
+ * <p>
+ * Bodies over {@link #MAX_BODY_BYTES} are refused. Type errors and the
+ * checks of {@link ValidatedRequest} come back as a {@link BindException}
+ * with one message per field.
+ */
+public final class RequestBinder {
+
+    // Largest JSON or form body accepted; file parts of multipart requests are not counted
+    public static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectReader mapReader = mapper.readerFor(new TypeReference<LinkedHashMap<String, Object>>() {
+    });
+    private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private RequestBinder() {
+    }
+
+    /**
+     * Bind the body to a new {@code type} and validate it.
+     *
+     * @throws BindException when the body is too large, malformed or invalid
+     */
+    public static <T> T bind(HttpServletRequest request, Class<T> type)
+            throws IOException, ServletException, BindException {
+        ObjectReader reader = readers.computeIfAbsent(type, mapper::readerFor);
+        T value;
+        try {
+            if (isJson(request)) {
+                value = reader.readValue(limitedBody(request));
+            } else {
+                JsonNode fields = mapper.valueToTree(formFields(request, false));
+                value = reader.readValue(fields);
+            }
+        } catch (BodyTooLargeException e) {
+            throw new BindException(e.getMessage());
+        } catch (JsonMappingException e) {
+            throw fieldError(e);
+        } catch (JsonProcessingException e) {
+            throw new BindException("Malformed JSON body: " + e.getOriginalMessage());
+        }
+        if (value == null) {
+            throw new BindException("Request body is empty");
+        }
+
+        if (value instanceof ValidatedRequest) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            ((ValidatedRequest) value).validate(errors);
+            if (!errors.isEmpty()) {
+                throw new BindException("Invalid fields: " + String.join(", ", errors.keySet()), errors);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * The body as a map of field name to value, for {@link RequestUtils#extractParams}.
+     * JSON values keep their JSON type; form fields are strings; file parts
+     * are the {@link Part} itself.
+     */
+    public static Map<String, Object> params(HttpServletRequest request) throws IOException, ServletException {
+        if (request.getContentType() == null) {
+            return new LinkedHashMap<>();
+        }
+        if (isJson(request)) {
+            Map<String, Object> params = mapReader.readValue(limitedBody(request));
+            return params != null ? params : new LinkedHashMap<>();
+        }
+        return formFields(request, true);
+    }
+
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.contains("application/json");
+    }
+
+    private static Map<String, Object> formFields(HttpServletRequest request, boolean withFiles)
+            throws IOException, ServletException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return fields;
+        }
+        if (contentType.contains("application/x-www-form-urlencoded")) {
+            if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            Enumeration<String> names = request.getParameterNames();
+            while (names.hasMoreElements()) {
+                String name = names.nextElement();
+                fields.put(name, request.getParameter(name));
+            }
+        } else if (contentType.contains("multipart/form-data")) {
+            for (Part part : request.getParts()) {
+                if (part.getContentType() == null) {
+                    // Regular form field
+                    fields.put(part.getName(), readText(part));
+                } else if (withFiles) {
+                    fields.put(part.getName(), part);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static String readText(Part part) throws IOException {
+        if (part.getSize() > MAX_BODY_BYTES) {
+            throw new BodyTooLargeException();
+        }
+        try ( InputStream in = part.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(part.getSize(), 32));
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static InputStream limitedBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+            throw new BodyTooLargeException();
+        }
+        // Content-Length may be absent (chunked), so count while reading too
+        return new FilterInputStream(request.getInputStream()) {
+            private long read;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    count(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    count(n);
+                }
+                return n;
+            }
+
+            private void count(int n) throws IOException {
+                read += n;
+                if (read > MAX_BODY_BYTES) {
+                    throw new BodyTooLargeException();
+                }
+            }
+        };
+    }
+
+    private static BindException fieldError(JsonMappingException e) {
+        StringBuilder field = new StringBuilder();
+        for (JsonMappingException.Reference ref : e.getPath()) {
+            if (ref.getFieldName() != null) {
+                if (field.length() > 0) {
+                    field.append('.');
+                }
+                field.append(ref.getFieldName());
+            } else if (ref.getIndex() >= 0) {
+                field.append('[').append(ref.getIndex()).append(']');
+            }
+        }
+        if (field.length() == 0) {
+            return new BindException(e instanceof MismatchedInputException && e.getPath().isEmpty()
+                    && e.getOriginalMessage() != null && e.getOriginalMessage().startsWith("No content")
+                    ? "Request body is empty"
+                    : "Request body must be a JSON object");
+        }
+        Class<?> target = e instanceof MismatchedInputException ? ((MismatchedInputException) e).getTargetType() : null;
+        Map<String, String> errors = new LinkedHashMap<>();
+        errors.put(field.toString(), "must be " + describe(target));
+        return new BindException("Invalid fields: " + field, errors);
+    }
+
+    private static String describe(Class<?> type) {
+        if (type == null) {
+            return "a valid value";
+        }
+        if (type == Integer.class || type == int.class || type == Long.class || type == long.class) {
+            return "a whole number";
+        }
+        if (Number.class.isAssignableFrom(type) || type == double.class || type == float.class) {
+            return "a number";
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return "true or false";
+        }
+        if (type == String.class) {
+            return "a string";
+        }
+        return "a valid value";
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+
+        BodyTooLargeException() {
+            super("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+        }
+    }
+}
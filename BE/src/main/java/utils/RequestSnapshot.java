@@ -0,0 +1,404 @@
+package utils;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A request read completely on the container thread, for a controller that
+ * runs after the container may have recycled the original (see
+ * {@code ApiDispatcher.dispatchAsync}). Method, paths, headers, parameters,
+ * attributes, the body (up to one byte over
+ * {@link RequestBinder#MAX_BODY_BYTES}, so the binder still refuses larger
+ * ones) and multipart parts are copied; the rest is read from the original
+ * until {@link #detach()}, and throws {@link IllegalStateException} after.
+ */
+public final class RequestSnapshot extends HttpServletRequestWrapper {
+
+    private static final HttpServletRequest DETACHED = (HttpServletRequest) Proxy.newProxyInstance(
+            RequestSnapshot.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+            (proxy, method, args) -> {
+                throw new IllegalStateException("The request is over, " + method.getName() + "() is not available");
+            });
+
+    private final String method;
+    private final String requestURI;
+    private final StringBuffer requestURL;
+    private final String contextPath;
+    private final String servletPath;
+    private final String pathInfo;
+    private final String queryString;
+    private final String contentType;
+    private final long contentLength;
+    private final String remoteAddr;
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, String[]> parameters;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final List<Part> parts;
+    private final byte[] body;
+    private String characterEncoding;
+    private boolean bodyUsed;
+
+    public RequestSnapshot(HttpServletRequest request) throws IOException, ServletException {
+        super(request);
+        method = request.getMethod();
+        requestURI = request.getRequestURI();
+        requestURL = request.getRequestURL();
+        contextPath = request.getContextPath();
+        servletPath = request.getServletPath();
+        pathInfo = request.getPathInfo();
+        queryString = request.getQueryString();
+        contentType = request.getContentType();
+        contentLength = request.getContentLengthLong();
+        remoteAddr = request.getRemoteAddr();
+        characterEncoding = request.getCharacterEncoding();
+
+        for (Enumeration<String> names = request.getHeaderNames(); names.hasMoreElements();) {
+            String name = names.nextElement();
+            headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        for (Enumeration<String> names = request.getAttributeNames(); names.hasMoreElements();) {
+            String name = names.nextElement();
+            Object value = request.getAttribute(name);
+            if (value != null) {
+                attributes.put(name, value);
+            }
+        }
+
+        // Form bodies are consumed by the parameter parsing, the others are kept as bytes
+        if (contentType != null && contentType.contains("multipart/form-data")) {
+            List<Part> copies = new ArrayList<>();
+            for (Part part : request.getParts()) {
+                copies.add(new CopiedPart(part));
+            }
+            parts = Collections.unmodifiableList(copies);
+            body = new byte[0];
+        } else {
+            parts = Collections.emptyList();
+            body = contentType != null && contentType.contains("application/x-www-form-urlencoded")
+                    ? new byte[0] : readBody(request.getInputStream());
+        }
+        parameters = Collections.unmodifiableMap(new LinkedHashMap<>(request.getParameterMap()));
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int limit = RequestBinder.MAX_BODY_BYTES + 1;
+        int n;
+        while (out.size() < limit && (n = in.read(buffer, 0, Math.min(buffer.length, limit - out.size()))) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Stop reading the original request; called when it is completed
+     * without waiting for the controller.
+     */
+    public void detach() {
+        setRequest(DETACHED);
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        return new StringBuffer(requestURL);
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getServletPath() {
+        return servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return pathInfo;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return contentLength > Integer.MAX_VALUE ? -1 : (int) contentLength;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return contentLength;
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return remoteAddr;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+        if (env != null && !Charset.isSupported(env)) {
+            throw new UnsupportedEncodingException(env);
+        }
+        characterEncoding = env;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return Collections.enumeration(values == null ? Collections.<String>emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return parameters;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public Collection<Part> getParts() throws IOException, ServletException {
+        if (contentType == null || !contentType.contains("multipart/form-data")) {
+            throw new ServletException("Not a multipart request");
+        }
+        return parts;
+    }
+
+    @Override
+    public Part getPart(String name) throws IOException, ServletException {
+        for (Part part : getParts()) {
+            if (part.getName().equals(name)) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        useBody();
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                throw new IllegalStateException("The body is already read");
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        useBody();
+        Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.ISO_8859_1;
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), charset));
+    }
+
+    // Like the container: the body can be read once
+    private synchronized void useBody() {
+        if (bodyUsed) {
+            throw new IllegalStateException("The request body was already read");
+        }
+        bodyUsed = true;
+    }
+
+    /**
+     * A multipart part held in memory; the container's own is deleted with
+     * the request.
+     */
+    private static final class CopiedPart implements Part {
+
+        private final String name;
+        private final String submittedFileName;
+        private final String contentType;
+        private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final byte[] bytes;
+
+        CopiedPart(Part part) throws IOException {
+            name = part.getName();
+            submittedFileName = part.getSubmittedFileName();
+            contentType = part.getContentType();
+            for (String header : part.getHeaderNames()) {
+                headers.put(header, new ArrayList<>(part.getHeaders(header)));
+            }
+            try ( InputStream in = part.getInputStream()) {
+                bytes = in.readAllBytes();
+            }
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getSubmittedFileName() {
+            return submittedFileName;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public void write(String fileName) throws IOException {
+            Files.write(Paths.get(fileName), bytes);
+        }
+
+        @Override
+        public void delete() {
+        }
+
+        @Override
+        public String getHeader(String header) {
+            List<String> values = headers.get(header);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String header) {
+            List<String> values = headers.get(header);
+            return values == null ? Collections.<String>emptyList() : values;
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return headers.keySet();
+        }
+    }
+}
@@ -4,9 +4,15 @@
  */
 package utils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import json.ApiResponse;
@@ -18,22 +24,149 @@ import json.ApiResponse;
 public class ResponseUtils {
 
     private static final ObjectMapper mapper = new ObjectMapper();
+    // Rows are flushed by the servlet buffer, not after every row
+    private static final ObjectWriter rowWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
     public static <T> void success(HttpServletResponse resp, String message, T data) throws IOException {
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
+        QueryStats.attachHeaders(resp);
         ApiResponse<T> response = new ApiResponse<>("success", message, data);
         mapper.writeValue(resp.getWriter(), response);
     }
 
+    /**
+     * {@link #success} with the page's items; the cursor of the next page goes
+     * in the X-Next-Cursor header.
+     */
+    public static <T> void page(HttpServletResponse resp, String message, Page<T> page) throws IOException {
+        if (page.getNextCursor() != null) {
+            resp.setHeader("X-Next-Cursor", page.getNextCursor());
+        }
+        success(resp, message, page.getItems());
+    }
+
+    /**
+     * Same envelope as {@link #success}, with {@code data} written row by row
+     * from the cursor so the list never has to be in memory. If reading fails
+     * halfway the body is left unterminated, so the client sees broken JSON
+     * rather than a short list that looks complete.
+     */
+    public static <T> void stream(HttpServletResponse resp, String message, RowCursor<T> rows) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        QueryStats.attachHeaders(resp);
+        JsonGenerator gen = mapper.getFactory().createGenerator(resp.getWriter());
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        try {
+            gen.writeStartObject();
+            gen.writeStringField("status", "success");
+            gen.writeStringField("message", message);
+            gen.writeArrayFieldStart("data");
+            while (rows.hasNext()) {
+                rowWriter.writeValue(gen, rows.next());
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (SQLException e) {
+            throw new IOException("Error while streaming rows: " + e.getMessage(), e);
+        } finally {
+            gen.close();
+        }
+    }
+
+    /**
+     * The bytes {@link #success} would write, for a response that is built once
+     * and served with {@link #cached}.
+     */
+    public static <T> CachedJson prepare(String message, T data) throws IOException {
+        return new CachedJson(mapper.writeValueAsBytes(new ApiResponse<>("success", message, data)));
+    }
+
+    /**
+     * Send a prepared body, gzipped when the client accepts it. A client that
+     * already holds this version (If-None-Match) gets 304 and no body.
+     */
+    public static void cached(HttpServletRequest req, HttpServletResponse resp, CachedJson body) throws IOException {
+        boolean gzip = body.getGzipped() != null && acceptsGzip(req.getHeader("Accept-Encoding"));
+        String etag = gzip ? body.getGzipEtag() : body.getEtag();
+        QueryStats.attachHeaders(resp);
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Vary", "Accept-Encoding");
+        // Cache, but ask every time whether the catalog changed
+        resp.setHeader("Cache-Control", "no-cache");
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (matchesEtag(ifNoneMatch, body.getEtag())
+                || (body.getGzipEtag() != null && matchesEtag(ifNoneMatch, body.getGzipEtag())))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] bytes = gzip ? body.getGzipped() : body.getBytes();
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if (gzip) {
+            resp.setHeader("Content-Encoding", "gzip");
+        }
+        resp.setContentLength(bytes.length);
+        resp.getOutputStream().write(bytes);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // "gzip;q=0" means the client refuses it
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match compares weakly, so W/"x" matches "x"
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static void error(HttpServletResponse resp, String message) throws IOException {
-        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST); // optional
+        error(resp, HttpServletResponse.SC_BAD_REQUEST, message);
+    }
+
+    public static void error(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
+        QueryStats.attachHeaders(resp);
         ApiResponse<Object> response = new ApiResponse<>("error", message, null);
         mapper.writeValue(resp.getWriter(), response);
     }
 
+    /**
+     * {@link #error} for a body that could not be bound, with the message of
+     * each invalid field as data.
+     */
+    public static void error(HttpServletResponse resp, BindException e) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        QueryStats.attachHeaders(resp);
+        Map<String, String> fields = e.getFieldErrors().isEmpty() ? null : e.getFieldErrors();
+        mapper.writeValue(resp.getWriter(), new ApiResponse<>("error", e.getMessage(), fields));
+    }
+
     //Helper For Update
     public <T> void updateIfNotNull(Consumer<T> setter, T newValue) {
         if (newValue != null) {
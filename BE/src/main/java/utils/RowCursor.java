@@ -0,0 +1,96 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * Forward-only cursor over a query, mapping one row at a time. It holds a
+ * pooled connection until closed, so always use it in try-with-resources.
+ * Used with {@link ResponseUtils#stream} to send big lists without building
+ * them in memory first.
+ */
+public final class RowCursor<T> implements AutoCloseable {
+
+    // Rows the driver fetches per round trip
+    private static final int FETCH_SIZE = 500;
+
+    private final Connection conn;
+    private final PreparedStatement ps;
+    private final ResultSet rs;
+    private final BatchLoader.RowMapper<T> mapper;
+    private T next;
+    private boolean fetched;
+    private boolean exhausted;
+
+    private RowCursor(Connection conn, PreparedStatement ps, ResultSet rs, BatchLoader.RowMapper<T> mapper) {
+        this.conn = conn;
+        this.ps = ps;
+        this.rs = rs;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Run the query. Errors in the statement are thrown here, before the
+     * caller has written anything.
+     */
+    public static <T> RowCursor<T> open(String sql, BatchLoader.RowMapper<T> mapper, Object... params)
+            throws SQLException, ClassNotFoundException {
+        Connection conn = DbUtils.getConnection();
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return new RowCursor<>(conn, ps, ps.executeQuery(), mapper);
+        } catch (SQLException | RuntimeException e) {
+            if (ps != null) {
+                ps.close();
+            }
+            conn.close();
+            throw e;
+        }
+    }
+
+    public boolean hasNext() throws SQLException {
+        if (!fetched && !exhausted) {
+            if (rs.next()) {
+                next = mapper.map(rs);
+                fetched = true;
+            } else {
+                exhausted = true;
+            }
+        }
+        return fetched;
+    }
+
+    public T next() throws SQLException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T row = next;
+        next = null;
+        fetched = false;
+        return row;
+    }
+
+    @Override
+    public void close() {
+        try {
+            rs.close();
+            ps.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The name search indexes of the application. They are filled at startup by
+ * {@code SearchService.loadAll()} and kept current by the DAOs that create or
+ * rename the rows.
+ */
+public final class SearchIndexes {
+
+    public static final TrigramIndex MODELS = new TrigramIndex();
+    public static final TrigramIndex CUSTOMERS = new TrigramIndex();
+    public static final TrigramIndex DEALERS = new TrigramIndex();
+    // Dealer staff and managers by username, scoped by dealer id
+    public static final TrigramIndex DEALER_STAFF = new TrigramIndex();
+
+    private SearchIndexes() {
+    }
+
+    /**
+     * Number of indexed rows, by index name.
+     */
+    public static Map<String, Object> sizes() {
+        Map<String, Object> sizes = new LinkedHashMap<>();
+        sizes.put("models", MODELS.size());
+        sizes.put("customers", CUSTOMERS.size());
+        sizes.put("dealers", DEALERS.size());
+        sizes.put("dealerStaff", DEALER_STAFF.size());
+        return sizes;
+    }
+}
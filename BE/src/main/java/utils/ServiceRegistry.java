@@ -0,0 +1,66 @@
+package utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One shared instance of each service and DAO. Services and DAOs keep no
+ * per-request state, so controllers and services take theirs from here
+ * instead of building their own copies:
+ * <pre>
+ * private final OrderService orderService = ServiceRegistry.get(OrderService.class);
+ * </pre>
+ * An instance is created with its no-arg constructor the first time it is
+ * asked for; the instances it asks for in turn are created on the way.
+ */
+public final class ServiceRegistry {
+
+    private static final Map<Class<?>, Object> instances = new ConcurrentHashMap<>();
+    // Types whose constructor is running, to report cycles instead of overflowing the stack
+    private static final Set<Class<?>> creating = new HashSet<>();
+
+    private ServiceRegistry() {
+    }
+
+    public static <T> T get(Class<T> type) {
+        Object instance = instances.get(type);
+        if (instance == null) {
+            instance = create(type);
+        }
+        return type.cast(instance);
+    }
+
+    /**
+     * Number of instances created so far.
+     */
+    public static int size() {
+        return instances.size();
+    }
+
+    private static synchronized Object create(Class<?> type) {
+        Object instance = instances.get(type);
+        if (instance != null) {
+            return instance;
+        }
+        if (!creating.add(type)) {
+            throw new IllegalStateException("Circular dependency while creating " + type.getName());
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            instance = constructor.newInstance();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create " + type.getName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + type.getName(), e);
+        } finally {
+            creating.remove(type);
+        }
+        instances.put(type, instance);
+        return instance;
+    }
+}
@@ -0,0 +1,508 @@
+package utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory name search over one kind of row, keyed by id. Names are folded
+ * (lower case, accents and "đ" removed, punctuation dropped) and split into
+ * words. Every distinct word keeps the sorted ids of the rows that contain it,
+ * and the words themselves are indexed by trigram, padded like pg_trgm
+ * ("an" gives "  a", " an", "an ").
+ * <p>
+ * Each word of a query is looked up in the vocabulary: the same word, words
+ * that start with it (last query word only, for search-as-you-type), and words
+ * sharing at least {@link #MIN_SIMILARITY} of their trigrams (typos, missing
+ * letters). A row matches when it has a match for every query word. Rows are
+ * ranked by how exact their matches are, then shorter names first.
+ * <p>
+ * The vocabulary of names is small next to the number of rows, so a query
+ * costs a few trigram lookups plus an intersection of id lists.
+ * <p>
+ * A row may belong to a scope (a dealer id); searches in a scope only see
+ * rows of that scope. Scope 0 means "no scope" on both sides.
+ * <p>
+ * Rows are kept in arrays indexed by id, which suits identity keys.
+ */
+public final class TrigramIndex {
+
+    // Jaccard similarity of the trigram sets above which two words match
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Match quality of a word, lower is better
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int FUZZY = 2;
+
+    // Folded name and scope of each row, by id; null name = not indexed
+    private String[] names = new String[16];
+    private int[] scopes = new int[16];
+    private int size;
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<Long, List<Term>> termsByGram = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * A distinct word and the rows containing it.
+     */
+    private static final class Term {
+
+        final String text;
+        final long[] grams;
+        final IdList rows = new IdList();
+
+        Term(String text) {
+            this.text = text;
+            this.grams = trigrams(text, false);
+        }
+    }
+
+    private static final class Hit {
+
+        final int id;
+        final int quality;
+        final int length;
+
+        Hit(int id, int quality, int length) {
+            this.id = id;
+            this.quality = quality;
+            this.length = length;
+        }
+    }
+
+    // Best hit first
+    private static final Comparator<Hit> RANKING = Comparator.<Hit>comparingInt(h -> h.quality)
+            .thenComparingInt(h -> h.length)
+            .thenComparingInt(h -> h.id);
+
+    /**
+     * Add or replace the name of a row.
+     */
+    public void put(int id, String name, int scope) {
+        String folded = fold(name);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (id >= names.length) {
+                int capacity = Math.max(id + 1, names.length * 2);
+                names = Arrays.copyOf(names, capacity);
+                scopes = Arrays.copyOf(scopes, capacity);
+            }
+            names[id] = folded;
+            scopes[id] = scope;
+            size++;
+            for (String word : words(folded)) {
+                Term term = terms.get(word);
+                if (term == null) {
+                    term = new Term(word);
+                    terms.put(word, term);
+                    for (long gram : term.grams) {
+                        termsByGram.computeIfAbsent(gram, g -> new ArrayList<>()).add(term);
+                    }
+                }
+                term.rows.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop everything, before a full reload.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            names = new String[16];
+            scopes = new int[16];
+            size = 0;
+            terms.clear();
+            termsByGram.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best matching rows, best first.
+     *
+     * @param scope only rows of this scope, 0 for all rows
+     */
+    public List<Integer> search(String query, int scope, int limit) {
+        String[] words = words(fold(query));
+        if (words.length == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            // Matching vocabulary words of each query word, with their quality
+            List<Map<Term, Integer>> matches = new ArrayList<>(words.length);
+            for (int i = 0; i < words.length; i++) {
+                Map<Term, Integer> wordMatches = matchTerms(words[i], i == words.length - 1);
+                if (wordMatches.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                matches.add(wordMatches);
+            }
+            // Start from the query word with the fewest rows
+            matches.sort(Comparator.comparingLong(TrigramIndex::rowCount));
+
+            Candidates candidates = Candidates.of(matches.get(0));
+            for (int i = 1; i < matches.size() && candidates.size > 0; i++) {
+                candidates = candidates.retain(matches.get(i));
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            Hit worst = null;
+            for (int k = 0; k < candidates.size; k++) {
+                int id = candidates.ids[k];
+                if (scope != 0 && scopes[id] != scope) {
+                    continue;
+                }
+                // Ids come in ascending order, so an equal hit never beats the worst kept one
+                int quality = candidates.quality[k];
+                int length = names[id].length();
+                if (worst != null && (quality > worst.quality
+                        || (quality == worst.quality && length >= worst.length))) {
+                    continue;
+                }
+                top.add(new Hit(id, quality, length));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+                if (top.size() == limit) {
+                    worst = top.peek();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(RANKING);
+            List<Integer> ids = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                ids.add(hit.id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower case, without accents, "đ" as "d", words separated by one space.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder sb = new StringBuilder(stripped.length());
+        boolean space = true;
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = Character.toLowerCase(stripped.charAt(i));
+            // "đ" has no decomposition, NFD leaves it alone
+            if (c == 'đ') {
+                c = 'd';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
+    private void removeLocked(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        if (id >= names.length || names[id] == null) {
+            return;
+        }
+        String old = names[id];
+        names[id] = null;
+        scopes[id] = 0;
+        size--;
+        for (String word : words(old)) {
+            Term term = terms.get(word);
+            if (term == null) {
+                continue;
+            }
+            term.rows.remove(id);
+            if (term.rows.size == 0) {
+                terms.remove(word);
+                for (long gram : term.grams) {
+                    List<Term> list = termsByGram.get(gram);
+                    list.remove(term);
+                    if (list.isEmpty()) {
+                        termsByGram.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private Map<Term, Integer> matchTerms(String word, boolean last) {
+        Map<Term, Integer> result = new HashMap<>();
+        Term exact = terms.get(word);
+        if (exact != null) {
+            result.put(exact, EXACT);
+        }
+
+        if (last) {
+            // Words starting with "word" contain every trigram of "  word"
+            List<Term> shortest = null;
+            for (long gram : trigrams(word, true)) {
+                List<Term> list = termsByGram.get(gram);
+                if (list == null) {
+                    shortest = Collections.emptyList();
+                    break;
+                }
+                if (shortest == null || list.size() < shortest.size()) {
+                    shortest = list;
+                }
+            }
+            for (Term term : shortest) {
+                if (term.text.startsWith(word)) {
+                    result.putIfAbsent(term, PREFIX);
+                }
+            }
+        }
+
+        // A one-letter word has too few trigrams to compare
+        if (word.length() > 1) {
+            long[] grams = trigrams(word, false);
+            Map<Term, Integer> shared = new HashMap<>();
+            for (long gram : grams) {
+                List<Term> list = termsByGram.get(gram);
+                if (list != null) {
+                    for (Term term : list) {
+                        shared.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<Term, Integer> e : shared.entrySet()) {
+                int common = e.getValue();
+                double similarity = (double) common / (grams.length + e.getKey().grams.length - common);
+                if (similarity >= MIN_SIMILARITY) {
+                    result.putIfAbsent(e.getKey(), FUZZY);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static long rowCount(Map<Term, Integer> wordMatches) {
+        long count = 0;
+        for (Term term : wordMatches.keySet()) {
+            count += term.rows.size;
+        }
+        return count;
+    }
+
+    private static String[] words(String folded) {
+        if (folded.isEmpty()) {
+            return new String[0];
+        }
+        return new LinkedHashSet<>(Arrays.asList(folded.split(" "))).toArray(new String[0]);
+    }
+
+    /**
+     * Distinct trigrams of one folded word, each packed into a long.
+     *
+     * @param prefix leave the end of the word open
+     */
+    private static long[] trigrams(String word, boolean prefix) {
+        String padded = "  " + word + (prefix ? "" : " ");
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        long[] result = new long[grams.size()];
+        int i = 0;
+        for (long gram : grams) {
+            result[i++] = gram;
+        }
+        return result;
+    }
+
+    /**
+     * Sorted ids of the rows matching the query words so far, with the summed
+     * quality of their best match for each word.
+     */
+    private static final class Candidates {
+
+        final int[] ids;
+        final int[] quality;
+        final int size;
+
+        private Candidates(int[] ids, int[] quality, int size) {
+            this.ids = ids;
+            this.quality = quality;
+            this.size = size;
+        }
+
+        // Rows of any of the matching words
+        static Candidates of(Map<Term, Integer> wordMatches) {
+            if (wordMatches.size() == 1) {
+                Map.Entry<Term, Integer> only = wordMatches.entrySet().iterator().next();
+                IdList rows = only.getKey().rows;
+                int[] quality = new int[rows.size];
+                Arrays.fill(quality, only.getValue());
+                return new Candidates(Arrays.copyOf(rows.ids, rows.size), quality, rows.size);
+            }
+            // id and quality packed in one long: sorting puts each id's best match first
+            int total = 0;
+            for (Term term : wordMatches.keySet()) {
+                total += term.rows.size;
+            }
+            long[] packed = new long[total];
+            int p = 0;
+            for (Map.Entry<Term, Integer> match : wordMatches.entrySet()) {
+                IdList rows = match.getKey().rows;
+                long q = match.getValue();
+                for (int k = 0; k < rows.size; k++) {
+                    packed[p++] = ((long) rows.ids[k] << 2) | q;
+                }
+            }
+            Arrays.sort(packed);
+            int[] ids = new int[total];
+            int[] quality = new int[total];
+            int n = 0;
+            for (long value : packed) {
+                int id = (int) (value >>> 2);
+                if (n == 0 || ids[n - 1] != id) {
+                    ids[n] = id;
+                    quality[n] = (int) (value & 3);
+                    n++;
+                }
+            }
+            return new Candidates(ids, quality, n);
+        }
+
+        // Keep the rows that also match this query word. Both sides are sorted,
+        // so each term's list is walked once, skipping ahead by galloping.
+        Candidates retain(Map<Term, Integer> wordMatches) {
+            IdList[] lists = new IdList[wordMatches.size()];
+            int[] listQuality = new int[lists.length];
+            int[] cursors = new int[lists.length];
+            int t = 0;
+            for (Map.Entry<Term, Integer> match : wordMatches.entrySet()) {
+                lists[t] = match.getKey().rows;
+                listQuality[t] = match.getValue();
+                t++;
+            }
+
+            int[] keptIds = new int[size];
+            int[] keptQuality = new int[size];
+            int n = 0;
+            for (int k = 0; k < size; k++) {
+                int bestQuality = Integer.MAX_VALUE;
+                for (int i = 0; i < lists.length; i++) {
+                    cursors[i] = lists[i].seek(cursors[i], ids[k]);
+                    if (listQuality[i] < bestQuality && cursors[i] < lists[i].size
+                            && lists[i].ids[cursors[i]] == ids[k]) {
+                        bestQuality = listQuality[i];
+                    }
+                }
+                if (bestQuality != Integer.MAX_VALUE) {
+                    keptIds[n] = ids[k];
+                    keptQuality[n] = quality[k] + bestQuality;
+                    n++;
+                }
+            }
+            return new Candidates(keptIds, keptQuality, n);
+        }
+    }
+
+    /**
+     * Sorted ids without boxing. Ids mostly grow, so adding is usually an append.
+     */
+    private static final class IdList {
+
+        int[] ids = new int[4];
+        int size;
+
+        /**
+         * Position of the first id >= {@code id}, searching from {@code from}.
+         */
+        int seek(int from, int id) {
+            int step = 1;
+            int hi = from;
+            while (hi < size && ids[hi] < id) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int pos = Arrays.binarySearch(ids, from, Math.min(hi + 1, size), id);
+            return pos >= 0 ? pos : -pos - 1;
+        }
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) {
+                    return;
+                }
+                insertAt(-pos - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        private void insertAt(int pos, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small in-memory cache with a per-entry time to live and a size bound
+ * (least recently used entries are evicted first).
+ * <p>
+ * Every invalidation bumps a generation. A value read from the database is
+ * cached with {@link #putIfUnchanged} against the generation taken before the
+ * read, so a read that raced with a write and its invalidation is not cached.
+ */
+public class TtlCache<K, V> {
+
+    public interface Loader<V, E extends Exception> {
+
+        V load() throws E;
+    }
+
+    public interface BulkLoader<K, V, E extends Exception> {
+
+        Map<K, V> load(Collection<K> keys) throws E;
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final Map<K, Entry<V>> entries;
+    // Bumped under the entries lock by every invalidation
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlCache(long ttlMillis, final int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached value for {@code key}, or null if absent or expired.
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cached value for {@code key}, loading and caching it on a miss. Null values are not cached.
+     */
+    public <E extends Exception> V get(K key, Loader<V, E> loader) throws E {
+        long before = generation();
+        V value = get(key);
+        if (value == null) {
+            value = loader.load();
+            if (value != null) {
+                putIfUnchanged(key, value, before);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Cached values for {@code keys}; the missing ones are loaded with one
+     * call to {@code loader} and cached. Keys the loader does not return are
+     * left out of the result.
+     */
+    public <E extends Exception> Map<K, V> getAll(Collection<K> keys, BulkLoader<K, V, E> loader) throws E {
+        Map<K, V> result = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            if (key == null || result.containsKey(key)) {
+                continue;
+            }
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long before = generation();
+            Map<K, V> loaded = loader.load(missing);
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                if (entry.getValue() != null) {
+                    putIfUnchanged(entry.getKey(), entry.getValue(), before);
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Cache {@code value} for at most {@code ttlMillis}, capped by the cache's own time to live.
+     */
+    public void put(K key, V value, long ttlMillis) {
+        long expiresAt = System.currentTimeMillis() + Math.min(ttlMillis, this.ttlMillis);
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Current generation; take it before reading a value that will be cached
+     * with {@link #putIfUnchanged}.
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Cache {@code value} unless something was invalidated since
+     * {@code generation} was taken; the value may predate that write.
+     *
+     * @return whether the value was cached
+     */
+    public boolean putIfUnchanged(K key, V value, long generation) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        synchronized (entries) {
+            if (this.generation != generation) {
+                return false;
+            }
+            entries.put(key, new Entry<>(value, expiresAt));
+            return true;
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
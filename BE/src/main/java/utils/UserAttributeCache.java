@@ -0,0 +1,32 @@
+package utils;
+
+import model.dto.UserAccountDTO;
+
+/**
+ * Short-lived cache of the account fields checked on every request
+ * (dealer, role, active flag), keyed by user id. Entries are dropped as soon
+ * as the account is updated or enabled/disabled.
+ */
+public final class UserAttributeCache {
+
+    // Short enough that a disabled account is locked out quickly even without invalidation
+    private static final long TTL_MS = 30 * 1000L;
+    private static final int MAX_SIZE = 5000;
+
+    private static final TtlCache<Integer, UserAccountDTO> CACHE = new TtlCache<>(TTL_MS, MAX_SIZE);
+
+    private UserAttributeCache() {
+    }
+
+    public static UserAccountDTO get(int userId) {
+        return CACHE.get(userId);
+    }
+
+    public static void put(UserAccountDTO account) {
+        CACHE.put(account.getUserId(), account);
+    }
+
+    public static void invalidate(int userId) {
+        CACHE.invalidate(userId);
+    }
+}
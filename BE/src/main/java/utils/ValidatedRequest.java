@@ -0,0 +1,15 @@
+package utils;
+
+import java.util.Map;
+
+/**
+ * A request type that checks itself after {@link RequestBinder} has filled it.
+ */
+public interface ValidatedRequest {
+
+    /**
+     * Put a message under the name of every invalid field; leave the map
+     * empty when the request is valid.
+     */
+    void validate(Map<String, String> errors);
+}
@@ -0,0 +1,17 @@
+-- Indexes for the dealer-scoped installment list (InstallmentPlanDAO.forEachActivePlanByDealer).
+-- Run once against the SWP391 database.
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_UserAccount_dealer_id')
+    CREATE INDEX IX_UserAccount_dealer_id ON UserAccount (dealer_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Order_dealer_staff_id')
+    CREATE INDEX IX_Order_dealer_staff_id ON [Order] (dealer_staff_id) INCLUDE (customer_id, model_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Payment_order_id')
+    CREATE INDEX IX_Payment_order_id ON Payment (order_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_InstallmentPlan_payment_id_status')
+    CREATE INDEX IX_InstallmentPlan_payment_id_status ON InstallmentPlan (payment_id, status);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_OrderDetail_order_id')
+    CREATE INDEX IX_OrderDetail_order_id ON OrderDetail (order_id, order_detail_id) INCLUDE (serial_id);
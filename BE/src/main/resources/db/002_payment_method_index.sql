@@ -0,0 +1,4 @@
+-- Index for the dealer TT payment list (PaymentDAO.forEachPaymentByDealerAndMethod).
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Payment_method_payment_id')
+    CREATE INDEX IX_Payment_method_payment_id ON Payment (method, payment_id) INCLUDE (order_id, amount, payment_date);
@@ -0,0 +1,14 @@
+-- Per (dealer, customer) installment debt, maintained by PaymentService on every
+-- payment / plan update and reconciled by CustomerDebtLedgerService.
+-- After creating the table, fill it once with POST /api/admin/reconcileDebtLedger {"rebuild": true}.
+
+IF OBJECT_ID('CustomerDebtLedger', 'U') IS NULL
+CREATE TABLE CustomerDebtLedger (
+    dealer_id        INT            NOT NULL,
+    customer_id      INT            NOT NULL,
+    outstanding_debt DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    paid_amount      DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    plan_count       INT            NOT NULL DEFAULT 0,
+    updated_at       DATETIME2      NOT NULL DEFAULT SYSDATETIME(),
+    CONSTRAINT PK_CustomerDebtLedger PRIMARY KEY (dealer_id, customer_id)
+);
@@ -0,0 +1,4 @@
+-- Range scans on order_date for the dealer sales summary (SaleRecordDAO.getDealerSalesSummary).
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Order_order_date')
+    CREATE INDEX IX_Order_order_date ON [Order] (order_date) INCLUDE (dealer_staff_id);
@@ -0,0 +1,20 @@
+-- Daily company sales (dealer/manufacturer orders, customer_id = 0) with an 'Agree'
+-- confirmation, maintained by ConfirmationDAO.updateStatus.
+-- After creating the table, fill it once with POST /api/admin/rebuildSalesRollup.
+
+IF OBJECT_ID('DailySalesRollup', 'U') IS NULL
+CREATE TABLE DailySalesRollup (
+    sales_day      DATE           NOT NULL,
+    dealer_id      INT            NOT NULL,
+    model_id       INT            NOT NULL,
+    variant_id     INT            NOT NULL,
+    order_count    INT            NOT NULL DEFAULT 0,
+    car_count      INT            NOT NULL DEFAULT 0,
+    total_quantity INT            NOT NULL DEFAULT 0,
+    total_revenue  DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT PK_DailySalesRollup PRIMARY KEY (sales_day, dealer_id, model_id, variant_id)
+);
+
+-- Lookups done while maintaining the rollup
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Confirmation_order_detail_id')
+    CREATE INDEX IX_Confirmation_order_detail_id ON Confirmation (order_detail_id) INCLUDE (agreement);
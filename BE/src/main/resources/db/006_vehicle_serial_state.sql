@@ -0,0 +1,25 @@
+-- Lifecycle state of each serial, so availability is an index lookup instead of
+-- NOT IN subqueries over OrderDetail/[Order]/Confirmation/UserAccount.
+--   FACTORY      not in any order
+--   DEALER_HELD  in a dealer order (customer_id = 0), dealer_id = ordering dealer
+--   RESERVED     in a custom order waiting for approval, dealer_id = ordering dealer
+--   SOLD         in a customer order, dealer_id = selling dealer
+-- Transitions are written by OrderService. After adding the columns, fill them
+-- once with POST /api/admin/backfillSerialStates.
+
+IF COL_LENGTH('VehicleSerial', 'state') IS NULL
+    ALTER TABLE VehicleSerial ADD state VARCHAR(20) NOT NULL
+        CONSTRAINT DF_VehicleSerial_state DEFAULT 'FACTORY'
+        CONSTRAINT CK_VehicleSerial_state CHECK (state IN ('FACTORY', 'DEALER_HELD', 'RESERVED', 'SOLD'));
+
+IF COL_LENGTH('VehicleSerial', 'dealer_id') IS NULL
+    ALTER TABLE VehicleSerial ADD dealer_id INT NULL;
+GO
+
+-- Free serials of a variant / per model inventory counts
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_VehicleSerial_variant_state')
+    CREATE INDEX IX_VehicleSerial_variant_state ON VehicleSerial (variant_id, state) INCLUDE (dealer_id);
+
+-- Serials held by one dealer
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_VehicleSerial_dealer_state')
+    CREATE INDEX IX_VehicleSerial_dealer_state ON VehicleSerial (dealer_id, state, variant_id);
@@ -0,0 +1,21 @@
+-- Available serials (state FACTORY or DEALER_HELD) per variant and holder, maintained
+-- together with Inventory.quantity by VehicleSerialDAO in the transaction that
+-- inserts serials or changes their state. dealer_id = 0 is factory stock.
+-- After creating the table, fill it once with POST /api/admin/reconcileInventory {"rebuild": true}.
+
+IF OBJECT_ID('InventoryBreakdown', 'U') IS NULL
+CREATE TABLE InventoryBreakdown (
+    variant_id INT       NOT NULL,
+    dealer_id  INT       NOT NULL,
+    model_id   INT       NOT NULL,
+    quantity   INT       NOT NULL DEFAULT 0,
+    updated_at DATETIME2 NOT NULL DEFAULT SYSDATETIME(),
+    CONSTRAINT PK_InventoryBreakdown PRIMARY KEY (variant_id, dealer_id)
+);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_InventoryBreakdown_model_id')
+    CREATE INDEX IX_InventoryBreakdown_model_id ON InventoryBreakdown (model_id) INCLUDE (quantity);
+
+-- /api/EVM/viewInventory joins Inventory to VehicleModel on model_id
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Inventory_model_id')
+    CREATE INDEX IX_Inventory_model_id ON Inventory (model_id) INCLUDE (quantity);
@@ -0,0 +1,20 @@
+-- Keyset paging of the list endpoints (utils.PageQuery): one index per sort key,
+-- with the id as the tie breaker. [Order].order_date is covered by 004.
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Customer_name')
+    CREATE INDEX IX_Customer_name ON Customer (name, customer_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Confirmation_date_time')
+    CREATE INDEX IX_Confirmation_date_time ON Confirmation (date_time, confirmation_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Dealer_dealer_name')
+    CREATE INDEX IX_Dealer_dealer_name ON Dealer (dealer_name, dealer_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Promotion_start_date')
+    CREATE INDEX IX_Promotion_start_date ON Promotion (start_date, promo_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Promotion_end_date')
+    CREATE INDEX IX_Promotion_end_date ON Promotion (end_date, promo_id);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_UserAccount_username')
+    CREATE INDEX IX_UserAccount_username ON UserAccount (username, user_id);